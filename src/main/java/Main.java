@@ -1,13 +1,47 @@
+import api.ApiServer;
 import com.formdev.flatlaf.FlatLightLaf;
+import model.ReorderSuggestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.BackupService;
+import service.DemandForecastService;
+import service.ProductCatalog;
+import service.SalesArchiveService;
+import service.StockLedgerService;
+import tools.DataGenerator;
+import tools.LoadSimulator;
+import tools.ReportBenchmark;
+import ui.EdtWatchdog;
+import ui.Icons;
 import ui.JLogin;
+import util.DBConnection;
+import util.StartupMetrics;
 
 import javax.swing.*;
 import java.awt.*;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class Main {
+    private static final Logger LOG = LoggerFactory.getLogger(Main.class);
+    private static final int WARM_UP_TIMEOUT_SECONDS = 5;
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].startsWith("--")) {
+            System.exit(runCommand(args));
+        }
+
+        StartupMetrics.mark("main");
         FlatLightLaf.setup();
+        EdtWatchdog.install();
 
         SplashScreen splash = SplashScreen.getSplashScreen();
         if (splash != null) {
@@ -21,17 +55,138 @@ public class Main {
                 g.drawString(msg, x, y);
                 splash.update();
             }
+        }
 
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+        // aquecimento em paralelo; o login abre assim que terminar (ou no tempo limite)
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        CompletableFuture<?> warmUp = CompletableFuture.allOf(
+                timed(pool, "conexão com o banco", DBConnection::warmUp),
+                timed(pool, "pré-carga do catálogo", () -> ProductCatalog.getInstance().preload()),
+                timed(pool, "pré-carga de ícones", Icons::preload)
+        );
+        pool.shutdown();
+        try {
+            warmUp.get(WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOG.warn("startup: aquecimento passou de {} s, seguindo em segundo plano", WARM_UP_TIMEOUT_SECONDS);
+        } catch (ExecutionException e) {
+            LOG.warn("startup: falha no aquecimento: {}", e.getCause().toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        StartupMetrics.mark("aquecimento concluído");
+
+        Runtime.getRuntime().addShutdownHook(
+                new Thread(() -> ProductCatalog.getInstance().saveSnapshot(), "catalog-snapshot"));
+        SalesArchiveService.scheduleDaily();
+        DemandForecastService.scheduleDaily();
+        StockLedgerService.scheduleCompaction();
 
         SwingUtilities.invokeLater(() -> {
             new JLogin().setVisible(true);
+            StartupMetrics.mark("tela de login visível");
         });
     }
 
+    private interface WarmUpTask {
+        void run() throws Exception;
+    }
+
+    private static CompletableFuture<Void> timed(ExecutorService pool, String name, WarmUpTask task) {
+        return CompletableFuture.runAsync(() -> {
+            long t0 = System.nanoTime();
+            try {
+                task.run();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                StartupMetrics.took(name, t0);
+            }
+        }, pool);
+    }
+
+    /** Comandos de linha de comando (sem interface gráfica). Retorna o código de saída. */
+    private static int runCommand(String[] args) {
+        String cmd = args[0];
+        try {
+            switch (cmd) {
+                case "--backup" -> {
+                    Path file = Path.of(requireArg(args, cmd));
+                    long t0 = System.nanoTime();
+                    new BackupService().backup(file, Main::printProgress);
+                    System.out.printf("Backup gravado em %s (%d ms)%n", file, (System.nanoTime() - t0) / 1_000_000);
+                }
+                case "--restore" -> {
+                    Path file = Path.of(requireArg(args, cmd));
+                    long t0 = System.nanoTime();
+                    new BackupService().restore(file, Main::printProgress);
+                    System.out.printf("Restauração concluída a partir de %s (%d ms)%n", file, (System.nanoTime() - t0) / 1_000_000);
+                }
+                case "--server" -> {
+                    int port = args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("lojavila.api.porta", 8080);
+                    DBConnection.enablePool(Integer.getInteger("lojavila.api.conexoes", 20));
+                    ApiServer server = new ApiServer(port);
+                    Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "api-stop"));
+                    server.start();
+                    SalesArchiveService.scheduleDaily();
+                    DemandForecastService.scheduleDaily();
+                    StockLedgerService.scheduleCompaction();
+                    Thread.currentThread().join();
+                }
+                case "--simular" -> new LoadSimulator(
+                        LoadSimulator.Config.parse(Arrays.copyOfRange(args, 1, args.length))).run(System.out);
+                case "--gerar-dados" -> new DataGenerator(
+                        DataGenerator.Config.parse(Arrays.copyOfRange(args, 1, args.length))).run(System.out);
+                case "--medir-relatorios" -> {
+                    int regressions = new ReportBenchmark(
+                            ReportBenchmark.Config.parse(Arrays.copyOfRange(args, 1, args.length))).run(System.out);
+                    if (regressions > 0) return 3;
+                }
+                case "--arquivar-vendas" -> {
+                    long t0 = System.nanoTime();
+                    long moved = new SalesArchiveService().archive(rows -> System.out.printf("  %,d vendas movidas%n", rows));
+                    System.out.printf("%,d vendas anteriores a %s arquivadas (%d ms)%n",
+                            moved, SalesArchiveService.hotFrom(), (System.nanoTime() - t0) / 1_000_000);
+                }
+                case "--previsao-demanda" -> {
+                    DemandForecastService service = new DemandForecastService();
+                    long t0 = System.nanoTime();
+                    int updated = service.update();
+                    System.out.printf("Previsão de %,d produtos atualizada (%d ms)%n", updated, (System.nanoTime() - t0) / 1_000_000);
+                    List<ReorderSuggestion> list = service.suggestions();
+                    System.out.printf("%,d produtos a repor (prazo %d dias + cobertura %d dias)%n",
+                            list.size(), DemandForecastService.LEAD_DAYS, DemandForecastService.COVER_DAYS);
+                    for (ReorderSuggestion r : list.subList(0, Math.min(20, list.size()))) {
+                        System.out.printf("  %-40s estoque %6d  previsão %8.1f  pedir %6d%n",
+                                r.getProductName(), r.getQuantity(), r.getForecast(), r.getSuggested());
+                    }
+                }
+                default -> {
+                    System.err.println("Comando desconhecido: " + cmd);
+                    System.err.println("Uso: java -jar loja.jar [--backup <arquivo.zip> | --restore <arquivo.zip> | --arquivar-vendas | --previsao-demanda | --server [porta]");
+                    System.err.println("       | --simular [terminais=N duracao=S aquecimento=S pensar=MS zipf=S itens=N painel=P pool=N usuario=U]");
+                    System.err.println("       | --gerar-dados [sf=1 seed=42 limpar=false arquivar=true threads=N]");
+                    System.err.println("       | --medir-relatorios [escala=SF1 repeticoes=5 saida=arquivo.csv tolerancia=0.2]]");
+                    return 2;
+                }
+            }
+            return 0;
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return 2;
+        } catch (Exception ex) {
+            System.err.println("Falha em " + cmd + ": " + ex.getMessage());
+            ex.printStackTrace();
+            return 1;
+        }
+    }
+
+    private static String requireArg(String[] args, String cmd) {
+        if (args.length < 2) throw new IllegalArgumentException("Uso: " + cmd + " <arquivo>");
+        return args[1];
+    }
+
+    private static void printProgress(String table, long rows) {
+        System.out.printf("  %-10s %,d linhas%n", table, rows);
+    }
 }
@@ -0,0 +1,370 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dao.ProductDAO;
+import dao.ReservationDAO;
+import dao.SaleDAO;
+import model.Product;
+import model.ProductSales;
+import model.TicketSummary;
+import model.User;
+import model.UserSales;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.AuthService;
+import service.Cart;
+import service.CheckoutService;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLTransientException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * API HTTP/JSON do modo servidor ({@code --server}).
+ *
+ * Cada requisição roda numa thread virtual; as conexões com o banco vêm do
+ * pool de {@link util.DBConnection}, então muitos caixas web dividem poucas
+ * conexões. Listas grandes (produtos, estoque) são escritas em fluxo, linha
+ * a linha do banco para a resposta, sem montar a lista em memória.
+ *
+ * <pre>
+ *   GET  /api/products               todos os produtos (fluxo)
+ *   GET  /api/products/{id}          um produto
+ *   GET  /api/products?sku=...       busca por SKU
+ *   GET  /api/stock                  estoque e unidades reservadas (fluxo)
+ *   POST /api/checkout               {"items":[{"productId":1,"quantity":2}]}
+ *   GET  /api/reports/sales-by-user
+ *   GET  /api/reports/top-selling?limit=10
+ *   GET  /api/reports/sales-by-day?days=30
+ *   GET  /api/reports/tickets-by-day?days=30
+ * </pre>
+ * Todas exigem HTTP Basic com usuário e senha do sistema.
+ */
+public class ApiServer {
+    private static final Logger LOG = LoggerFactory.getLogger(ApiServer.class);
+    private static final long AUTH_CACHE_MS = 5 * 60_000;
+    private static final int  MAX_BODY = 1 << 20;
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange ex, User user) throws Exception;
+    }
+
+    /** Resposta de erro com status HTTP. */
+    private static final class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private record CachedLogin(byte[] secret, User user, long until) { }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ProductDAO productDAO = new ProductDAO();
+    private final SaleDAO saleDAO = new SaleDAO();
+    private final ReservationDAO reservationDAO = new ReservationDAO();
+    private final CheckoutService checkout = new CheckoutService();
+    private final AuthService auth = new AuthService();
+    /** BCrypt custa ~100 ms por verificação; login válido fica em cache por alguns minutos. */
+    private final Map<String, CachedLogin> logins = new ConcurrentHashMap<>();
+
+    public ApiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/products", route("GET", this::products));
+        server.createContext("/api/stock", route("GET", this::stock));
+        server.createContext("/api/checkout", route("POST", this::checkout));
+        server.createContext("/api/reports/sales-by-user", route("GET", this::salesByUser));
+        server.createContext("/api/reports/top-selling", route("GET", this::topSelling));
+        server.createContext("/api/reports/sales-by-day", route("GET", this::salesByDay));
+        server.createContext("/api/reports/tickets-by-day", route("GET", this::ticketsByDay));
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("API ouvindo em http://{}:{}/api", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(2);
+        executor.shutdown();
+    }
+
+    // ------------------------------------------------------------ endpoints
+
+    private void products(HttpExchange ex, User user) throws IOException {
+        String rest = subPath(ex, "/api/products");
+        Map<String, String> q = query(ex);
+        if (!rest.isEmpty()) {
+            Product p = productDAO.findById(parseInt(rest, "id"));
+            if (p == null) throw new ApiException(404, "Produto " + rest + " não encontrado");
+            send(ex, 200, out -> product(out, p));
+        } else if (q.containsKey("sku")) {
+            Product p = productDAO.findBySku(q.get("sku"));
+            if (p == null) throw new ApiException(404, "SKU " + q.get("sku") + " não encontrado");
+            send(ex, 200, out -> product(out, p));
+        } else {
+            send(ex, 200, out -> {
+                out.beginArray();
+                productDAO.forEach(p -> unchecked(() -> product(out, p)));
+                out.endArray();
+            });
+        }
+    }
+
+    private void stock(HttpExchange ex, User user) throws Exception {
+        Map<Integer, Integer> reserved = reservationDAO.findReserved();
+        send(ex, 200, out -> {
+            out.beginArray();
+            productDAO.forEach(p -> unchecked(() -> {
+                int r = reserved.getOrDefault(p.getId(), 0);
+                out.beginObject()
+                        .field("id", p.getId())
+                        .field("sku", p.getSku())
+                        .field("quantity", p.getQuantity())
+                        .field("reserved", r)
+                        .field("available", p.getQuantity() - r)
+                        .endObject();
+            }));
+            out.endArray();
+        });
+    }
+
+    private void checkout(HttpExchange ex, User user) throws Exception {
+        Object body = Json.parse(readBody(ex));
+        if (!(body instanceof Map<?, ?> map) || !(map.get("items") instanceof List<?> items) || items.isEmpty()) {
+            throw new ApiException(400, "Corpo deve ter \"items\": [{\"productId\":..,\"quantity\":..}]");
+        }
+        Cart cart = new Cart();
+        for (Object o : items) {
+            if (!(o instanceof Map<?, ?> item)
+                    || !(item.get("productId") instanceof Long id)
+                    || !(item.get("quantity") instanceof Long qty) || qty <= 0) {
+                throw new ApiException(400, "Item inválido: " + o);
+            }
+            Product p = productDAO.findById(id.intValue());
+            if (p == null) throw new ApiException(404, "Produto " + id + " não encontrado");
+            cart.add(p, qty.intValue());
+        }
+        long ticket = checkout.checkout(cart, user, List.of());
+        send(ex, 201, out -> out.beginObject()
+                .field("ticket", ticket)
+                .field("lines", cart.getLines().size())
+                .field("totalCents", cart.getTotalCents())
+                .endObject());
+    }
+
+    private void salesByUser(HttpExchange ex, User user) throws Exception {
+        List<UserSales> list = saleDAO.findSalesByUser();
+        send(ex, 200, out -> {
+            out.beginArray();
+            for (UserSales us : list) {
+                out.beginObject().field("username", us.getUsername()).field("total", us.getTotalSold()).endObject();
+            }
+            out.endArray();
+        });
+    }
+
+    private void topSelling(HttpExchange ex, User user) throws Exception {
+        int limit = parseInt(query(ex).getOrDefault("limit", "10"), "limit");
+        List<ProductSales> list = saleDAO.findTopSelling(limit);
+        send(ex, 200, out -> {
+            out.beginArray();
+            for (ProductSales ps : list) {
+                out.beginObject().field("product", ps.getProductName()).field("quantity", ps.getTotalQuantity()).endObject();
+            }
+            out.endArray();
+        });
+    }
+
+    private void salesByDay(HttpExchange ex, User user) throws Exception {
+        int days = parseInt(query(ex).getOrDefault("days", "30"), "days");
+        Map<LocalDate, Double> map = saleDAO.findSalesByDay(days);
+        send(ex, 200, out -> {
+            out.beginArray();
+            for (Map.Entry<LocalDate, Double> e : map.entrySet()) {
+                out.beginObject().field("date", e.getKey().toString()).field("total", e.getValue()).endObject();
+            }
+            out.endArray();
+        });
+    }
+
+    private void ticketsByDay(HttpExchange ex, User user) throws Exception {
+        int days = parseInt(query(ex).getOrDefault("days", "30"), "days");
+        List<TicketSummary> list = saleDAO.findTicketsByDay(days);
+        send(ex, 200, out -> {
+            out.beginArray();
+            for (TicketSummary t : list) {
+                out.beginObject()
+                        .field("date", t.getDay().toString())
+                        .field("tickets", t.getTickets())
+                        .field("items", t.getItems())
+                        .field("total", t.getTotal())
+                        .field("averageTicket", t.getAverageTicket())
+                        .endObject();
+            }
+            out.endArray();
+        });
+    }
+
+    // ------------------------------------------------------------ plumbing
+
+    @FunctionalInterface
+    private interface Body {
+        void write(Json.Out out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private com.sun.net.httpserver.HttpHandler route(String method, Handler h) {
+        return ex -> {
+            try (ex) {
+                try {
+                    if (!method.equals(ex.getRequestMethod())) {
+                        throw new ApiException(405, "Use " + method);
+                    }
+                    h.handle(ex, authenticate(ex));
+                } catch (ApiException e) {
+                    error(ex, e.status, e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    error(ex, 400, e.getMessage());
+                } catch (IllegalStateException e) {
+                    // estoque insuficiente e afins
+                    error(ex, 409, e.getMessage());
+                } catch (SQLTransientException e) {
+                    // bulkhead cheio, circuito aberto ou consulta cancelada pelo timeout
+                    ex.getResponseHeaders().set("Retry-After", "30");
+                    error(ex, 503, e.getMessage());
+                } catch (Exception e) {
+                    LOG.warn("{} {} falhou", ex.getRequestMethod(), ex.getRequestURI(), e);
+                    error(ex, 500, "Erro interno");
+                }
+            }
+        };
+    }
+
+    private User authenticate(HttpExchange ex) throws Exception {
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            ex.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"lojavila\"");
+            throw new ApiException(401, "Autenticação necessária");
+        }
+        String decoded = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        int colon = decoded.indexOf(':');
+        if (colon < 0) throw new ApiException(401, "Credenciais inválidas");
+        String username = decoded.substring(0, colon);
+        byte[] secret = sha256(decoded);
+
+        long now = System.currentTimeMillis();
+        CachedLogin cached = logins.get(username);
+        if (cached != null && cached.until() > now && MessageDigest.isEqual(cached.secret(), secret)) {
+            return cached.user();
+        }
+        User u = auth.login(username, decoded.substring(colon + 1));
+        if (u == null) {
+            logins.remove(username);
+            throw new ApiException(401, "Credenciais inválidas");
+        }
+        logins.put(username, new CachedLogin(secret, u, now + AUTH_CACHE_MS));
+        return u;
+    }
+
+    /**
+     * Resposta em fluxo (chunked). Se o banco falhar no meio, o status já foi
+     * enviado: a conexão é fechada e o cliente vê o JSON incompleto.
+     */
+    private static void send(HttpExchange ex, int status, Body body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, 0);
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 1 << 14)) {
+            body.write(new Json.Out(w));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void error(HttpExchange ex, int status, String message) {
+        try {
+            send(ex, status, out -> out.beginObject().field("error", message).endObject());
+        } catch (IOException | RuntimeException ignore) {
+            // cabeçalhos já enviados ou cliente desconectou
+        }
+    }
+
+    private static void product(Json.Out out, Product p) throws IOException {
+        out.beginObject()
+                .field("id", p.getId())
+                .field("name", p.getName())
+                .field("price", p.getPrice())
+                .field("quantity", p.getQuantity())
+                .field("sku", p.getSku())
+                .endObject();
+    }
+
+    private static void unchecked(IoAction a) {
+        try {
+            a.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] data = in.readNBytes(MAX_BODY + 1);
+            if (data.length > MAX_BODY) throw new ApiException(413, "Corpo grande demais");
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String subPath(HttpExchange ex, String context) {
+        String path = ex.getRequestURI().getPath().substring(context.length());
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> map = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return map;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            map.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return map;
+    }
+
+    private static int parseInt(String s, String what) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Valor inválido para " + what + ": " + s);
+        }
+    }
+
+    private static byte[] sha256(String s) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
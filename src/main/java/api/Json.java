@@ -0,0 +1,240 @@
+package api;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON mínimo para a API, sem dependência externa: um escritor em fluxo
+ * (escreve direto na resposta, elemento a elemento) e um leitor para os
+ * corpos pequenos das requisições.
+ */
+final class Json {
+    private Json() { }
+
+    /** Escritor em fluxo. Cuida das vírgulas; quem chama cuida do aninhamento. */
+    static final class Out {
+        private final Writer w;
+        /** true = já escreveu algo no nível atual. */
+        private final Deque<Boolean> levels = new ArrayDeque<>();
+        private boolean afterName;
+
+        Out(Writer w) {
+            this.w = w;
+        }
+
+        Out beginObject() throws IOException { comma(); w.write('{'); levels.push(false); return this; }
+        Out endObject()   throws IOException { levels.pop(); w.write('}'); return this; }
+        Out beginArray()  throws IOException { comma(); w.write('['); levels.push(false); return this; }
+        Out endArray()    throws IOException { levels.pop(); w.write(']'); return this; }
+
+        Out name(String name) throws IOException {
+            comma();
+            string(name);
+            w.write(':');
+            afterName = true;
+            return this;
+        }
+
+        Out value(String s) throws IOException {
+            comma();
+            if (s == null) w.write("null"); else string(s);
+            return this;
+        }
+
+        Out value(long n) throws IOException {
+            comma();
+            w.write(Long.toString(n));
+            return this;
+        }
+
+        Out value(double d) throws IOException {
+            comma();
+            w.write(Double.isFinite(d) ? Double.toString(d) : "null");
+            return this;
+        }
+
+        Out field(String name, String v) throws IOException { return name(name).value(v); }
+        Out field(String name, long v)   throws IOException { return name(name).value(v); }
+        Out field(String name, double v) throws IOException { return name(name).value(v); }
+
+        private void comma() throws IOException {
+            if (afterName) {
+                afterName = false;
+                return;
+            }
+            if (levels.isEmpty()) return;
+            if (levels.peek()) w.write(',');
+            else {
+                levels.pop();
+                levels.push(true);
+            }
+        }
+
+        private void string(String s) throws IOException {
+            w.write('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"'  -> w.write("\\\"");
+                    case '\\' -> w.write("\\\\");
+                    case '\n' -> w.write("\\n");
+                    case '\r' -> w.write("\\r");
+                    case '\t' -> w.write("\\t");
+                    default -> {
+                        if (c < 0x20) w.write(String.format("\\u%04x", (int) c));
+                        else w.write(c);
+                    }
+                }
+            }
+            w.write('"');
+        }
+    }
+
+    /** Lê um valor JSON: Map, List, String, Long/Double, Boolean ou null. */
+    static Object parse(String text) {
+        Parser p = new Parser(text);
+        Object v = p.value();
+        p.skipWs();
+        if (p.pos != text.length()) throw p.error("conteúdo depois do fim");
+        return v;
+    }
+
+    /**
+     * Níveis de objeto/array aceitos. O leitor é recursivo: sem limite, um
+     * corpo com milhares de '[' estoura a pilha da thread (StackOverflowError,
+     * que não é Exception) em vez de virar um 400.
+     */
+    static final int MAX_DEPTH = 64;
+
+    private static final class Parser {
+        private final String s;
+        private int pos;
+        private int depth;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            skipWs();
+            if (pos >= s.length()) throw error("fim inesperado");
+            char c = s.charAt(pos);
+            return switch (c) {
+                case '{' -> object();
+                case '[' -> array();
+                case '"' -> string();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> number();
+            };
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            enter();
+            skipWs();
+            if (peek() == '}') { pos++; depth--; return map; }
+            while (true) {
+                skipWs();
+                if (peek() != '"') throw error("esperado nome de campo");
+                String key = string();
+                skipWs();
+                expect(':');
+                map.put(key, value());
+                skipWs();
+                if (peek() == ',') { pos++; continue; }
+                expect('}');
+                depth--;
+                return map;
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            enter();
+            skipWs();
+            if (peek() == ']') { pos++; depth--; return list; }
+            while (true) {
+                list.add(value());
+                skipWs();
+                if (peek() == ',') { pos++; continue; }
+                expect(']');
+                depth--;
+                return list;
+            }
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH) throw error("mais de " + MAX_DEPTH + " níveis de aninhamento");
+            pos++;
+        }
+
+        private String string() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') { sb.append(c); continue; }
+                if (pos >= s.length()) break;
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw error("escape \\u incompleto");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(e);
+                }
+            }
+            throw error("texto sem fechar aspas");
+        }
+
+        private Object number() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) pos++;
+            String n = s.substring(start, pos);
+            if (n.isEmpty()) throw error("valor inválido");
+            try {
+                return n.contains(".") || n.contains("e") || n.contains("E") ? (Object) Double.parseDouble(n) : (Object) Long.parseLong(n);
+            } catch (NumberFormatException e) {
+                throw error("número inválido: " + n);
+            }
+        }
+
+        private Object literal(String word, Object v) {
+            if (!s.startsWith(word, pos)) throw error("valor inválido");
+            pos += word.length();
+            return v;
+        }
+
+        private char peek() {
+            return pos < s.length() ? s.charAt(pos) : '\0';
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw error("esperado '" + c + "'");
+            pos++;
+        }
+
+        void skipWs() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException("JSON inválido na posição " + pos + ": " + msg);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dao;
+
+import model.DemandForecast;
+import util.DBConnection;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Estado da previsão de demanda por produto ({@code product_demand}). */
+public class DemandDAO {
+
+    /** Recebe a quantidade vendida de um produto num dia. */
+    @FunctionalInterface
+    public interface DailyQuantity {
+        void accept(int productId, LocalDate day, int quantity);
+    }
+
+    public Map<Integer, DemandForecast> findAll() throws SQLException {
+        String sql = "SELECT product_id, level, mad, last_day, " +
+                "season_1, season_2, season_3, season_4, season_5, season_6, season_7 FROM product_demand";
+        Map<Integer, DemandForecast> map = new HashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    DemandForecast f = new DemandForecast(rs.getInt("product_id"), rs.getDate("last_day").toLocalDate());
+                    f.setLevel(rs.getDouble("level"));
+                    f.setMad(rs.getDouble("mad"));
+                    for (DayOfWeek d : DayOfWeek.values()) {
+                        f.setSeason(d, rs.getDouble("season_" + d.getValue()));
+                    }
+                    map.put(f.getProductId(), f);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Quantidade vendida por produto e dia em [{@code from}, {@code to}],
+     * lida em streaming (vendas recentes e arquivadas).
+     */
+    public void forEachDailyQuantity(LocalDate from, LocalDate to, DailyQuantity action) throws SQLException {
+        String sql =
+                "SELECT product_id, DATE(sale_date) AS dt, SUM(quantity) AS qty FROM (" +
+                "  SELECT product_id, quantity, sale_date FROM sales WHERE sale_date >= ? AND sale_date < ?" +
+                "  UNION ALL" +
+                "  SELECT product_id, quantity, sale_date FROM sales_archive WHERE sale_date >= ? AND sale_date < ?" +
+                ") s GROUP BY product_id, dt";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+            Timestamp end   = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+            ps.setTimestamp(1, start);
+            ps.setTimestamp(2, end);
+            ps.setTimestamp(3, start);
+            ps.setTimestamp(4, end);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(rs.getInt("product_id"), rs.getDate("dt").toLocalDate(), rs.getInt("qty"));
+                }
+            }
+        }
+    }
+
+    /** Grava (insere ou substitui) os estados numa transação, em lote. */
+    public void upsert(List<DemandForecast> forecasts) throws SQLException {
+        if (forecasts.isEmpty()) return;
+        String sql = "INSERT INTO product_demand (product_id, level, mad, last_day, " +
+                "season_1, season_2, season_3, season_4, season_5, season_6, season_7) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE level = VALUES(level), mad = VALUES(mad), last_day = VALUES(last_day), " +
+                "season_1 = VALUES(season_1), season_2 = VALUES(season_2), season_3 = VALUES(season_3), " +
+                "season_4 = VALUES(season_4), season_5 = VALUES(season_5), season_6 = VALUES(season_6), " +
+                "season_7 = VALUES(season_7)";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (DemandForecast f : forecasts) {
+                ps.setInt(1, f.getProductId());
+                ps.setDouble(2, f.getLevel());
+                ps.setDouble(3, f.getMad());
+                ps.setDate(4, Date.valueOf(f.getLastDay()));
+                for (DayOfWeek d : DayOfWeek.values()) {
+                    ps.setDouble(4 + d.getValue(), f.getSeason(d));
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+    }
+}
@@ -1,27 +1,42 @@
 package dao;
 
 import model.Product;
+import model.StockMovement;
+import util.AuditLog;
 import util.DBConnection;
+import util.QueryScope;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class ProductDAO {
+    /** Colunas de {@link #map}; a quantidade é o saldo atual do razão de estoque. */
+    private static final String SELECT = "SELECT p.id, p.name, p.price, " + StockLedgerDAO.BALANCE +
+            " AS quantity, p.sku, p.reorder_level FROM products p";
+
+    private final StockLedgerDAO ledger = new StockLedgerDAO();
+
+    /** Alteração feita por uma gravação em lote, já com os valores como vão para a auditoria. */
+    public record Change(int id, String action, String before, String after) { }
+
     public List<Product> findAll() {
-        String sql = "SELECT id, name, price, quantity FROM products ORDER BY id";
+        String sql = SELECT + " ORDER BY p.id";
         List<Product> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                list.add(new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getDouble("price"),
-                        rs.getInt("quantity")
-                ));
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            QueryScope.track(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(map(rs));
+                }
             }
         } catch (SQLException e) {
             throw new RuntimeException("Erro listando produtos", e);
@@ -29,14 +44,36 @@ public class ProductDAO {
         return list;
     }
 
+    /**
+     * Percorre todos os produtos sem montar a lista: o driver entrega linha a
+     * linha, então a memória não cresce com o catálogo (usado pela API).
+     */
+    public void forEach(Consumer<Product> action) {
+        String sql = SELECT + " ORDER BY p.id";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro listando produtos", e);
+        }
+    }
+
+    /** Insere o produto; a quantidade informada entra no razão como ajuste inicial. */
     public void save(Product product) {
-        String sql = "INSERT INTO products(name, price, quantity) VALUES (?, ?, ?)";
+        String sql = "INSERT INTO products(name, price, sku, reorder_level) VALUES (?, ?, ?, ?)";
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
+            conn.setAutoCommit(false);
             ps.setString(1, product.getName());
             ps.setDouble(2, product.getPrice());
-            ps.setInt(3, product.getQuantity());
+            ps.setString(3, product.getSku());
+            ps.setInt(4, product.getReorderLevel());
             ps.executeUpdate();
 
             try (ResultSet keys = ps.getGeneratedKeys()) {
@@ -44,70 +81,114 @@ public class ProductDAO {
                     product.setId(keys.getInt(1));
                 }
             }
+            if (product.getQuantity() != 0) {
+                ledger.append(conn, List.of(new StockMovement(product.getId(), StockMovement.Kind.AJUSTE,
+                        product.getQuantity(), AuditLog.user(), "cadastro")));
+            }
+            conn.commit();
         } catch (SQLException e) {
             throw new RuntimeException("Erro inserindo produto", e);
         }
+        AuditLog.record("produto", product.getId(), "INCLUSAO", null, describe(product));
     }
 
-    public void update(Product product) {
+    /**
+     * Grava o cadastro. A quantidade não vai para a linha: {@code stockDelta},
+     * o quanto o usuário mudou a quantidade que o formulário carregou, entra
+     * no razão como ajuste (0 = estoque não mexido). Assim vendas feitas
+     * enquanto o formulário estava aberto continuam valendo.
+     */
+    public void update(Product product, int stockDelta) {
         if (product.getId() == null) {
             throw new IllegalArgumentException("ID do produto não pode ser nulo para atualização");
         }
-        String sql = "UPDATE products SET name = ?, price = ?, quantity = ? WHERE id = ?";
+        String sql = "UPDATE products SET name = ?, price = ?, sku = ?, reorder_level = ? WHERE id = ?";
+        Product before;
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
+            conn.setAutoCommit(false);
+            before = lockCurrent(conn, product.getId());
+            if (before == null) {
+                conn.rollback();
+                return;
+            }
             ps.setString(1, product.getName());
             ps.setDouble(2, product.getPrice());
-            ps.setInt(3, product.getQuantity());
-            ps.setInt(4, product.getId());
+            ps.setString(3, product.getSku());
+            ps.setInt(4, product.getReorderLevel());
+            ps.setInt(5, product.getId());
             ps.executeUpdate();
+            if (stockDelta != 0) {
+                ledger.append(conn, List.of(new StockMovement(product.getId(), StockMovement.Kind.AJUSTE,
+                        stockDelta, AuditLog.user(), "edição do cadastro")));
+            }
+            conn.commit();
         } catch (SQLException e) {
             throw new RuntimeException("Erro atualizando produto", e);
         }
+        // o saldo gravado é o lido na transação mais o ajuste, não o que o formulário mostrava
+        Product after = new Product(product.getId(), product.getName(), product.getPrice(),
+                before.getQuantity() + stockDelta, product.getSku());
+        after.setReorderLevel(product.getReorderLevel());
+        AuditLog.record("produto", product.getId(), "ALTERACAO", describe(before), describe(after));
     }
 
+    /**
+     * Exclui o produto. Produto com vendas (recentes ou arquivadas) não é
+     * excluído: as linhas de venda e os tickets são histórico e os relatórios
+     * dependem deles. A checagem roda com o produto travado, então nenhuma
+     * venda entra entre ela e a exclusão.
+     *
+     * @throws IllegalStateException se o produto tem vendas
+     */
     public void delete(Integer id) {
         if (id == null) return;
-        String delSales   = "DELETE FROM sales   WHERE product_id = ?";
-        String delProduct = "DELETE FROM products WHERE id         = ?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement psSales   = conn.prepareStatement(delSales);
-             PreparedStatement psProduct = conn.prepareStatement(delProduct)) {
-
+        String hasSales = "SELECT EXISTS(SELECT 1 FROM sales WHERE product_id = ?) " +
+                "OR EXISTS(SELECT 1 FROM sales_archive WHERE product_id = ?)";
+        String delProduct = "DELETE FROM products WHERE id = ?";
+        Product before;
+        try (Connection conn = DBConnection.getConnection()) {
             conn.setAutoCommit(false);
-
-            // 1) remover vendas associadas
-            psSales.setInt(1, id);
-            psSales.executeUpdate();
-
-            // 2) remover produto
-            psProduct.setInt(1, id);
-            psProduct.executeUpdate();
-
-            conn.commit();
+            try (PreparedStatement psSales   = conn.prepareStatement(hasSales);
+                 PreparedStatement psProduct = conn.prepareStatement(delProduct)) {
+                before = lockCurrent(conn, id);
+                if (before == null) {
+                    conn.rollback();
+                    return;
+                }
+                psSales.setInt(1, id);
+                psSales.setInt(2, id);
+                try (ResultSet rs = psSales.executeQuery()) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        throw new IllegalStateException("Produto com vendas registradas não pode ser excluído.");
+                    }
+                }
+                // movimentos de estoque e reservas saem junto (ON DELETE CASCADE)
+                psProduct.setInt(1, id);
+                psProduct.executeUpdate();
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
-            // tenta rollback em caso de falha
-            try { Connection conn = DBConnection.getConnection(); conn.rollback(); } catch (Exception ignore) {}
-            throw new RuntimeException("Erro deletando produto em cascata", e);
+            throw new RuntimeException("Erro excluindo produto", e);
         }
+        AuditLog.record("produto", id, "EXCLUSAO", describe(before), null);
     }
 
     public Product findById(Integer id) {
         if (id == null) return null;
-        String sql = "SELECT id, name, price, quantity FROM products WHERE id = ?";
+        String sql = SELECT + " WHERE p.id = ?";
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getDouble("price"),
-                            rs.getInt("quantity")
-                    );
+                    return map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -117,19 +198,14 @@ public class ProductDAO {
     }
 
     public Product findByName(String name) {
-        String sql = "SELECT id, name, price, quantity FROM products WHERE name = ?";
+        String sql = SELECT + " WHERE p.name = ?";
         try (Connection c = DBConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setString(1, name);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getDouble("price"),
-                            rs.getInt("quantity")
-                    );
+                    return map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -137,4 +213,248 @@ public class ProductDAO {
         }
         return null;
     }
+
+    /** Busca pelo código de barras/SKU (índice único). */
+    public Product findBySku(String sku) {
+        if (sku == null || sku.isBlank()) return null;
+        String sql = SELECT + " WHERE p.sku = ?";
+        try (Connection c = DBConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setString(1, sku);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return map(rs);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro buscando produto por SKU", e);
+        }
+        return null;
+    }
+
+    // --- sincronização incremental do catálogo ---
+
+    /**
+     * Última alteração de cadastro ou movimento de estoque (relógio do banco),
+     * ou null se não houver nenhum. Os dois MAX saem da ponta dos índices.
+     */
+    public Timestamp findLastUpdate() {
+        String sql = "SELECT (SELECT MAX(updated_at) FROM products), (SELECT MAX(created_at) FROM stock_movements)";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) return null;
+            Timestamp products = rs.getTimestamp(1), movements = rs.getTimestamp(2);
+            if (products == null) return movements;
+            return movements != null && movements.after(products) ? movements : products;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro consultando última alteração de produtos", e);
+        }
+    }
+
+    /**
+     * Produtos alterados, criados ou com movimento de estoque a partir de
+     * {@code since}. Os dois lados do UNION são faixas de índice
+     * (idx_products_updated_at e idx_movements_created), então o custo segue
+     * o que mudou e não o tamanho do razão.
+     */
+    public List<Product> findChangedSince(Timestamp since) {
+        String sql = "SELECT p.id, p.name, p.price, " + StockLedgerDAO.BALANCE + " AS quantity, p.sku, p.reorder_level " +
+                "FROM (SELECT id FROM products WHERE updated_at >= ? " +
+                "      UNION SELECT product_id FROM stock_movements WHERE created_at >= ?) c " +
+                "JOIN products p ON p.id = c.id ORDER BY p.id";
+        List<Product> list = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, since);
+            ps.setTimestamp(2, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro listando produtos alterados", e);
+        }
+        return list;
+    }
+
+    /** {quantidade de linhas, soma dos ids}: detecta exclusões sem trazer a tabela. */
+    public long[] findCountAndIdSum() {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(id), 0) FROM products";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return new long[]{ rs.getLong(1), rs.getLong(2) };
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro contando produtos", e);
+        }
+    }
+
+    public Set<Integer> findAllIds() {
+        String sql = "SELECT id FROM products";
+        Set<Integer> ids = new HashSet<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro listando ids de produtos", e);
+        }
+        return ids;
+    }
+
+    // --- operações em lote: a conexão (e a transação) ficam com quem chama ---
+
+    /** Mapa nome em minúsculas -> id, para casar registros importados com o cadastro. */
+    public Map<String, Integer> findIdsByName(Connection conn) throws SQLException {
+        String sql = "SELECT id, name FROM products ORDER BY id";
+        Map<String, Integer> map = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                map.putIfAbsent(rs.getString("name").toLowerCase(Locale.ROOT), rs.getInt("id"));
+            }
+        }
+        return map;
+    }
+
+    /** Mapa SKU -> id, para casar registros importados pelo código. */
+    public Map<String, Integer> findIdsBySku(Connection conn) throws SQLException {
+        String sql = "SELECT id, sku FROM products WHERE sku IS NOT NULL";
+        Map<String, Integer> map = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                map.put(rs.getString("sku"), rs.getInt("id"));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Insere os produtos; as quantidades entram no razão como ajuste inicial
+     * (sem quantidade: começa em 0). Devolve uma INCLUSAO por produto, para
+     * quem chama registrar na auditoria depois do commit.
+     */
+    public List<Change> insertBatch(Connection conn, List<Product> products) throws SQLException {
+        if (products.isEmpty()) return List.of();
+        String sql = "INSERT INTO products(name, price, sku) VALUES (?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Product p : products) {
+                ps.setString(1, p.getName());
+                ps.setDouble(2, p.getPrice());
+                ps.setString(3, p.getSku());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (int i = 0; i < products.size() && keys.next(); i++) {
+                    products.get(i).setId(keys.getInt(1));
+                }
+            }
+        }
+        List<StockMovement> initial = new ArrayList<>();
+        List<Change> changes = new ArrayList<>(products.size());
+        for (Product p : products) {
+            if (p.getId() == null) continue;
+            int qty = p.getQuantity() == null ? 0 : p.getQuantity();
+            if (qty != 0) {
+                initial.add(new StockMovement(p.getId(), StockMovement.Kind.AJUSTE, qty, AuditLog.user(), "importação"));
+            }
+            changes.add(new Change(p.getId(), "INCLUSAO", null,
+                    describe(new Product(p.getId(), p.getName(), p.getPrice(), qty, p.getSku()))));
+        }
+        ledger.append(conn, initial);
+        return changes;
+    }
+
+    /**
+     * Atualiza o cadastro; quantidade nula (arquivo sem a coluna) deixa o
+     * estoque como está. Trava os produtos e lê o estado deles antes de
+     * gravar, como {@link #update}: devolve uma ALTERACAO por produto com
+     * esse "antes" e o que ficou gravado. Produto excluído no meio do caminho
+     * não é atualizado nem aparece na lista.
+     */
+    public List<Change> updateBatch(Connection conn, List<Product> products) throws SQLException {
+        if (products.isEmpty()) return List.of();
+        List<Integer> ids = new ArrayList<>(products.size());
+        for (Product p : products) ids.add(p.getId());
+        Map<Integer, Product> before = lockCurrent(conn, ids);
+
+        // SKU ausente no lote não apaga o SKU já cadastrado
+        String sql = "UPDATE products SET name = ?, price = ?, sku = COALESCE(?, sku) WHERE id = ?";
+        Map<Integer, Integer> targets = new HashMap<>();
+        List<Change> changes = new ArrayList<>(products.size());
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Product p : products) {
+                Product old = before.get(p.getId());
+                if (old == null) continue;
+                ps.setString(1, p.getName());
+                ps.setDouble(2, p.getPrice());
+                ps.setString(3, p.getSku());
+                ps.setInt(4, p.getId());
+                ps.addBatch();
+                if (p.getQuantity() != null) targets.put(p.getId(), p.getQuantity());
+
+                Product after = new Product(p.getId(), p.getName(), p.getPrice(),
+                        p.getQuantity() != null ? p.getQuantity() : old.getQuantity(),
+                        p.getSku() != null ? p.getSku() : old.getSku());
+                after.setReorderLevel(old.getReorderLevel());
+                changes.add(new Change(p.getId(), "ALTERACAO", describe(old), describe(after)));
+            }
+            ps.executeBatch();
+        }
+        ledger.adjustTo(conn, targets, AuditLog.user(), "importação");
+        return changes;
+    }
+
+    private static Product map(ResultSet rs) throws SQLException {
+        Product p = new Product(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getDouble("price"),
+                rs.getInt("quantity"),
+                rs.getString("sku")
+        );
+        p.setReorderLevel(rs.getInt("reorder_level"));
+        return p;
+    }
+
+    /**
+     * Trava a linha do produto até o fim da transação e lê o seu estado
+     * atual: é o "antes" da auditoria, que nenhuma outra gravação muda até o
+     * commit. Null se o produto não existe mais.
+     */
+    private Product lockCurrent(Connection conn, int id) throws SQLException {
+        return lockCurrent(conn, List.of(id)).get(id);
+    }
+
+    /** Como {@link #lockCurrent(Connection, int)} para vários produtos; os que não existem ficam de fora. */
+    private Map<Integer, Product> lockCurrent(Connection conn, List<Integer> ids) throws SQLException {
+        Map<Integer, Product> map = new HashMap<>();
+        if (ledger.balances(conn, ids, true).isEmpty()) return map;
+        for (int from = 0; from < ids.size(); from += StockLedgerDAO.IN_CHUNK) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + StockLedgerDAO.IN_CHUNK));
+            String sql = SELECT + " WHERE p.id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Product p = map(rs);
+                        map.put(p.getId(), p);
+                    }
+                }
+            }
+        }
+        return map;
+    }
+
+    /** Valores do produto como aparecem na auditoria. */
+    private static String describe(Product p) {
+        return String.format(Locale.ROOT, "nome=%s; preco=%.2f; quantidade=%d; sku=%s; minimo=%d",
+                p.getName(), p.getPrice(), p.getQuantity(), p.getSku(), p.getReorderLevel());
+    }
 }
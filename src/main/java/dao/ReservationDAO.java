@@ -0,0 +1,162 @@
+package dao;
+
+import util.DBConnection;
+
+import java.sql.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reservas temporárias de estoque feitas pelos carrinhos. Cada reserva é uma
+ * linha própria com validade; a linha do produto nunca é bloqueada para escrita.
+ * O disponível parte do saldo do razão de estoque ({@link StockLedgerDAO}).
+ */
+public class ReservationDAO {
+    private static final String DEADLOCK_STATE = "40001";
+    private static final int    MAX_ATTEMPTS   = 3;
+
+    /**
+     * Reserva {@code quantity} unidades se o disponível (estoque menos reservas
+     * válidas) permitir. Devolve o id da reserva ou -1 se não houver estoque.
+     */
+    public long reserve(int productId, String terminalId, int quantity, int ttlSeconds) throws SQLException {
+        // a checagem e o insert são um único comando; reservas concorrentes do mesmo
+        // produto se serializam pelos locks de leitura e a perdedora é repetida
+        String sql =
+                "INSERT INTO stock_reservations (product_id, terminal_id, quantity, expires_at) " +
+                "SELECT p.id, ?, ?, NOW(3) + INTERVAL ? SECOND FROM products p " +
+                "WHERE p.id = ? AND " + StockLedgerDAO.BALANCE + " - COALESCE((" +
+                "    SELECT SUM(r.quantity) FROM stock_reservations r " +
+                "    WHERE r.product_id = p.id AND r.expires_at > NOW(3)), 0) >= ?";
+        for (int attempt = 1; ; attempt++) {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+                ps.setString(1, terminalId);
+                ps.setInt(2, quantity);
+                ps.setInt(3, ttlSeconds);
+                ps.setInt(4, productId);
+                ps.setInt(5, quantity);
+                if (ps.executeUpdate() == 0) return -1;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    return keys.next() ? keys.getLong(1) : -1;
+                }
+            } catch (SQLException e) {
+                if (!DEADLOCK_STATE.equals(e.getSQLState()) || attempt >= MAX_ATTEMPTS) throw e;
+            }
+        }
+    }
+
+    public void delete(Collection<Long> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        try (Connection conn = DBConnection.getConnection()) {
+            delete(conn, ids);
+        }
+    }
+
+    public void delete(Connection conn, Collection<Long> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        String sql = "DELETE FROM stock_reservations WHERE id IN (" + placeholders(ids.size()) + ")";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+            bind(ps, ids);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Dentro da transação de fechamento: trava as reservas informadas e diz
+     * se todas continuam válidas, são do terminal {@code terminalId} e cobrem
+     * as unidades de {@code needed} (produto -> quantidade no carrinho).
+     */
+    public boolean lockValid(Connection conn, Collection<Long> ids, String terminalId,
+                             Map<Integer, Integer> needed) throws SQLException {
+        if (ids.isEmpty()) return needed.isEmpty();
+        String sql = "SELECT product_id, quantity FROM stock_reservations WHERE id IN (" + placeholders(ids.size()) + ") " +
+                "AND terminal_id = ? AND expires_at > NOW(3) FOR UPDATE";
+        Map<Integer, Integer> reserved = new HashMap<>();
+        int found = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+            bind(ps, ids);
+            ps.setString(ids.size() + 1, terminalId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    reserved.merge(rs.getInt("product_id"), rs.getInt("quantity"), Integer::sum);
+                    found++;
+                }
+            }
+        }
+        if (found != ids.size()) return false;
+        for (Map.Entry<Integer, Integer> e : needed.entrySet()) {
+            if (reserved.getOrDefault(e.getKey(), 0) < e.getValue()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Dentro da transação de fechamento: unidades ainda reservadas dos
+     * produtos informados, sem contar as reservas {@code own} da própria venda.
+     */
+    public Map<Integer, Integer> findReservedExcept(Connection conn, Collection<Integer> productIds,
+                                                    Collection<Long> own) throws SQLException {
+        Map<Integer, Integer> map = new HashMap<>();
+        if (productIds.isEmpty()) return map;
+        String sql = "SELECT product_id, SUM(quantity) AS qty FROM stock_reservations " +
+                "WHERE product_id IN (" + placeholders(productIds.size()) + ") AND expires_at > NOW(3)" +
+                (own.isEmpty() ? "" : " AND id NOT IN (" + placeholders(own.size()) + ")") +
+                " GROUP BY product_id";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+            int i = 1;
+            for (Integer id : productIds) ps.setInt(i++, id);
+            for (Long id : own) ps.setLong(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) map.put(rs.getInt("product_id"), rs.getInt("qty"));
+            }
+        }
+        return map;
+    }
+
+    /** Unidades reservadas por produto, de todos os terminais. */
+    public Map<Integer, Integer> findReserved() throws SQLException {
+        // nenhum terminal tem id vazio
+        return findReservedByOthers("");
+    }
+
+    /** Unidades reservadas por produto, sem contar as do próprio terminal. */
+    public Map<Integer, Integer> findReservedByOthers(String terminalId) throws SQLException {
+        String sql = "SELECT product_id, SUM(quantity) AS qty FROM stock_reservations " +
+                "WHERE expires_at > NOW(3) AND terminal_id <> ? GROUP BY product_id";
+        Map<Integer, Integer> map = new HashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+            ps.setString(1, terminalId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) map.put(rs.getInt("product_id"), rs.getInt("qty"));
+            }
+        }
+        return map;
+    }
+
+    /** Apaga reservas vencidas (de terminais que caíram, por exemplo). */
+    public int purgeExpired() throws SQLException {
+        String sql = "DELETE FROM stock_reservations WHERE expires_at < NOW(3) LIMIT 1000";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            return ps.executeUpdate();
+        }
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    private static void bind(PreparedStatement ps, Collection<Long> ids) throws SQLException {
+        int i = 1;
+        for (Long id : ids) ps.setLong(i++, id);
+    }
+}
@@ -1,9 +1,14 @@
 package dao;
 
+import model.CartLine;
+import model.TicketSummary;
 import model.UserSales;
 import model.ProductSales;
 import util.DBConnection;
+import util.QueryGuard;
+import util.QueryScope;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.sql.Date;
 import java.time.*;
@@ -14,95 +19,119 @@ public class SaleDAO {
     private static final DateTimeFormatter HOUR_FORMAT   = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00:00");
     private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:00");
 
+    private final int storeId;
+
+    /** Vendas da loja deste terminal. */
+    public SaleDAO() {
+        this(DBConnection.currentStore().id());
+    }
+
+    /** Vendas de outra loja (relatórios consolidados). */
+    public SaleDAO(int storeId) {
+        this.storeId = storeId;
+    }
+
     public Map<LocalDate, Double> findSalesByDay(int days) throws SQLException {
         String sql =
                 "SELECT DATE(sale_date) AS dt, SUM(quantity * unit_price) AS total " +
-                        "FROM sales WHERE sale_date >= ? GROUP BY dt ORDER BY dt";
+                        "FROM " + since("sale_date, quantity, unit_price") + " GROUP BY dt ORDER BY dt";
         LocalDate cutoff = LocalDate.now().minusDays(days);
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDate(1, Date.valueOf(cutoff));
-            try (ResultSet rs = ps.executeQuery()) {
-                Map<LocalDate, Double> map = new LinkedHashMap<>();
-                while (rs.next()) {
-                    map.put(rs.getDate("dt").toLocalDate(), rs.getDouble("total"));
+        return guard().call("vendasPorDia:" + days, () -> {
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql)) {
+                ps.setDate(1, Date.valueOf(cutoff));
+                ps.setDate(2, Date.valueOf(cutoff));
+                try (ResultSet rs = ps.executeQuery()) {
+                    Map<LocalDate, Double> map = new LinkedHashMap<>();
+                    while (rs.next()) {
+                        map.put(rs.getDate("dt").toLocalDate(), rs.getDouble("total"));
+                    }
+                    return map;
                 }
-                return map;
             }
-        }
+        });
     }
 
     public List<ProductSales> findTopSelling(int limit) throws SQLException {
         String sql =
                 "SELECT p.name AS pname, SUM(s.quantity) AS total_qty " +
-                        "FROM sales s " +
+                        "FROM " + all("product_id, quantity") + " " +
                         "JOIN products p ON s.product_id = p.id " +
                         "GROUP BY p.name " +
                         "ORDER BY total_qty DESC " +
                         "LIMIT ?";
-        List<ProductSales> list = new ArrayList<>();
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, limit);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    list.add(new ProductSales(
-                            rs.getString("pname"),
-                            rs.getInt("total_qty")
-                    ));
+        return guard().call("maisVendidos:" + limit, () -> {
+            List<ProductSales> list = new ArrayList<>();
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql)) {
+                ps.setInt(1, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(new ProductSales(
+                                rs.getString("pname"),
+                                rs.getInt("total_qty")
+                        ));
+                    }
                 }
             }
-        }
-        return list;
+            return list;
+        });
     }
 
     public Map<LocalDateTime, Double> findSalesByPeriod(Duration period) throws SQLException {
         String sql =
                 "SELECT DATE_FORMAT(sale_date, '%Y-%m-%d %H:00:00') AS period, " +
                         "       SUM(quantity * unit_price) AS total " +
-                        "FROM sales WHERE sale_date >= ? GROUP BY period ORDER BY period";
+                        "FROM " + since("sale_date, quantity, unit_price") + " GROUP BY period ORDER BY period";
         LocalDateTime cutoff = LocalDateTime.now().minus(period);
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setTimestamp(1, Timestamp.valueOf(cutoff));
-            try (ResultSet rs = ps.executeQuery()) {
-                Map<LocalDateTime, Double> map = new LinkedHashMap<>();
-                while (rs.next()) {
-                    String periodStr = rs.getString("period");
-                    LocalDateTime dt = LocalDateTime.parse(periodStr, HOUR_FORMAT);
-                    map.put(dt, rs.getDouble("total"));
+        return guard().call("vendasPorHora:" + period, () -> {
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql)) {
+                ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+                ps.setTimestamp(2, Timestamp.valueOf(cutoff));
+                try (ResultSet rs = ps.executeQuery()) {
+                    Map<LocalDateTime, Double> map = new LinkedHashMap<>();
+                    while (rs.next()) {
+                        String periodStr = rs.getString("period");
+                        LocalDateTime dt = LocalDateTime.parse(periodStr, HOUR_FORMAT);
+                        map.put(dt, rs.getDouble("total"));
+                    }
+                    return map;
                 }
-                return map;
             }
-        }
+        });
     }
 
     public Map<LocalDateTime, Double> findSalesByMinute(int minutes) throws SQLException {
         String sql =
                 "SELECT DATE_FORMAT(sale_date, '%Y-%m-%d %H:%i:00') AS period, " +
                         "       SUM(quantity * unit_price) AS total " +
-                        "FROM sales WHERE sale_date >= ? GROUP BY period ORDER BY period";
+                        "FROM " + since("sale_date, quantity, unit_price") + " GROUP BY period ORDER BY period";
         LocalDateTime cutoff = LocalDateTime.now().minusMinutes(minutes);
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setTimestamp(1, Timestamp.valueOf(cutoff));
-            try (ResultSet rs = ps.executeQuery()) {
-                Map<LocalDateTime, Double> map = new LinkedHashMap<>();
-                while (rs.next()) {
-                    String periodStr = rs.getString("period");
-                    LocalDateTime dt = LocalDateTime.parse(periodStr, MINUTE_FORMAT);
-                    map.put(dt, rs.getDouble("total"));
+        return guard().call("vendasPorMinuto:" + minutes, () -> {
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql)) {
+                ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+                ps.setTimestamp(2, Timestamp.valueOf(cutoff));
+                try (ResultSet rs = ps.executeQuery()) {
+                    Map<LocalDateTime, Double> map = new LinkedHashMap<>();
+                    while (rs.next()) {
+                        String periodStr = rs.getString("period");
+                        LocalDateTime dt = LocalDateTime.parse(periodStr, MINUTE_FORMAT);
+                        map.put(dt, rs.getDouble("total"));
+                    }
+                    return map;
                 }
-                return map;
             }
-        }
+        });
     }
 
     public void save(int productId, int userId, int quantity, double unitPrice) {
         String sql = "INSERT INTO sales (product_id, user_id, quantity, unit_price, sale_date) " +
                 "VALUES (?,?,?,?,CURRENT_TIMESTAMP)";
-        try (Connection conn = DBConnection.getConnection();
+        try (Connection conn = connect();
              PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
             ps.setInt(1, productId);
             ps.setInt(2, userId);
             ps.setInt(3, quantity);
@@ -113,23 +142,200 @@ public class SaleDAO {
         }
     }
 
+    /**
+     * Grava as linhas do ticket {@code ticketId} na transação de quem chama,
+     * com o preço unitário líquido de descontos. Quando o total da linha não
+     * divide em centavos pela quantidade, os centavos que sobram vão um por
+     * unidade numa segunda linha do mesmo produto: a soma de
+     * unit_price * quantity bate com o total cobrado.
+     */
+    public void insertBatch(Connection conn, long ticketId, int userId, List<CartLine> lines) throws SQLException {
+        String sql = "INSERT INTO sales (ticket_id, product_id, user_id, quantity, unit_price, sale_date) " +
+                "VALUES (?,?,?,?,?,CURRENT_TIMESTAMP)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+            for (CartLine line : lines) {
+                int qty = line.getQuantity();
+                long base = Math.floorDiv(line.getTotalCents(), qty);
+                int extra = (int) Math.floorMod(line.getTotalCents(), qty);
+                if (extra > 0) addLine(ps, ticketId, userId, line.getProductId(), extra, base + 1);
+                addLine(ps, ticketId, userId, line.getProductId(), qty - extra, base);
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void addLine(PreparedStatement ps, long ticketId, int userId, int productId, int quantity,
+                         long unitCents) throws SQLException {
+        ps.setLong(1, ticketId);
+        ps.setInt(2, productId);
+        ps.setInt(3, userId);
+        ps.setInt(4, quantity);
+        ps.setBigDecimal(5, BigDecimal.valueOf(unitCents, 2));
+        ps.addBatch();
+    }
+
+    // --- tickets: cabeçalho de cada venda fechada ---
+
+    /** Grava o cabeçalho do ticket, com os totais das linhas, na transação de quem chama. */
+    public void insertTicket(Connection conn, long ticketId, int userId, String terminal, List<CartLine> lines) throws SQLException {
+        String sql = "INSERT INTO sale_tickets (id, user_id, terminal, line_count, items, total, created_at) " +
+                "VALUES (?,?,?,?,?,?,CURRENT_TIMESTAMP)";
+        long cents = 0;
+        int items = 0;
+        for (CartLine line : lines) {
+            cents += line.getTotalCents();
+            items += line.getQuantity();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+            ps.setLong(1, ticketId);
+            ps.setInt(2, userId);
+            ps.setString(3, terminal);
+            ps.setInt(4, lines.size());
+            ps.setInt(5, items);
+            ps.setBigDecimal(6, BigDecimal.valueOf(cents, 2));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Reserva {@code size} números de ticket seguidos para este terminal e
+     * devolve o primeiro. Um único UPDATE no contador da loja; números de um
+     * bloco não usado até o fim ficam de fora (sequência com lacunas).
+     */
+    public long allocateTicketBlock(int size) throws SQLException {
+        try (Connection conn = connect()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE ticket_blocks SET next_id = LAST_INSERT_ID(next_id + ?) WHERE id = 1")) {
+                ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+                ps.setInt(1, size);
+                if (ps.executeUpdate() != 1) throw new SQLException("ticket_blocks sem a linha do contador (id = 1)");
+            }
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                return rs.getLong(1) - size;
+            }
+        }
+    }
+
+    /** Tickets a partir de {@code from}, num resumo só. */
+    public TicketSummary findTicketSummary(LocalDateTime from) throws SQLException {
+        String sql = "SELECT COUNT(*) AS tickets, COALESCE(SUM(items), 0) AS items, COALESCE(SUM(total), 0) AS total " +
+                "FROM sale_tickets WHERE created_at >= ?";
+        return guard().call("ticketsDesde:" + from, () -> {
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql)) {
+                ps.setTimestamp(1, Timestamp.valueOf(from));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new TicketSummary(null, rs.getInt("tickets"), rs.getLong("items"), rs.getDouble("total"));
+                }
+            }
+        });
+    }
+
+    /** Resumo de tickets por dia, dos últimos {@code days} dias até hoje. */
+    public List<TicketSummary> findTicketsByDay(int days) throws SQLException {
+        String sql = "SELECT DATE(created_at) AS dt, COUNT(*) AS tickets, SUM(items) AS items, SUM(total) AS total " +
+                "FROM sale_tickets WHERE created_at >= ? GROUP BY dt ORDER BY dt";
+        LocalDate cutoff = LocalDate.now().minusDays(days);
+        return guard().call("ticketsPorDia:" + days, () -> {
+            List<TicketSummary> list = new ArrayList<>();
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql)) {
+                ps.setDate(1, Date.valueOf(cutoff));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(new TicketSummary(rs.getDate("dt").toLocalDate(),
+                                rs.getInt("tickets"), rs.getLong("items"), rs.getDouble("total")));
+                    }
+                }
+            }
+            return list;
+        });
+    }
+
+    /** Quantidade de tickets por hora do dia (0 a 23), somando os últimos {@code days} dias. */
+    public int[] findTicketsByHour(int days) throws SQLException {
+        String sql = "SELECT HOUR(created_at) AS h, COUNT(*) AS tickets FROM sale_tickets " +
+                "WHERE created_at >= ? GROUP BY h";
+        LocalDate cutoff = LocalDate.now().minusDays(days);
+        return guard().call("ticketsPorHora:" + days, () -> {
+            int[] byHour = new int[24];
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql)) {
+                ps.setDate(1, Date.valueOf(cutoff));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) byHour[rs.getInt("h")] = rs.getInt("tickets");
+                }
+            }
+            return byHour;
+        });
+    }
+
     public List<UserSales> findSalesByUser() throws SQLException {
         String sql =
                 "SELECT u.username, SUM(s.quantity * s.unit_price) AS total_sold " +
-                        "FROM sales s " +
+                        "FROM " + all("user_id, quantity, unit_price") + " " +
                         "JOIN users u ON s.user_id = u.id " +
                         "GROUP BY u.username";
-        List<UserSales> list = new ArrayList<>();
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                list.add(new UserSales(
-                        rs.getString("username"),
-                        rs.getDouble("total_sold")
-                ));
+        return guard().call("vendasPorUsuario", () -> {
+            List<UserSales> list = new ArrayList<>();
+            try (Connection conn = report();
+                 PreparedStatement ps = reportStatement(conn, sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new UserSales(
+                            rs.getString("username"),
+                            rs.getDouble("total_sold")
+                    ));
+                }
             }
-        }
-        return list;
+            return list;
+        });
+    }
+
+    /*
+     * Histórico = sales (meses recentes) + sales_archive (particionada por mês,
+     * ver SalesArchiveService). Com corte por data, o mesmo filtro vai para os
+     * dois lados do UNION e o MySQL só lê as partições do arquivo dentro do
+     * período; consultas recentes praticamente não tocam o arquivo.
+     */
+    private static String since(String columns) {
+        return "(SELECT " + columns + " FROM sales WHERE sale_date >= ? " +
+                "UNION ALL SELECT " + columns + " FROM sales_archive WHERE sale_date >= ?) s";
+    }
+
+    private static String all(String columns) {
+        return "(SELECT " + columns + " FROM sales " +
+                "UNION ALL SELECT " + columns + " FROM sales_archive) s";
+    }
+
+    private Connection connect() throws SQLException {
+        return DBConnection.getConnection(storeId);
+    }
+
+    /** Agregados de relatório: podem vir da réplica de leitura. */
+    private Connection report() throws SQLException {
+        return DBConnection.getReportConnection(storeId);
+    }
+
+    /** Relatórios desta loja saindo do cache: o banco não respondeu e o circuito abriu. */
+    public boolean isServingCached() {
+        return guard().isOpen();
+    }
+
+    /** Relatórios passam pelo bulkhead/circuito da loja, têm tempo máximo e são canceláveis pela tela. */
+    private QueryGuard guard() {
+        return QueryGuard.reports(storeId);
+    }
+
+    private PreparedStatement reportStatement(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ps.setQueryTimeout(guard().queryTimeoutSeconds());
+        QueryScope.track(ps);
+        return ps;
     }
 }
@@ -0,0 +1,310 @@
+package dao;
+
+import model.StockMovement;
+import util.DBConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Razão de estoque ({@code stock_movements}) e seus resumos.
+ *
+ * Cada movimento é só um insert; nada atualiza a linha do produto na hora.
+ * {@code products.quantity} guarda o saldo consolidado, a soma dos
+ * movimentos já marcados com uma rodada de consolidação ({@code fold_seq}),
+ * e o saldo atual é esse valor mais os poucos movimentos ainda pendentes
+ * ({@link #BALANCE}, pelo índice (fold_seq, product_id)). {@link #fold} leva
+ * periodicamente os pendentes já comitados para o consolidado, marcando um
+ * a um os que somou, e {@link #snapshotIfDue} copia os consolidados uma vez
+ * por dia para {@code stock_snapshots}, de onde {@link #balanceAt} parte.
+ */
+public class StockLedgerDAO {
+    static final int IN_CHUNK = 1_000;
+
+    /** Saldo atual do produto {@code p}: consolidado mais os movimentos ainda pendentes. */
+    static final String BALANCE =
+            "(p.quantity + COALESCE((SELECT SUM(m.quantity) FROM stock_movements m " +
+            "WHERE m.fold_seq = 0 AND m.product_id = p.id), 0))";
+
+    /** Grava os movimentos em lote, na transação de quem chama. */
+    public void append(Connection conn, List<StockMovement> movements) throws SQLException {
+        if (movements.isEmpty()) return;
+        String sql = "INSERT INTO stock_movements (product_id, kind, quantity, username, note, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, NOW(3))";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+            for (StockMovement m : movements) {
+                ps.setInt(1, m.getProductId());
+                ps.setString(2, m.getKind().name());
+                ps.setInt(3, m.getQuantity());
+                ps.setString(4, m.getUsername());
+                ps.setString(5, m.getNote());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Saldo atual dos produtos informados (os inexistentes ficam de fora). */
+    public Map<Integer, Integer> balances(Connection conn, Collection<Integer> productIds) throws SQLException {
+        return balances(conn, productIds, false);
+    }
+
+    /**
+     * Como {@link #balances(Connection, Collection)}; com {@code lock}, antes
+     * trava as linhas dos produtos (em ordem de id) até o fim da transação,
+     * serializando quem confere o mesmo produto. A trava vem num comando à
+     * parte para o snapshot da leitura nascer depois de todas elas e enxergar
+     * o que as transações que seguravam os produtos gravaram; por isso tem que
+     * vir antes de qualquer leitura comum na transação.
+     */
+    public Map<Integer, Integer> balances(Connection conn, Collection<Integer> productIds, boolean lock) throws SQLException {
+        Map<Integer, Integer> map = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(productIds);
+        if (lock) {
+            Collections.sort(ids);
+            for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK));
+                String sql = "SELECT id FROM products WHERE id IN (" +
+                        String.join(",", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY id FOR UPDATE";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+                    for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 1, chunk.get(i));
+                    ps.executeQuery().close();
+                }
+            }
+        }
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK));
+            String sql = "SELECT p.id, " + BALANCE + " AS quantity FROM products p WHERE p.id IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setQueryTimeout(DBConnection.SALE_TIMEOUT_SECONDS);
+                for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) map.put(rs.getInt("id"), rs.getInt("quantity"));
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Leva o saldo de cada produto para o valor informado gravando um AJUSTE
+     * com a diferença (produto já no valor não gera movimento).
+     */
+    public void adjustTo(Connection conn, Map<Integer, Integer> targets, String username, String note) throws SQLException {
+        if (targets.isEmpty()) return;
+        Map<Integer, Integer> current = balances(conn, targets.keySet());
+        List<StockMovement> list = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : targets.entrySet()) {
+            Integer now = current.get(e.getKey());
+            if (now == null || now.equals(e.getValue())) continue;
+            list.add(new StockMovement(e.getKey(), StockMovement.Kind.AJUSTE, e.getValue() - now, username, note));
+        }
+        append(conn, list);
+    }
+
+    /** Últimos {@code limit} movimentos do produto, do mais recente para o mais antigo. */
+    public List<StockMovement> findByProduct(int productId, int limit) throws SQLException {
+        String sql = "SELECT id, product_id, kind, quantity, created_at, username, note FROM stock_movements " +
+                "WHERE product_id = ? ORDER BY id DESC LIMIT ?";
+        List<StockMovement> list = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, productId);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new StockMovement(
+                            rs.getLong("id"),
+                            rs.getInt("product_id"),
+                            StockMovement.Kind.valueOf(rs.getString("kind")),
+                            rs.getInt("quantity"),
+                            rs.getTimestamp("created_at").toLocalDateTime(),
+                            rs.getString("username"),
+                            rs.getString("note")));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Saldo do produto em {@code at}: o snapshot mais recente até essa data
+     * mais os movimentos até {@code at} que ele ainda não continha (pendentes
+     * ou consolidados numa rodada posterior). Antes do primeiro snapshot,
+     * soma o razão desde o início. A soma percorre
+     * {@code idx_movements_product_fold}: só as faixas {@code fold_seq = 0} e
+     * {@code fold_seq > rodada do snapshot} do produto, não o histórico todo.
+     */
+    public int balanceAt(int productId, LocalDateTime at) throws SQLException {
+        String snapshot = "SELECT quantity, fold_seq FROM stock_snapshots " +
+                "WHERE product_id = ? AND taken_at <= ? ORDER BY taken_at DESC LIMIT 1";
+        String replay = "SELECT COALESCE(SUM(quantity), 0) FROM stock_movements " +
+                "WHERE product_id = ? AND (fold_seq = 0 OR fold_seq > ?) AND created_at <= ?";
+        Timestamp ts = Timestamp.valueOf(at);
+        try (Connection conn = DBConnection.getConnection()) {
+            int base = 0;
+            long seq = 0;
+            try (PreparedStatement ps = conn.prepareStatement(snapshot)) {
+                ps.setInt(1, productId);
+                ps.setTimestamp(2, ts);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        base = rs.getInt("quantity");
+                        seq  = rs.getLong("fold_seq");
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(replay)) {
+                ps.setInt(1, productId);
+                ps.setLong(2, seq);
+                ps.setTimestamp(3, ts);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return base + rs.getInt(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Consolida nos produtos até {@code maxMovements} movimentos pendentes e
+     * devolve quantos somou (0 = nada pendente).
+     *
+     * Só entram movimentos já comitados: os de transações ainda abertas
+     * (venda esperando lock, bloco de importação) estão travados e são
+     * pulados, ficando pendentes, e contados no saldo, até a próxima rodada.
+     * Cada movimento somado é marcado com o número da rodada na mesma
+     * transação que soma no produto, então nenhum é perdido nem somado duas
+     * vezes. A linha de {@code stock_ledger_state} travada serializa
+     * terminais que consolidem ao mesmo tempo.
+     */
+    public int fold(int maxMovements) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            int isolation = conn.getTransactionIsolation();
+            // sem gap locks na faixa pendente: inserts de vendas em andamento não esperam pela consolidação
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(false);
+            try {
+                long seq = lockState(conn).foldSeq + 1;
+                List<Long> ids = new ArrayList<>();
+                Map<Integer, Integer> delta = new TreeMap<>();
+                String pending = "SELECT id, product_id, quantity FROM stock_movements WHERE fold_seq = 0 " +
+                        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+                try (PreparedStatement ps = conn.prepareStatement(pending)) {
+                    ps.setInt(1, maxMovements);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong("id"));
+                            delta.merge(rs.getInt("product_id"), rs.getInt("quantity"), Integer::sum);
+                        }
+                    }
+                }
+                if (ids.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+                // produtos em ordem de id, como a venda trava; o saldo não muda ao consolidar,
+                // então updated_at fica como está para o catálogo não recarregar
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE products SET quantity = quantity + ?, updated_at = updated_at WHERE id = ?")) {
+                    for (Map.Entry<Integer, Integer> e : delta.entrySet()) {
+                        ps.setInt(1, e.getValue());
+                        ps.setInt(2, e.getKey());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+                    List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK));
+                    String mark = "UPDATE stock_movements SET fold_seq = ? WHERE id IN (" +
+                            String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(mark)) {
+                        ps.setLong(1, seq);
+                        for (int i = 0; i < chunk.size(); i++) ps.setLong(i + 2, chunk.get(i));
+                        ps.executeUpdate();
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement("UPDATE stock_ledger_state SET fold_seq = ? WHERE id = 1")) {
+                    ps.setLong(1, seq);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+                return ids.size();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    /** Copia os saldos consolidados para {@code stock_snapshots} se ainda não houver cópia de {@code today}. */
+    public boolean snapshotIfDue(LocalDate today) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                State state = lockState(conn);
+                LocalDateTime last = state.snapshotAt;
+                if (last != null && !last.toLocalDate().isBefore(today)) {
+                    conn.commit();
+                    return false;
+                }
+                // com o estado travado nenhuma rodada de consolidação corre: os consolidados são os da rodada atual
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO stock_snapshots (product_id, taken_at, quantity, fold_seq) " +
+                        "SELECT id, NOW(3), quantity, ? FROM products")) {
+                    ps.setLong(1, state.foldSeq);
+                    ps.executeUpdate();
+                }
+                try (Statement st = conn.createStatement()) {
+                    st.executeUpdate("UPDATE stock_ledger_state SET snapshot_at = NOW(3) WHERE id = 1");
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Acerta o estado do razão depois de uma restauração de backup. Sem o
+     * razão no arquivo, os movimentos atuais não valem para os saldos
+     * restaurados e são apagados; os snapshots sempre são refeitos.
+     */
+    public void resetAfterRestore(Connection conn, boolean movementsRestored) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            if (!movementsRestored) st.execute("TRUNCATE TABLE stock_movements");
+            st.execute("TRUNCATE TABLE stock_snapshots");
+            // a próxima rodada continua depois da maior que veio no arquivo
+            st.executeUpdate("UPDATE stock_ledger_state SET snapshot_at = NULL, " +
+                    "fold_seq = (SELECT COALESCE(MAX(fold_seq), 0) FROM stock_movements) WHERE id = 1");
+        }
+    }
+
+    private record State(long foldSeq, LocalDateTime snapshotAt) { }
+
+    private static State lockState(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT fold_seq, snapshot_at FROM stock_ledger_state WHERE id = 1 FOR UPDATE");
+             ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) throw new SQLException("stock_ledger_state sem a linha de controle (id = 1)");
+            Timestamp at = rs.getTimestamp("snapshot_at");
+            return new State(rs.getLong("fold_seq"), at == null ? null : at.toLocalDateTime());
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package dao;
 
 import model.User;
+import util.AuditLog;
 import util.DBConnection;
 
 import java.sql.*;
@@ -9,7 +10,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class UserDAO {
-
     public User findByUsername(String username) throws SQLException {
         String sql = "SELECT id, username, password_hash, role FROM users WHERE username = ?";
         try (Connection conn = DBConnection.getConnection();
@@ -65,6 +65,7 @@ public class UserDAO {
                 }
             }
         }
+        AuditLog.record("usuario", user.getId(), "INCLUSAO", null, describe(user));
     }
 
     public void update(User user) throws SQLException {
@@ -72,25 +73,59 @@ public class UserDAO {
             throw new IllegalArgumentException("User ID must not be null for update");
         }
         String sql = "UPDATE users SET username = ?, password_hash = ?, role = ? WHERE id = ?";
+        String before;
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
+            conn.setAutoCommit(false);
+            before = lockCurrent(conn, user.getId());
+            if (before == null) {
+                conn.rollback();
+                return;
+            }
             ps.setString(1, user.getUsername());
             ps.setString(2, user.getPasswordHash());
             ps.setString(3, user.getRole());
             ps.setInt(4, user.getId());
             ps.executeUpdate();
+            conn.commit();
         }
+        // o hash nunca vai para a auditoria, só o fato de a senha ter mudado
+        String after = describe(user) + (user.getPasswordHash() != null ? "; senha alterada" : "");
+        AuditLog.record("usuario", user.getId(), "ALTERACAO", before, after);
     }
 
     public void delete(Integer id) throws SQLException {
         if (id == null) return;
         String sql = "DELETE FROM users WHERE id = ?";
+        String before;
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
+            conn.setAutoCommit(false);
+            before = lockCurrent(conn, id);
             ps.setInt(1, id);
             ps.executeUpdate();
+            conn.commit();
         }
+        if (before != null) AuditLog.record("usuario", id, "EXCLUSAO", before, null);
+    }
+
+    /** Trava o usuário até o fim da transação e devolve o seu "antes" da auditoria (null se não existe). */
+    private static String lockCurrent(Connection conn, int id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT username, role FROM users WHERE id = ? FOR UPDATE")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                User u = new User();
+                u.setUsername(rs.getString("username"));
+                u.setRole(rs.getString("role"));
+                return describe(u);
+            }
+        }
+    }
+
+    private static String describe(User u) {
+        return "usuario=" + u.getUsername() + "; papel=" + u.getRole();
     }
 }
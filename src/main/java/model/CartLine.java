@@ -0,0 +1,51 @@
+package model;
+
+/**
+ * Linha do carrinho. Valores em centavos para que os totais não acumulem
+ * erro de ponto flutuante.
+ */
+public class CartLine {
+    private final int    productId;
+    private final String productName;
+    private final long   unitPriceCents;
+    private int  quantity;
+    private long discountCents;
+
+    public CartLine(int productId, String productName, long unitPriceCents, int quantity) {
+        this.productId      = productId;
+        this.productName    = productName;
+        this.unitPriceCents = unitPriceCents;
+        this.quantity       = quantity;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+    public String getProductName() {
+        return productName;
+    }
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getDiscountCents() {
+        return discountCents;
+    }
+    public void setDiscountCents(long discountCents) {
+        this.discountCents = discountCents;
+    }
+
+    public long getGrossCents() {
+        return unitPriceCents * quantity;
+    }
+    public long getTotalCents() {
+        return getGrossCents() - discountCents;
+    }
+}
@@ -0,0 +1,62 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Estado da previsão de demanda diária de um produto (suavização exponencial
+ * com sazonalidade semanal aditiva), válido até {@link #getLastDay()}.
+ */
+public class DemandForecast {
+    private final int productId;
+    private double level;
+    private final double[] season = new double[7];
+    private double mad;
+    private LocalDate lastDay;
+
+    public DemandForecast(int productId, LocalDate lastDay) {
+        this.productId = productId;
+        this.lastDay   = lastDay;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    /** Vendas por dia, sem o efeito do dia da semana. */
+    public double getLevel() {
+        return level;
+    }
+    public void setLevel(double level) {
+        this.level = level;
+    }
+
+    /** Quanto o dia da semana soma (ou tira) do nível. */
+    public double getSeason(DayOfWeek day) {
+        return season[day.getValue() - 1];
+    }
+    public void setSeason(DayOfWeek day, double value) {
+        season[day.getValue() - 1] = value;
+    }
+
+    /** Desvio absoluto médio suavizado do erro de previsão de um dia. */
+    public double getMad() {
+        return mad;
+    }
+    public void setMad(double mad) {
+        this.mad = mad;
+    }
+
+    /** Último dia já incorporado. */
+    public LocalDate getLastDay() {
+        return lastDay;
+    }
+    public void setLastDay(LocalDate lastDay) {
+        this.lastDay = lastDay;
+    }
+
+    /** Demanda prevista para {@code day} (nunca negativa). */
+    public double forecast(LocalDate day) {
+        return Math.max(0, level + getSeason(day.getDayOfWeek()));
+    }
+}
@@ -5,15 +5,22 @@ public class Product {
     private String name;
     private Double price;
     private Integer quantity;
+    private String sku;
+    private int reorderLevel;
 
     public Product() {
     }
 
     public Product(Integer id, String name, Double price, Integer quantity) {
+        this(id, name, price, quantity, null);
+    }
+
+    public Product(Integer id, String name, Double price, Integer quantity, String sku) {
         this.id       = id;
         this.name     = name;
         this.price    = price;
         this.quantity = quantity;
+        this.sku      = sku;
     }
 
     // getters / setters
@@ -45,11 +52,27 @@ public class Product {
         this.quantity = quantity;
     }
 
+    /** Código de barras (EAN) ou SKU interno; opcional e único. */
+    public String getSku() {
+        return sku;
+    }
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    /** Estoque mínimo: no nível ou abaixo dele o produto entra nos alertas. 0 = sem alerta. */
+    public int getReorderLevel() {
+        return reorderLevel;
+    }
+    public void setReorderLevel(int reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
     @Override
     public String toString() {
         return String.format(
-                "Product{id=%d, name='%s', price=%.2f, quantity=%d}",
-                id, name, price, quantity
+                "Product{id=%d, name='%s', price=%.2f, quantity=%d, sku=%s, reorderLevel=%d}",
+                id, name, price, quantity, sku, reorderLevel
         );
     }
 }
@@ -0,0 +1,51 @@
+package model;
+
+/**
+ * Sugestão de compra de um produto: previsão de demanda para o prazo de
+ * entrega mais a cobertura, estoque de segurança e quanto pedir.
+ */
+public class ReorderSuggestion {
+    private final int    productId;
+    private final String productName;
+    private final int    quantity;
+    private final double dailyDemand;
+    private final double forecast;
+    private final double safetyStock;
+    private final int    suggested;
+
+    public ReorderSuggestion(int productId, String productName, int quantity, double dailyDemand,
+                             double forecast, double safetyStock, int suggested) {
+        this.productId   = productId;
+        this.productName = productName;
+        this.quantity    = quantity;
+        this.dailyDemand = dailyDemand;
+        this.forecast    = forecast;
+        this.safetyStock = safetyStock;
+        this.suggested   = suggested;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+    public String getProductName() {
+        return productName;
+    }
+    public int getQuantity() {
+        return quantity;
+    }
+    /** Média diária prevista (nível sem sazonalidade). */
+    public double getDailyDemand() {
+        return dailyDemand;
+    }
+    /** Demanda prevista no horizonte (prazo + cobertura). */
+    public double getForecast() {
+        return forecast;
+    }
+    public double getSafetyStock() {
+        return safetyStock;
+    }
+    /** Unidades a pedir. */
+    public int getSuggested() {
+        return suggested;
+    }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada do razão de estoque: quanto um produto ganhou (positivo) ou perdeu
+ * (negativo), quando, por quem e por quê. Nunca é alterada depois de gravada.
+ */
+public class StockMovement {
+    public enum Kind {
+        VENDA("Venda"),
+        AJUSTE("Ajuste"),
+        ENTRADA("Entrada"),
+        DEVOLUCAO("Devolução");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final long          id;
+    private final int           productId;
+    private final Kind          kind;
+    private final int           quantity;
+    private final LocalDateTime createdAt;
+    private final String        username;
+    private final String        note;
+
+    public StockMovement(long id, int productId, Kind kind, int quantity,
+                         LocalDateTime createdAt, String username, String note) {
+        this.id        = id;
+        this.productId = productId;
+        this.kind      = kind;
+        this.quantity  = quantity;
+        this.createdAt = createdAt;
+        this.username  = username;
+        this.note      = note;
+    }
+
+    /** Movimento ainda não gravado (id e data vêm do banco). */
+    public StockMovement(int productId, Kind kind, int quantity, String username, String note) {
+        this(0, productId, kind, quantity, null, username, note);
+    }
+
+    public long getId() {
+        return id;
+    }
+    public int getProductId() {
+        return productId;
+    }
+    public Kind getKind() {
+        return kind;
+    }
+    /** Variação do estoque: negativa para saídas. */
+    public int getQuantity() {
+        return quantity;
+    }
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public String getUsername() {
+        return username;
+    }
+    public String getNote() {
+        return note;
+    }
+}
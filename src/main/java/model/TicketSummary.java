@@ -0,0 +1,39 @@
+package model;
+
+import java.time.LocalDate;
+
+/** Totais de tickets (vendas fechadas) de um período. */
+public class TicketSummary {
+    private final LocalDate day;
+    private final int       tickets;
+    private final long      items;
+    private final double    total;
+
+    /** {@code day} é null quando o resumo não é de um dia só. */
+    public TicketSummary(LocalDate day, int tickets, long items, double total) {
+        this.day     = day;
+        this.tickets = tickets;
+        this.items   = items;
+        this.total   = total;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+    public int getTickets() {
+        return tickets;
+    }
+    /** Unidades vendidas. */
+    public long getItems() {
+        return items;
+    }
+    public double getTotal() {
+        return total;
+    }
+    public double getAverageTicket() {
+        return tickets == 0 ? 0 : total / tickets;
+    }
+    public double getItemsPerTicket() {
+        return tickets == 0 ? 0 : (double) items / tickets;
+    }
+}
@@ -0,0 +1,410 @@
+package service;
+
+import dao.StockLedgerDAO;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import util.DBConnection;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * Backup lógico e restauração das tabelas da loja.
+ *
+ * O backup lê cada tabela em paralelo, em modo streaming do driver (um cursor
+ * por tabela, memória constante), todas da mesma fotografia do banco, grava CSV compactado com gzip e junta tudo
+ * num único .zip com um manifesto contendo linhas e SHA-256 de cada parte.
+ * A restauração confere os checksums antes de tocar no banco e carrega as
+ * tabelas em paralelo, com inserts em lote, em cópias de preparo
+ * ({@code restore_<tabela>}, sem índices secundários, só para a carga
+ * paralela andar mais rápido). Só com tudo carregado e conferido o conteúdo
+ * das tabelas reais é trocado, numa única transação de DELETE e
+ * INSERT ... SELECT: os índices das tabelas reais são mantidos linha a linha
+ * durante a troca, que é o preço da atomicidade (RENAME TABLE levaria junto
+ * as chaves estrangeiras das tabelas que não entram no backup). Falha em
+ * qualquer ponto deixa o banco como estava.
+ */
+public class BackupService {
+    /** Tabelas na ordem de dependência das chaves estrangeiras. */
+    public static final List<String> TABLES = List.of("users", "products", "stock_movements", "sale_tickets", "sales", "sales_archive");
+
+    private static final String MANIFEST     = "manifest.properties";
+    private static final String STAGING      = "restore_";
+    private static final int    BATCH_SIZE   = 1_000;
+    private static final int    COMMIT_EVERY = 20_000;
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            .setNullString("\\N")
+            .build();
+
+    public interface ProgressListener {
+        void onProgress(String table, long rows);
+    }
+
+    private record Part(String table, Path file, long rows, long size, long crc, String sha256) { }
+
+    // ---------------------------------------------------------------- backup
+
+    public void backup(Path archive, ProgressListener listener) throws IOException, SQLException {
+        Path tmpDir = Files.createTempDirectory("lojavila-backup");
+        ExecutorService pool = Executors.newFixedThreadPool(TABLES.size());
+        List<Connection> snapshots = openSnapshots();
+        try {
+            List<Part> parts = new ArrayList<>();
+            if (snapshots.size() == TABLES.size()) {
+                List<Future<Part>> futures = new ArrayList<>();
+                for (int i = 0; i < TABLES.size(); i++) {
+                    String table = TABLES.get(i);
+                    Connection conn = snapshots.get(i);
+                    futures.add(pool.submit(() -> dumpTable(conn, table, tmpDir.resolve(table + ".csv.gz"), listener)));
+                }
+                for (Future<Part> f : futures) parts.add(await(f));
+            } else {
+                // sem o bloqueio global: todas as tabelas em série, na mesma transação
+                for (String table : TABLES) {
+                    parts.add(dumpTable(snapshots.get(0), table, tmpDir.resolve(table + ".csv.gz"), listener));
+                }
+            }
+            for (Connection conn : snapshots) conn.commit();
+
+            Properties manifest = new Properties();
+            manifest.setProperty("format", "1");
+            manifest.setProperty("created", LocalDateTime.now().toString());
+            manifest.setProperty("tables", String.join(",", TABLES));
+            for (Part p : parts) {
+                manifest.setProperty(p.table() + ".rows", String.valueOf(p.rows()));
+                manifest.setProperty(p.table() + ".sha256", p.sha256());
+            }
+
+            Path tmpArchive = archive.resolveSibling(archive.getFileName() + ".part");
+            try (ZipOutputStream zip = new ZipOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmpArchive)))) {
+                ZipEntry m = new ZipEntry(MANIFEST);
+                zip.putNextEntry(m);
+                manifest.store(zip, "Loja Vila backup");
+                zip.closeEntry();
+
+                // as partes já estão em gzip: STORED evita comprimir de novo
+                for (Part p : parts) {
+                    ZipEntry e = new ZipEntry(p.file().getFileName().toString());
+                    e.setMethod(ZipEntry.STORED);
+                    e.setSize(p.size());
+                    e.setCompressedSize(p.size());
+                    e.setCrc(p.crc());
+                    zip.putNextEntry(e);
+                    Files.copy(p.file(), zip);
+                    zip.closeEntry();
+                }
+            }
+            Files.move(tmpArchive, archive, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            pool.shutdownNow();
+            for (Connection conn : snapshots) closeQuietly(conn);
+            try (var files = Files.list(tmpDir)) {
+                for (Path f : (Iterable<Path>) files::iterator) Files.deleteIfExists(f);
+            }
+            Files.deleteIfExists(tmpDir);
+        }
+    }
+
+    /**
+     * Abre uma conexão por tabela, todas com a mesma fotografia do banco: os
+     * snapshots começam enquanto {@code FLUSH TABLES WITH READ LOCK} segura
+     * as escritas, então nenhuma transação fica com metade das tabelas num
+     * arquivo e metade fora. Sem o privilégio RELOAD o bloqueio falha e
+     * volta uma única conexão, para o dump em série na mesma transação.
+     */
+    private List<Connection> openSnapshots() throws SQLException {
+        List<Connection> snapshots = new ArrayList<>();
+        try (Connection lock = DBConnection.getConnection();
+             Statement ls = lock.createStatement()) {
+            boolean locked;
+            try {
+                ls.execute("FLUSH TABLES WITH READ LOCK");
+                locked = true;
+            } catch (SQLException e) {
+                locked = false;
+            }
+            try {
+                int n = locked ? TABLES.size() : 1;
+                for (int i = 0; i < n; i++) snapshots.add(snapshot());
+            } finally {
+                if (locked) ls.execute("UNLOCK TABLES");
+            }
+        } catch (SQLException | RuntimeException e) {
+            for (Connection conn : snapshots) closeQuietly(conn);
+            throw e;
+        }
+        return snapshots;
+    }
+
+    private static Connection snapshot() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+        try {
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (Statement st = conn.createStatement()) {
+                st.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT");
+            }
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    private Part dumpTable(Connection conn, String table, Path out, ProgressListener listener) throws IOException, SQLException {
+        MessageDigest sha = sha256();
+        CRC32 crc = new CRC32();
+        long rows = 0;
+        try (Statement st = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Integer.MIN_VALUE: o Connector/J entrega linha a linha em vez de carregar tudo
+            st.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = st.executeQuery("SELECT * FROM " + table + " ORDER BY id");
+                 OutputStream file = new CheckedOutputStream(
+                         new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(out)), sha), crc);
+                 Writer w = new OutputStreamWriter(new GZIPOutputStream(file, 1 << 16), StandardCharsets.UTF_8);
+                 CSVPrinter csv = new CSVPrinter(w, FORMAT)) {
+
+                ResultSetMetaData md = rs.getMetaData();
+                int n = md.getColumnCount();
+                String[] header = new String[n];
+                for (int i = 0; i < n; i++) header[i] = md.getColumnLabel(i + 1);
+                csv.printRecord((Object[]) header);
+
+                Object[] row = new Object[n];
+                while (rs.next()) {
+                    for (int i = 0; i < n; i++) row[i] = rs.getString(i + 1);
+                    csv.printRecord(row);
+                    if (++rows % 100_000 == 0) listener.onProgress(table, rows);
+                }
+            }
+        }
+        listener.onProgress(table, rows);
+        return new Part(table, out, rows, Files.size(out), crc.getValue(), hex(sha.digest()));
+    }
+
+    // --------------------------------------------------------------- restore
+
+    /** Substitui o conteúdo das tabelas pelo do arquivo. */
+    public void restore(Path archive, ProgressListener listener) throws IOException, SQLException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry m = zip.getEntry(MANIFEST);
+            if (m == null) throw new IOException("Arquivo sem manifesto: " + archive);
+            Properties manifest = new Properties();
+            try (InputStream in = zip.getInputStream(m)) {
+                manifest.load(in);
+            }
+            List<String> tables = tables(manifest);
+
+            // confere tudo antes de apagar qualquer coisa
+            for (String table : tables) {
+                ZipEntry e = entry(zip, table);
+                MessageDigest sha = sha256();
+                try (InputStream in = new DigestInputStream(zip.getInputStream(e), sha)) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+                String expected = manifest.getProperty(table + ".sha256");
+                if (!hex(sha.digest()).equals(expected)) {
+                    throw new IOException("Checksum inválido para a tabela " + table);
+                }
+            }
+
+            try {
+                // 1) cópias de preparo vazias, sem índices secundários (CREATE TABLE ... LIKE não leva FKs)
+                try (Connection conn = DBConnection.getConnection();
+                     Statement st = conn.createStatement()) {
+                    for (String table : tables) {
+                        st.execute("DROP TABLE IF EXISTS " + STAGING + table);
+                        st.execute("CREATE TABLE " + STAGING + table + " LIKE " + table);
+                        dropSecondaryIndexes(conn, STAGING + table);
+                    }
+                }
+
+                // 2) carga em paralelo, uma conexão por tabela
+                ExecutorService pool = Executors.newFixedThreadPool(tables.size());
+                try {
+                    List<Future<Long>> futures = new ArrayList<>();
+                    for (String table : tables) {
+                        futures.add(pool.submit(() -> loadTable(zip, table, listener)));
+                    }
+                    for (int i = 0; i < tables.size(); i++) {
+                        long rows = await(futures.get(i));
+                        long expected = Long.parseLong(manifest.getProperty(tables.get(i) + ".rows", "-1"));
+                        if (expected >= 0 && rows != expected) {
+                            throw new IOException("Tabela " + tables.get(i) + ": esperadas "
+                                    + expected + " linhas, restauradas " + rows);
+                        }
+                    }
+                } finally {
+                    pool.shutdownNow();
+                }
+
+                // 3) troca o conteúdo numa transação: filhas apagadas antes das pais, pais copiadas antes
+                try (Connection conn = DBConnection.getConnection();
+                     Statement st = conn.createStatement()) {
+                    st.execute("SET FOREIGN_KEY_CHECKS = 0");
+                    conn.setAutoCommit(false);
+                    try {
+                        for (int i = tables.size() - 1; i >= 0; i--) st.executeUpdate("DELETE FROM " + tables.get(i));
+                        for (String table : tables) st.executeUpdate("INSERT INTO " + table + " SELECT * FROM " + STAGING + table);
+                        conn.commit();
+                    } catch (SQLException | RuntimeException e) {
+                        conn.rollback();
+                        throw e;
+                    } finally {
+                        conn.setAutoCommit(true);
+                        st.execute("SET FOREIGN_KEY_CHECKS = 1");
+                    }
+
+                    // 4) saldos consolidados vieram do arquivo: o razão e os snapshots têm que bater com eles
+                    if (tables.contains("products")) {
+                        new StockLedgerDAO().resetAfterRestore(conn, tables.contains("stock_movements"));
+                    }
+                    // a numeração de tickets continua depois do maior ticket restaurado
+                    if (tables.contains("sale_tickets")) {
+                        st.executeUpdate("UPDATE ticket_blocks SET next_id = GREATEST(next_id, " +
+                                "(SELECT COALESCE(MAX(id), 0) + 1 FROM sale_tickets)) WHERE id = 1");
+                    }
+                }
+            } finally {
+                dropStaging(tables);
+            }
+        }
+    }
+
+    /**
+     * Tabelas listadas no manifesto, na ordem de {@link #TABLES}. Os nomes vão
+     * direto para o SQL da troca, com as chaves estrangeiras desligadas: nome
+     * fora da lista, repetido ou ausente invalida o arquivo.
+     */
+    private static List<String> tables(Properties manifest) throws IOException {
+        String listed = manifest.getProperty("tables");
+        if (listed == null || listed.isBlank()) throw new IOException("Manifesto sem a lista de tabelas");
+        Set<String> names = new HashSet<>();
+        for (String name : listed.split(",")) {
+            if (!TABLES.contains(name)) throw new IOException("Tabela desconhecida no manifesto: " + name);
+            if (!names.add(name)) throw new IOException("Tabela repetida no manifesto: " + name);
+        }
+        return TABLES.stream().filter(names::contains).toList();
+    }
+
+    private void dropStaging(List<String> tables) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            for (String table : tables) st.execute("DROP TABLE IF EXISTS " + STAGING + table);
+        }
+    }
+
+    private long loadTable(ZipFile zip, String table, ProgressListener listener) throws IOException, SQLException {
+        long rows = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("SET UNIQUE_CHECKS = 0");
+            }
+
+            conn.setAutoCommit(false);
+            try (Reader r = new InputStreamReader(
+                         new GZIPInputStream(zip.getInputStream(entry(zip, table)), 1 << 16), StandardCharsets.UTF_8);
+                 CSVParser parser = FORMAT.builder().setHeader().setSkipHeaderRecord(true).build().parse(r)) {
+
+                List<String> cols = parser.getHeaderNames();
+                String sql = "INSERT INTO " + STAGING + table + " (`" + String.join("`,`", cols) + "`) VALUES ("
+                        + String.join(",", Collections.nCopies(cols.size(), "?")) + ")";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (CSVRecord rec : parser) {
+                        for (int i = 0; i < cols.size(); i++) ps.setString(i + 1, rec.get(i));
+                        ps.addBatch();
+                        rows++;
+                        if (rows % BATCH_SIZE == 0) ps.executeBatch();
+                        if (rows % COMMIT_EVERY == 0) {
+                            conn.commit();
+                            listener.onProgress(table, rows);
+                        }
+                    }
+                    ps.executeBatch();
+                }
+            }
+        }
+        listener.onProgress(table, rows);
+        return rows;
+    }
+
+    /**
+     * Remove os índices secundários da cópia de preparo: ela só é lida em
+     * sequência na troca, então só a carga paga por eles. As tabelas reais
+     * continuam com os seus, atualizados pelo INSERT ... SELECT da troca.
+     */
+    private void dropSecondaryIndexes(Connection conn, String table) throws SQLException {
+        String sql = "SELECT DISTINCT index_name FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND index_name <> 'PRIMARY'";
+        List<String> indexes = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) indexes.add(rs.getString(1));
+            }
+        }
+        if (indexes.isEmpty()) return;
+        List<String> drops = new ArrayList<>();
+        for (String idx : indexes) drops.add("DROP INDEX `" + idx + "`");
+        try (Statement st = conn.createStatement()) {
+            st.execute("ALTER TABLE " + table + " " + String.join(", ", drops));
+        }
+    }
+
+    // -------------------------------------------------------------- helpers
+
+    private static ZipEntry entry(ZipFile zip, String table) throws IOException {
+        ZipEntry e = zip.getEntry(table + ".csv.gz");
+        if (e == null) throw new IOException("Tabela ausente no arquivo: " + table);
+        return e;
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // já estamos saindo por outro erro, ou só devolvendo a conexão
+        }
+    }
+
+    private static <T> T await(Future<T> f) throws IOException, SQLException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Operação interrompida", e);
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof IOException io) throw io;
+            if (c instanceof SQLException sql) throw sql;
+            throw new IOException(c);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
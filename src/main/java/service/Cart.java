@@ -0,0 +1,147 @@
+package service;
+
+import model.CartLine;
+import model.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carrinho de uma venda.
+ *
+ * As linhas ficam numa lista na ordem de inclusão (a ordem exibida na tabela)
+ * e num mapa id do produto -> posição, então somar item é O(1); só a remoção
+ * reindexa as linhas seguintes. Subtotal, descontos e total são mantidos
+ * incrementalmente: a cada mudança só a linha afetada passa pelas
+ * {@link PricingRule regras de preço}. Todo carrinho já nasce com as
+ * promoções configuradas ({@link PricingRule#configured()}), então caixa,
+ * API e simulador cobram o mesmo preço.
+ */
+public class Cart {
+
+    /** Notificações para quem desenha o carrinho (índices na ordem de {@link #getLines()}). */
+    public interface Listener {
+        void lineInserted(int row);
+        void lineUpdated(int row);
+        void lineRemoved(int row);
+        void cleared();
+    }
+
+    private final Map<Integer, Integer> rowOf = new HashMap<>();
+    private final List<CartLine> lines = new ArrayList<>();
+    private final List<PricingRule> rules = new ArrayList<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private long grossCents;
+    private long discountCents;
+
+    public Cart() {
+        rules.addAll(PricingRule.configured());
+    }
+
+    public void addRule(PricingRule rule) {
+        rules.add(rule);
+        for (int i = 0; i < lines.size(); i++) reprice(i);
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    /** Soma {@code qty} unidades do produto, criando a linha se preciso. */
+    public void add(Product p, int qty) {
+        Integer row = rowOf.get(p.getId());
+        if (row == null) {
+            CartLine line = new CartLine(p.getId(), p.getName(), toCents(p.getPrice()), qty);
+            int newRow = lines.size();
+            lines.add(line);
+            rowOf.put(p.getId(), newRow);
+            grossCents += line.getGrossCents();
+            applyRules(line);
+            listeners.forEach(l -> l.lineInserted(newRow));
+        } else {
+            CartLine line = lines.get(row);
+            grossCents -= line.getGrossCents();
+            line.setQuantity(line.getQuantity() + qty);
+            grossCents += line.getGrossCents();
+            reprice(row);
+        }
+    }
+
+    /** Tira {@code qty} unidades do produto; remove a linha se zerar. */
+    public void reduce(int productId, int qty) {
+        Integer row = rowOf.get(productId);
+        if (row == null) return;
+        CartLine line = lines.get(row);
+        if (line.getQuantity() <= qty) {
+            removeAt(row);
+            return;
+        }
+        grossCents -= line.getGrossCents();
+        line.setQuantity(line.getQuantity() - qty);
+        grossCents += line.getGrossCents();
+        reprice(row);
+    }
+
+    /** Remove a linha da posição {@code row}. */
+    public void removeAt(int row) {
+        CartLine line = lines.remove(row);
+        rowOf.remove(line.getProductId());
+        for (int i = row; i < lines.size(); i++) rowOf.put(lines.get(i).getProductId(), i);
+        grossCents    -= line.getGrossCents();
+        discountCents -= line.getDiscountCents();
+        listeners.forEach(l -> l.lineRemoved(row));
+    }
+
+    public void clear() {
+        rowOf.clear();
+        lines.clear();
+        grossCents = 0;
+        discountCents = 0;
+        listeners.forEach(Listener::cleared);
+    }
+
+    /** Unidades do produto já no carrinho. */
+    public int quantityOf(int productId) {
+        Integer row = rowOf.get(productId);
+        return row == null ? 0 : lines.get(row).getQuantity();
+    }
+
+    public List<CartLine> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public long getGrossCents() {
+        return grossCents;
+    }
+    public long getDiscountCents() {
+        return discountCents;
+    }
+    public long getTotalCents() {
+        return grossCents - discountCents;
+    }
+
+    private void reprice(int row) {
+        applyRules(lines.get(row));
+        listeners.forEach(l -> l.lineUpdated(row));
+    }
+
+    private void applyRules(CartLine line) {
+        long d = 0;
+        for (PricingRule r : rules) d += r.discountCents(line);
+        d = Math.min(d, line.getGrossCents());
+        discountCents += d - line.getDiscountCents();
+        line.setDiscountCents(d);
+    }
+
+    public static long toCents(double value) {
+        return Math.round(value * 100);
+    }
+}
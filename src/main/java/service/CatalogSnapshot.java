@@ -0,0 +1,114 @@
+package service;
+
+import model.Product;
+import util.DBConnection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arquivo binário com a última cópia do catálogo, lido via memory-map na
+ * inicialização.
+ *
+ * Formato: magic "LVCS", versão (int), watermark em ms (long), quantidade (int)
+ * e, por produto: id (int), preço (double), quantidade (int), nome e SKU.
+ * Textos são gravados como tamanho (short, -1 para nulo) seguido dos bytes UTF-8.
+ */
+final class CatalogSnapshot {
+    private static final int MAGIC   = 0x4C564353; // "LVCS"
+    private static final int VERSION = 3;
+
+    record Contents(List<Product> products, long watermarkMillis) { }
+
+    private CatalogSnapshot() { }
+
+    /** Um arquivo por loja: terminais de lojas diferentes podem dividir a mesma máquina. */
+    static Path defaultLocation() {
+        return Path.of(System.getProperty("user.home"), ".lojavila",
+                "catalog-" + DBConnection.currentStore().id() + ".snapshot");
+    }
+
+    /** Lê o snapshot; devolve null se não existir ou for de outra versão. */
+    static Contents read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 20 || buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            long watermark = buf.getLong();
+            int count = buf.getInt();
+            List<Product> list = new ArrayList<>(count);
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int id       = buf.getInt();
+                double price = buf.getDouble();
+                int qty      = buf.getInt();
+                int reorder  = buf.getInt();
+                String name  = getString(buf, scratch);
+                String sku   = getString(buf, scratch);
+                Product p = new Product(id, name, price, qty, sku);
+                p.setReorderLevel(reorder);
+                list.add(p);
+            }
+            return new Contents(list, watermark);
+        } catch (RuntimeException e) {
+            // arquivo truncado/corrompido: trata como ausente e recarrega do banco
+            return null;
+        }
+    }
+
+    /** Grava em arquivo temporário e troca de forma atômica. */
+    static void write(Path file, List<Product> products, long watermarkMillis) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+            buf.putInt(MAGIC).putInt(VERSION).putLong(watermarkMillis).putInt(products.size());
+            for (Product p : products) {
+                byte[] name = p.getName().getBytes(StandardCharsets.UTF_8);
+                byte[] sku  = p.getSku() == null ? null : p.getSku().getBytes(StandardCharsets.UTF_8);
+                int need = 4 + 8 + 4 + 4 + 2 + name.length + 2 + (sku == null ? 0 : sku.length);
+                if (buf.remaining() < need) {
+                    flush(ch, buf);
+                    if (buf.capacity() < need) buf = ByteBuffer.allocate(need);
+                }
+                buf.putInt(p.getId())
+                   .putDouble(p.getPrice())
+                   .putInt(p.getQuantity())
+                   .putInt(p.getReorderLevel())
+                   .putShort((short) name.length)
+                   .put(name);
+                if (sku == null) {
+                    buf.putShort((short) -1);
+                } else {
+                    buf.putShort((short) sku.length).put(sku);
+                }
+            }
+            flush(ch, buf);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String getString(ByteBuffer buf, byte[] scratch) {
+        short len = buf.getShort();
+        if (len < 0) return null;
+        byte[] b = len <= scratch.length ? scratch : new byte[len];
+        buf.get(b, 0, len);
+        return new String(b, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
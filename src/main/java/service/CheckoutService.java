@@ -0,0 +1,91 @@
+package service;
+
+import dao.ReservationDAO;
+import dao.SaleDAO;
+import dao.StockLedgerDAO;
+import model.CartLine;
+import model.StockMovement;
+import model.User;
+import util.AuditLog;
+import util.DBConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fechamento da venda numa única transação: confere as reservas, lança as
+ * saídas no razão de estoque, grava o ticket com as linhas e consome as
+ * reservas. O número do ticket sai do bloco do terminal ({@link TicketNumbers}).
+ *
+ * A baixa é só um insert por item, sem atualizar a linha do produto. Toda
+ * venda, com reservas (caixa) ou sem (API), trava as linhas dos produtos
+ * antes de ler qualquer saldo, então vendas e reservas simultâneas do mesmo
+ * item se enfileiram, e confere a regra das reservas: o saldo que sobra
+ * depois da venda cobre o que os outros carrinhos ainda têm reservado.
+ */
+public class CheckoutService {
+    private final StockLedgerDAO ledgerDAO      = new StockLedgerDAO();
+    private final SaleDAO        saleDAO        = new SaleDAO();
+    private final ReservationDAO reservationDAO = new ReservationDAO();
+
+    /** Fechamento com as reservas feitas por este terminal. */
+    public long checkout(Cart cart, User user, Collection<Long> reservationIds) throws SQLException {
+        return checkout(cart, user, ReservationService.TERMINAL_ID, reservationIds);
+    }
+
+    /**
+     * @param reservationIds reservas do terminal {@code terminalId} que cobrem o
+     *                       carrinho; vazio para venda sem reserva (API)
+     * @return o número do ticket gravado
+     * @throws IllegalStateException se alguma reserva venceu, não cobre o
+     *                               carrinho ou faltou estoque; nesse caso nada é gravado
+     */
+    public long checkout(Cart cart, User user, String terminalId, Collection<Long> reservationIds) throws SQLException {
+        Map<Integer, Integer> needed = new HashMap<>();
+        for (CartLine line : cart.getLines()) needed.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        long ticket = TicketNumbers.of(DBConnection.currentStore().id()).next();
+        Map<Integer, Integer> balances;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!reservationIds.isEmpty() && !reservationDAO.lockValid(conn, reservationIds, terminalId, needed)) {
+                    throw new IllegalStateException("Reserva de estoque expirada ou incompleta. Confira os itens e tente novamente.");
+                }
+                // trava primeiro: a leitura consistente que vem depois já enxerga quem vendeu antes
+                List<Integer> productIds = cart.getLines().stream().map(CartLine::getProductId).sorted().toList();
+                balances = ledgerDAO.balances(conn, productIds, true);
+                Map<Integer, Integer> heldByOthers = reservationDAO.findReservedExcept(conn, productIds, reservationIds);
+                List<StockMovement> out = new ArrayList<>();
+                for (CartLine line : cart.getLines()) {
+                    int left = balances.getOrDefault(line.getProductId(), 0) - line.getQuantity()
+                            - heldByOthers.getOrDefault(line.getProductId(), 0);
+                    if (!balances.containsKey(line.getProductId()) || left < 0) {
+                        throw new IllegalStateException("Estoque insuficiente para " + line.getProductName());
+                    }
+                    out.add(new StockMovement(line.getProductId(), StockMovement.Kind.VENDA,
+                            -line.getQuantity(), user.getUsername(), "ticket " + ticket));
+                }
+                ledgerDAO.append(conn, out);
+                saleDAO.insertTicket(conn, ticket, user.getId(), terminalId, cart.getLines());
+                saleDAO.insertBatch(conn, ticket, user.getId(), cart.getLines());
+                reservationDAO.delete(conn, reservationIds);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        // saldo lido com o produto travado: é exatamente o antes e o depois desta venda
+        for (Map.Entry<Integer, Integer> e : needed.entrySet()) {
+            int before = balances.get(e.getKey());
+            AuditLog.record(user.getUsername(), "produto", e.getKey(), "BAIXA_VENDA",
+                    "quantidade=" + before, "quantidade=" + (before - e.getValue()));
+        }
+        return ticket;
+    }
+}
@@ -0,0 +1,120 @@
+package service;
+
+import dao.SaleDAO;
+import model.ProductSales;
+import model.UserSales;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.DBConnection;
+import util.DBConnection.Store;
+import util.QueryScope;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Relatórios de todas as lojas. Cada loja é consultada em paralelo no seu
+ * próprio banco e os agregados são somados aqui; uma loja lenta ou fora do ar
+ * estoura o prazo sozinha e entra em {@link Result#missing()} em vez de
+ * segurar o relatório inteiro; a consulta dela é cancelada no banco.
+ *
+ * Cada loja tem o seu schema, então a loja de cada linha é a do banco de
+ * onde ela veio: as tabelas não guardam a loja e as consultas não filtram.
+ */
+public class ConsolidatedReportService {
+    private static final Logger LOG = LoggerFactory.getLogger(ConsolidatedReportService.class);
+    private static final long TIMEOUT_MS =
+            Integer.getInteger("lojavila.relatorio.timeoutSegundos", 10) * 1000L;
+
+    /** Resultado somado e as lojas que não responderam a tempo. */
+    public record Result<T>(T value, List<Store> missing) {
+        public boolean complete() {
+            return missing.isEmpty();
+        }
+    }
+
+    @FunctionalInterface
+    private interface StoreQuery<T> {
+        T run(SaleDAO dao) throws Exception;
+    }
+
+    private final ExecutorService pool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "relatorio-lojas");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public Result<List<UserSales>> salesByUser() throws InterruptedException {
+        return fanOut(SaleDAO::findSalesByUser, (List<List<UserSales>> parts) -> {
+            Map<String, Double> sum = new HashMap<>();
+            for (List<UserSales> part : parts) {
+                for (UserSales us : part) sum.merge(us.getUsername(), us.getTotalSold(), Double::sum);
+            }
+            List<UserSales> list = new ArrayList<>();
+            sum.forEach((u, v) -> list.add(new UserSales(u, v)));
+            list.sort(Comparator.comparingDouble(UserSales::getTotalSold).reversed());
+            return list;
+        });
+    }
+
+    /** Mais vendidos somando as lojas; cada loja devolve todos os produtos para o corte ser exato. */
+    public Result<List<ProductSales>> topSelling(int limit) throws InterruptedException {
+        return fanOut(dao -> dao.findTopSelling(Integer.MAX_VALUE), (List<List<ProductSales>> parts) -> {
+            Map<String, Integer> sum = new HashMap<>();
+            for (List<ProductSales> part : parts) {
+                for (ProductSales ps : part) sum.merge(ps.getProductName(), ps.getTotalQuantity(), Integer::sum);
+            }
+            return sum.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(e -> new ProductSales(e.getKey(), e.getValue()))
+                    .toList();
+        });
+    }
+
+    public Result<Map<LocalDate, Double>> salesByDay(int days) throws InterruptedException {
+        return fanOut(dao -> dao.findSalesByDay(days), (List<Map<LocalDate, Double>> parts) -> {
+            Map<LocalDate, Double> sum = new TreeMap<>();
+            for (Map<LocalDate, Double> part : parts) part.forEach((d, v) -> sum.merge(d, v, Double::sum));
+            return sum;
+        });
+    }
+
+    private <P, T> Result<T> fanOut(StoreQuery<P> query, java.util.function.Function<List<P>, T> merge)
+            throws InterruptedException {
+        List<Store> stores = DBConnection.stores();
+        List<Callable<P>> calls = new ArrayList<>();
+        List<QueryScope> scopes = new ArrayList<>();
+        for (Store s : stores) {
+            QueryScope scope = new QueryScope();
+            scopes.add(scope);
+            calls.add(() -> scope.call(() -> query.run(new SaleDAO(s.id()))));
+        }
+
+        // invokeAll interrompe a thread do que não terminar no prazo, mas o
+        // statement continua rodando no banco: esse precisa de Statement.cancel
+        List<Future<P>> futures;
+        try {
+            futures = pool.invokeAll(calls, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            scopes.forEach(QueryScope::cancel);
+            throw e;
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            if (futures.get(i).isCancelled()) scopes.get(i).cancel();
+        }
+        List<P> parts = new ArrayList<>();
+        List<Store> missing = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                parts.add(futures.get(i).get());
+            } catch (CancellationException | ExecutionException e) {
+                LOG.warn("Loja {} ficou fora do consolidado: {}", stores.get(i).name(),
+                        e instanceof ExecutionException ? e.getCause().toString() : "tempo esgotado");
+                missing.add(stores.get(i));
+            }
+        }
+        return new Result<>(merge.apply(parts), missing);
+    }
+}
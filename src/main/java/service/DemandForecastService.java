@@ -0,0 +1,174 @@
+package service;
+
+import dao.DemandDAO;
+import dao.ProductDAO;
+import model.DemandForecast;
+import model.ReorderSuggestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Previsão de demanda por produto e sugestão de compra.
+ *
+ * Cada produto guarda em {@code product_demand} um nível diário, um ajuste por
+ * dia da semana e o erro médio, já com as vendas até {@code last_day}. A
+ * atualização só lê as vendas dos dias fechados depois disso (normalmente um
+ * dia) e avança o estado dia a dia; o histórico inteiro só é lido na primeira
+ * execução, limitado a {@link #BOOTSTRAP_DAYS}. Os produtos são divididos em
+ * blocos avançados e gravados em paralelo.
+ *
+ * A sugestão soma a previsão do prazo de entrega mais a cobertura desejada,
+ * acrescenta estoque de segurança pelo erro médio e desconta o estoque atual.
+ */
+public class DemandForecastService {
+    private static final Logger LOG = LoggerFactory.getLogger(DemandForecastService.class);
+
+    /** Peso do dia novo no nível, no ajuste do dia da semana e no erro médio. */
+    private static final double ALPHA = 0.2;
+    private static final double GAMMA = 0.1;
+    private static final double BETA  = 0.1;
+
+    private static final int BOOTSTRAP_DAYS = 8 * 7;
+    private static final int CHUNK = 5_000;
+
+    public static final int LEAD_DAYS  = Integer.getInteger("lojavila.compras.prazoDias", 7);
+    public static final int COVER_DAYS = Integer.getInteger("lojavila.compras.coberturaDias", 14);
+    /** Nível de serviço ~95%; 1,25 converte desvio absoluto médio em desvio padrão. */
+    private static final double SAFETY_Z = 1.65 * 1.25;
+
+    private final DemandDAO  dao        = new DemandDAO();
+    private final ProductDAO productDAO = new ProductDAO();
+
+    /** Incorpora os dias fechados ainda não vistos. Devolve quantos produtos avançaram. */
+    public int update() throws SQLException, InterruptedException {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Map<Integer, DemandForecast> states = dao.findAll();
+        Set<Integer> ids = productDAO.findAllIds();
+
+        // produto novo começa no dia anterior ao que falta; na primeira execução, com histórico
+        LocalDate newStart = states.isEmpty() ? yesterday.minusDays(BOOTSTRAP_DAYS) : yesterday.minusDays(1);
+        states.keySet().retainAll(ids);
+        for (int id : ids) states.computeIfAbsent(id, k -> new DemandForecast(k, newStart));
+
+        List<DemandForecast> stale = new ArrayList<>();
+        LocalDate from = yesterday;
+        for (DemandForecast f : states.values()) {
+            if (f.getLastDay().isBefore(yesterday)) {
+                stale.add(f);
+                if (f.getLastDay().plusDays(1).isBefore(from)) from = f.getLastDay().plusDays(1);
+            }
+        }
+        if (stale.isEmpty()) return 0;
+
+        // vendas por produto num vetor por dia: 100 mil produtos x 56 dias cabem folgados
+        LocalDate windowStart = from;
+        int days = (int) ChronoUnit.DAYS.between(windowStart, yesterday) + 1;
+        Map<Integer, int[]> sold = new HashMap<>();
+        dao.forEachDailyQuantity(windowStart, yesterday, (productId, day, qty) ->
+                sold.computeIfAbsent(productId, k -> new int[days])[(int) ChronoUnit.DAYS.between(windowStart, day)] = qty);
+
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < stale.size(); i += CHUNK) {
+                List<DemandForecast> chunk = stale.subList(i, Math.min(stale.size(), i + CHUNK));
+                futures.add(pool.submit(() -> {
+                    for (DemandForecast f : chunk) advance(f, sold.get(f.getProductId()), windowStart, yesterday);
+                    dao.upsert(chunk);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) throw sql;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return stale.size();
+    }
+
+    /** Sugestões de compra, da maior quantidade para a menor; só produtos que precisam de pedido. */
+    public List<ReorderSuggestion> suggestions() throws SQLException {
+        Map<Integer, DemandForecast> states = dao.findAll();
+        LocalDate today = LocalDate.now();
+        int horizon = LEAD_DAYS + COVER_DAYS;
+        List<ReorderSuggestion> list = new ArrayList<>();
+        productDAO.forEach(p -> {
+            DemandForecast f = states.get(p.getId());
+            if (f == null) return;
+            double forecast = 0;
+            for (int k = 0; k < horizon; k++) forecast += f.forecast(today.plusDays(k));
+            double safety = SAFETY_Z * f.getMad() * Math.sqrt(LEAD_DAYS);
+            int target = Math.max((int) Math.ceil(forecast + safety), p.getReorderLevel());
+            int suggested = target - p.getQuantity();
+            if (suggested > 0) {
+                list.add(new ReorderSuggestion(p.getId(), p.getName(), p.getQuantity(),
+                        Math.max(0, f.getLevel()), forecast, safety, suggested));
+            }
+        });
+        list.sort(Comparator.comparingInt(ReorderSuggestion::getSuggested).reversed());
+        return list;
+    }
+
+    /** Avança o estado dia a dia até {@code until}; dia sem venda conta como zero. */
+    static void advance(DemandForecast f, int[] sold, LocalDate windowStart, LocalDate until) {
+        for (LocalDate d = f.getLastDay().plusDays(1); !d.isAfter(until); d = d.plusDays(1)) {
+            int i = (int) ChronoUnit.DAYS.between(windowStart, d);
+            double y = sold == null || i < 0 ? 0 : sold[i];
+            DayOfWeek dow = d.getDayOfWeek();
+            double season = f.getSeason(dow);
+            double error = y - (f.getLevel() + season);
+            double level = ALPHA * (y - season) + (1 - ALPHA) * f.getLevel();
+            f.setSeason(dow, GAMMA * (y - level) + (1 - GAMMA) * season);
+            f.setLevel(level);
+            f.setMad(BETA * Math.abs(error) + (1 - BETA) * f.getMad());
+            f.setLastDay(d);
+        }
+    }
+
+    /** Agenda a atualização diária (logo depois da virada do dia) numa thread de fundo. */
+    public static ScheduledExecutorService scheduleDaily() {
+        ScheduledExecutorService ses = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "previsao-demanda");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        DemandForecastService service = new DemandForecastService();
+        LocalDate[] done = {null};
+        ses.scheduleWithFixedDelay(() -> {
+            // só há dia novo para incorporar depois da meia-noite
+            if (LocalDate.now().equals(done[0])) return;
+            try {
+                long t0 = System.nanoTime();
+                int n = service.update();
+                done[0] = LocalDate.now();
+                if (n > 0) LOG.info("Previsão de demanda: {} produtos atualizados em {} ms", n, (System.nanoTime() - t0) / 1_000_000);
+            } catch (SQLException e) {
+                LOG.warn("Atualização da previsão de demanda falhou: {}", e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 15, 60, TimeUnit.MINUTES);
+        return ses;
+    }
+}
@@ -0,0 +1,71 @@
+package service;
+
+import model.CartLine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regra de preço aplicada a uma linha do carrinho. As regras só olham a
+ * própria linha, então o carrinho reavalia apenas a linha que mudou.
+ */
+@FunctionalInterface
+public interface PricingRule {
+
+    /** Desconto em centavos para a linha no estado atual (0 se não se aplica). */
+    long discountCents(CartLine line);
+
+    /** "Leve X, pague Y" para um produto. */
+    static PricingRule buyXPayY(int productId, int take, int pay) {
+        if (take <= pay || pay < 0) throw new IllegalArgumentException("Promoção inválida: leve " + take + " pague " + pay);
+        return line -> line.getProductId() != productId
+                ? 0
+                : (long) (line.getQuantity() / take) * (take - pay) * line.getUnitPriceCents();
+    }
+
+    /** Desconto percentual (em pontos-base: 1000 = 10%) a partir de uma quantidade mínima. */
+    static PricingRule percentOffFrom(int productId, int minQuantity, int basisPoints) {
+        return line -> line.getProductId() != productId || line.getQuantity() < minQuantity
+                ? 0
+                : line.getGrossCents() * basisPoints / 10_000;
+    }
+
+    /**
+     * Promoções de {@code -Dlojavila.promocoes}, separadas por vírgula:
+     * {@code 12=3x2} (produto 12, leve 3 pague 2) e {@code 15=10%@6}
+     * (produto 15, 10% de desconto a partir de 6 unidades). Sem a
+     * propriedade, nenhuma.
+     */
+    static List<PricingRule> configured() {
+        return parse(System.getProperty("lojavila.promocoes", ""));
+    }
+
+    static List<PricingRule> parse(String spec) {
+        List<PricingRule> list = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) continue;
+            int eq = entry.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Promoção sem produto em lojavila.promocoes: " + entry);
+            try {
+                int productId = Integer.parseInt(entry.substring(0, eq).trim());
+                String rule = entry.substring(eq + 1).trim().toLowerCase();
+                int pct = rule.indexOf('%');
+                if (pct > 0) {
+                    int at = rule.indexOf('@', pct);
+                    int basisPoints = (int) Math.round(Double.parseDouble(rule.substring(0, pct)) * 100);
+                    if (basisPoints <= 0 || basisPoints > 10_000) throw new IllegalArgumentException("Percentual inválido: " + entry);
+                    int min = at < 0 ? 1 : Integer.parseInt(rule.substring(at + 1));
+                    list.add(percentOffFrom(productId, min, basisPoints));
+                } else {
+                    int x = rule.indexOf('x');
+                    if (x < 0) throw new IllegalArgumentException("Promoção não reconhecida em lojavila.promocoes: " + entry);
+                    list.add(buyXPayY(productId, Integer.parseInt(rule.substring(0, x)), Integer.parseInt(rule.substring(x + 1))));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Promoção inválida em lojavila.promocoes: " + entry, e);
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,183 @@
+package service;
+
+import dao.ProductDAO;
+import model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cópia em memória do cadastro de produtos, compartilhada pelas telas.
+ *
+ * Na inicialização parte do snapshot gravado no último encerramento e busca
+ * no banco só os produtos com updated_at ou movimento de estoque posterior a ele. Cada {@link #reload()}
+ * seguinte também é incremental. Cada produto que entra, muda ou sai é
+ * repassado aos {@link ChangeListener}s, que assim acompanham o cadastro
+ * sem varrer a lista inteira.
+ */
+public class ProductCatalog {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductCatalog.class);
+    private static final ProductCatalog INSTANCE = new ProductCatalog();
+
+    /**
+     * Margem voltada para trás na watermark: uma transação que gravou
+     * updated_at antes da leitura, mas comitou depois, ainda é pega.
+     */
+    private static final long WATERMARK_OVERLAP_MS = 5_000;
+
+    private final ProductDAO dao = new ProductDAO();
+    private final Path snapshotFile = CatalogSnapshot.defaultLocation();
+
+    private final Map<Integer, Product> byId = new HashMap<>();
+    // lido pela EDT a cada leitura do scanner enquanto reload() roda em outra thread
+    private final Map<String, Product> bySku = new ConcurrentHashMap<>();
+    private long idSum;
+    private long watermark = -1;
+    private volatile List<Product> products;
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Avisado (na thread do reload, com o catálogo travado) a cada produto alterado. */
+    public interface ChangeListener {
+        /** {@code old} é null para produto novo. */
+        void changed(Product old, Product now);
+        void removed(Product old);
+    }
+
+    private ProductCatalog() { }
+
+    public static ProductCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    /** Carrega o catálogo (snapshot + delta) se ainda não foi carregado. Seguro fora da EDT. */
+    public void preload() {
+        getProducts();
+    }
+
+    /** Catálogo atual; só vai ao banco na primeira chamada. */
+    public List<Product> getProducts() {
+        List<Product> list = products;
+        if (list == null) {
+            synchronized (this) {
+                list = products;
+                if (list == null) list = reload();
+            }
+        }
+        return list;
+    }
+
+    /** Produto pelo código de barras/SKU, sem ir ao banco. O(1). */
+    public Product findBySku(String sku) {
+        if (sku == null || sku.isEmpty()) return null;
+        getProducts();
+        return bySku.get(sku);
+    }
+
+    /**
+     * Registra o listener e repassa a ele o catálogo já carregado, como se
+     * cada produto tivesse acabado de entrar.
+     */
+    public synchronized void addListener(ChangeListener l) {
+        listeners.add(l);
+        for (Product p : byId.values()) l.changed(null, p);
+    }
+
+    /** Traz do banco o que mudou desde a última leitura e devolve o catálogo atualizado. */
+    public synchronized List<Product> reload() {
+        if (watermark < 0) loadSnapshot();
+        if (watermark < 0) {
+            fullLoad();
+        } else {
+            reconcile();
+        }
+        return publish();
+    }
+
+    /** Grava o snapshot para a próxima inicialização. Chamado no encerramento. */
+    public synchronized void saveSnapshot() {
+        if (products == null || watermark < 0) return;
+        try {
+            CatalogSnapshot.write(snapshotFile, products, watermark);
+        } catch (IOException e) {
+            LOG.warn("Não foi possível gravar o snapshot do catálogo: {}", e.toString());
+        }
+    }
+
+    private void loadSnapshot() {
+        try {
+            CatalogSnapshot.Contents c = CatalogSnapshot.read(snapshotFile);
+            if (c == null) return;
+            for (Product p : c.products()) put(p);
+            watermark = c.watermarkMillis();
+            LOG.info("Catálogo: {} produtos do snapshot", byId.size());
+        } catch (IOException e) {
+            LOG.warn("Snapshot do catálogo ilegível, recarregando do banco: {}", e.toString());
+        }
+    }
+
+    private void fullLoad() {
+        // a watermark é lida antes: o que mudar durante a carga vem no próximo delta
+        long mark = toMillis(dao.findLastUpdate());
+        for (Product p : byId.values()) listeners.forEach(l -> l.removed(p));
+        byId.clear();
+        bySku.clear();
+        idSum = 0;
+        for (Product p : dao.findAll()) put(p);
+        watermark = mark;
+    }
+
+    private void reconcile() {
+        long mark = toMillis(dao.findLastUpdate());
+        List<Product> changed = dao.findChangedSince(new Timestamp(Math.max(0, watermark - WATERMARK_OVERLAP_MS)));
+        for (Product p : changed) put(p);
+
+        // exclusões não deixam linha alterada: confere contagem e soma dos ids
+        long[] countAndSum = dao.findCountAndIdSum();
+        if (countAndSum[0] != byId.size() || countAndSum[1] != idSum) {
+            Set<Integer> ids = dao.findAllIds();
+            byId.values().removeIf(p -> {
+                if (ids.contains(p.getId())) return false;
+                idSum -= p.getId();
+                if (p.getSku() != null) bySku.remove(p.getSku(), p);
+                listeners.forEach(l -> l.removed(p));
+                return true;
+            });
+        }
+        watermark = Math.max(watermark, mark);
+        if (!changed.isEmpty()) LOG.debug("Catálogo: {} produtos atualizados", changed.size());
+    }
+
+    private void put(Product p) {
+        Product old = byId.put(p.getId(), p);
+        if (old == null) {
+            idSum += p.getId();
+        } else if (old.getSku() != null) {
+            bySku.remove(old.getSku(), old);
+        }
+        if (p.getSku() != null) bySku.put(p.getSku(), p);
+        listeners.forEach(l -> l.changed(old, p));
+    }
+
+    private List<Product> publish() {
+        List<Product> list = new ArrayList<>(byId.values());
+        list.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        products = Collections.unmodifiableList(list);
+        return products;
+    }
+
+    private static long toMillis(Timestamp ts) {
+        return ts == null ? 0 : ts.getTime();
+    }
+}
@@ -0,0 +1,366 @@
+package service;
+
+import dao.ProductDAO;
+import model.Product;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import util.AuditLog;
+import util.DBConnection;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Importação em lote de produtos a partir de CSV.
+ *
+ * A leitura do arquivo é sequencial (campos entre aspas podem atravessar linhas),
+ * mas a conversão e validação de cada bloco de registros roda em paralelo.
+ * Os blocos válidos viram upsert (por SKU quando a linha tem, senão por nome)
+ * em batches JDBC, com commit a cada {@link #ROWS_PER_TRANSACTION} linhas.
+ * Se a importação falhar depois de algum commit, esses blocos ficam gravados
+ * e a mensagem do erro diz quantos produtos já entraram; reimportar o mesmo
+ * arquivo atualiza os mesmos produtos. Cada produto incluído ou alterado
+ * ganha o seu registro na auditoria, com o "antes" lido sob a trava, assim
+ * que o bloco dele é confirmado.
+ */
+public class ProductImportService {
+    private static final int CHUNK_SIZE           = 5_000;
+    private static final int ROWS_PER_TRANSACTION = 50_000;
+    /** Sinal opcional, dígitos e separadores; começa e termina em dígito. */
+    private static final Pattern PRICE = Pattern.compile("[-+]?\\d(?:[\\d.,]*\\d)?");
+
+    /** Callback de progresso; chamado na thread da importação. */
+    public interface ProgressListener {
+        void onProgress(long read, long inserted, long updated, long rejected);
+    }
+
+    public static class Result {
+        public long read, inserted, updated, rejected;
+        /** Inclusões e atualizações já confirmadas no banco. */
+        public long committedInserted, committedUpdated;
+        public boolean dryRun;
+        // alterações gravadas na transação corrente, para a auditoria depois do commit
+        private final List<ProductDAO.Change> uncommitted = new ArrayList<>();
+        // ids provisórios dos produtos novos numa simulação (negativos, um por produto)
+        private int placeholder;
+
+        @Override
+        public String toString() {
+            return String.format("%s%d lidos, %d inseridos, %d atualizados, %d rejeitados",
+                    dryRun ? "[simulação] " : "", read, inserted, updated, rejected);
+        }
+    }
+
+    private record Row(long line, Product product, String error, List<String> raw) { }
+
+    private final ProductDAO dao = new ProductDAO();
+
+    /**
+     * Importa {@code csv}. Linhas inválidas vão para {@code rejectFile} com o motivo.
+     * Em {@code dryRun} tudo é validado e contado, mas nada é gravado.
+     */
+    public Result importCsv(Path csv, Path rejectFile, boolean dryRun, ProgressListener listener)
+            throws IOException, SQLException {
+        Result result = new Result();
+        result.dryRun = dryRun;
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             CSVParser parser = CSVFormat.DEFAULT.builder()
+                     .setHeader().setSkipHeaderRecord(true)
+                     .setIgnoreSurroundingSpaces(true)
+                     .build().parse(in);
+             BufferedWriter rejectOut = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8);
+             CSVPrinter rejects = new CSVPrinter(rejectOut, CSVFormat.DEFAULT);
+             Connection conn = DBConnection.getConnection()) {
+
+            Columns cols = Columns.resolve(parser.getHeaderNames());
+            List<String> rejectHeader = new ArrayList<>(parser.getHeaderNames());
+            rejectHeader.add("Motivo");
+            rejects.printRecord(rejectHeader);
+
+            int isolation = conn.getTransactionIsolation();
+            // cada bloco trava os produtos que atualiza e lê o "antes" da auditoria depois da trava:
+            // em READ COMMITTED essa leitura vê o último commit, não a foto do início da importação
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(false);
+            try {
+                Map<String, Integer> idsByName = dao.findIdsByName(conn);
+                Map<String, Integer> idsBySku  = dao.findIdsBySku(conn);
+
+                // no máximo 2 blocos por worker em voo, para a memória não crescer com o arquivo
+                Deque<Future<List<Row>>> inFlight = new ArrayDeque<>();
+                List<CSVRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+                long sinceCommit = 0;
+                for (CSVRecord rec : parser) {
+                    chunk.add(rec);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        List<CSVRecord> c = chunk;
+                        inFlight.add(pool.submit(() -> validate(c, cols)));
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                    }
+                    if (inFlight.size() >= workers * 2) {
+                        sinceCommit += write(conn, await(inFlight.poll()), idsByName, idsBySku, rejects, dryRun, result);
+                        sinceCommit = maybeCommit(conn, sinceCommit, dryRun, result);
+                        listener.onProgress(result.read, result.inserted, result.updated, result.rejected);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    List<CSVRecord> c = chunk;
+                    inFlight.add(pool.submit(() -> validate(c, cols)));
+                }
+                while (!inFlight.isEmpty()) {
+                    sinceCommit += write(conn, await(inFlight.poll()), idsByName, idsBySku, rejects, dryRun, result);
+                    sinceCommit = maybeCommit(conn, sinceCommit, dryRun, result);
+                    listener.onProgress(result.read, result.inserted, result.updated, result.rejected);
+                }
+
+                if (dryRun) {
+                    conn.rollback();
+                } else {
+                    conn.commit();
+                    auditCommitted(result);
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
+            }
+            rejects.flush();
+        } catch (SQLException e) {
+            if (!partial(result)) throw e;
+            auditPartial(csv, result);
+            throw new SQLException(partialMessage(result, e), e.getSQLState(), e.getErrorCode(), e);
+        } catch (IOException e) {
+            if (!partial(result)) throw e;
+            auditPartial(csv, result);
+            throw new IOException(partialMessage(result, e), e);
+        } catch (RuntimeException e) {
+            if (!partial(result)) throw e;
+            auditPartial(csv, result);
+            throw new IllegalStateException(partialMessage(result, e), e);
+        } finally {
+            pool.shutdownNow();
+        }
+        if (!dryRun) {
+            AuditLog.record("produto", null, "IMPORTACAO", null, String.format(
+                    "arquivo=%s; incluidos=%d; atualizados=%d; rejeitados=%d",
+                    csv.getFileName(), result.inserted, result.updated, result.rejected));
+        }
+        return result;
+    }
+
+    private static boolean partial(Result result) {
+        return result.committedInserted + result.committedUpdated > 0;
+    }
+
+    private static String partialMessage(Result result, Exception cause) {
+        return String.format("%s (antes da falha %d produto(s) já tinham sido gravados: %d inseridos, %d atualizados; "
+                        + "reimportar o arquivo atualiza os mesmos produtos)",
+                cause.getMessage(), result.committedInserted + result.committedUpdated,
+                result.committedInserted, result.committedUpdated);
+    }
+
+    private static void auditPartial(Path csv, Result result) {
+        AuditLog.record("produto", null, "IMPORTACAO", null, String.format(
+                "arquivo=%s; incompleta; incluidos=%d; atualizados=%d",
+                csv.getFileName(), result.committedInserted, result.committedUpdated));
+    }
+
+    private static List<Row> validate(List<CSVRecord> records, Columns cols) {
+        List<Row> rows = new ArrayList<>(records.size());
+        for (CSVRecord r : records) {
+            List<String> raw = r.toList();
+            try {
+                String name = cols.get(r, cols.name);
+                if (name.isEmpty()) throw new IllegalArgumentException("Nome vazio");
+                if (name.length() > 100) throw new IllegalArgumentException("Nome com mais de 100 caracteres");
+                double price = parsePrice(cols.get(r, cols.price));
+                if (price < 0) throw new IllegalArgumentException("Preço negativo");
+                // sem coluna de quantidade (tabela de preços do fornecedor) o estoque não é mexido
+                Integer qty = cols.quantity < 0 ? null : Integer.valueOf(cols.get(r, cols.quantity));
+                if (qty != null && qty < 0) throw new IllegalArgumentException("Quantidade negativa");
+                String sku = cols.sku < 0 ? "" : cols.get(r, cols.sku);
+                if (sku.length() > 32) throw new IllegalArgumentException("SKU com mais de 32 caracteres");
+                rows.add(new Row(r.getRecordNumber(),
+                        new Product(null, name, price, qty, sku.isEmpty() ? null : sku), null, raw));
+            } catch (NumberFormatException ex) {
+                rows.add(new Row(r.getRecordNumber(), null, "Número inválido", raw));
+            } catch (IllegalArgumentException ex) {
+                rows.add(new Row(r.getRecordNumber(), null, ex.getMessage(), raw));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Aceita "3500.00", "3500,00", o formato exportado pelo relatório
+     * ("3.500,00") e o americano ("3,500.00"). Com os dois separadores, o
+     * último é o decimal; com um só repetido, ele é de milhar. Grupos de
+     * milhar têm que ter 3 dígitos. Recusa NaN, infinito e qualquer outro
+     * texto com {@link NumberFormatException}.
+     */
+    static double parsePrice(String s) {
+        String raw = s.replace("R$", "").replace("\u00A0", "").replace(" ", "").trim();
+        if (!PRICE.matcher(raw).matches()) throw new NumberFormatException("Preço inválido: " + s);
+        int dot = raw.lastIndexOf('.'), comma = raw.lastIndexOf(',');
+        char decimal;
+        if (dot >= 0 && comma >= 0) {
+            decimal = dot > comma ? '.' : ',';
+        } else if (dot >= 0) {
+            decimal = raw.indexOf('.') == dot ? '.' : 0;
+        } else if (comma >= 0) {
+            decimal = raw.indexOf(',') == comma ? ',' : 0;
+        } else {
+            decimal = 0;
+        }
+        String integer = raw, fraction = "";
+        if (decimal != 0) {
+            int at = raw.lastIndexOf(decimal);
+            integer = raw.substring(0, at);
+            fraction = raw.substring(at + 1);
+            if (fraction.isEmpty() || fraction.indexOf('.') >= 0 || fraction.indexOf(',') >= 0) {
+                throw new NumberFormatException("Preço inválido: " + s);
+            }
+        }
+        String[] groups = integer.replaceFirst("^[-+]", "").split("[.,]", -1);
+        if (groups.length > 1) {
+            char thousands = integer.indexOf('.') >= 0 ? '.' : ',';
+            if (thousands == decimal || integer.indexOf(thousands == '.' ? ',' : '.') >= 0) {
+                throw new NumberFormatException("Preço inválido: " + s);
+            }
+            if (groups[0].isEmpty() || groups[0].length() > 3) throw new NumberFormatException("Preço inválido: " + s);
+            for (int i = 1; i < groups.length; i++) {
+                if (groups[i].length() != 3) throw new NumberFormatException("Preço inválido: " + s);
+            }
+        }
+        double value = Double.parseDouble(integer.replace(".", "").replace(",", "")
+                + (fraction.isEmpty() ? "" : "." + fraction));
+        if (!Double.isFinite(value)) throw new NumberFormatException("Preço inválido: " + s);
+        return value;
+    }
+
+    private long write(Connection conn, List<Row> rows, Map<String, Integer> idsByName,
+                       Map<String, Integer> idsBySku, CSVPrinter rejects, boolean dryRun, Result result)
+            throws SQLException, IOException {
+        Map<String, Product> inserts = new LinkedHashMap<>();
+        Map<Integer, Product> updates = new LinkedHashMap<>();
+        for (Row row : rows) {
+            result.read++;
+            if (row.error() != null) {
+                List<String> out = new ArrayList<>(row.raw());
+                out.add("linha " + row.line() + ": " + row.error());
+                rejects.printRecord(out);
+                result.rejected++;
+                continue;
+            }
+            Product p = row.product();
+            String key = p.getSku() != null ? "sku:" + p.getSku() : p.getName().toLowerCase(Locale.ROOT);
+            Integer id = p.getSku() != null ? idsBySku.get(p.getSku()) : null;
+            if (id == null) id = idsByName.get(p.getName().toLowerCase(Locale.ROOT));
+            if (id != null) {
+                p.setId(id);
+                updates.put(id, p);
+            } else {
+                inserts.put(key, p);
+            }
+        }
+
+        List<Product> toInsert = new ArrayList<>(inserts.values());
+        List<Product> toUpdate = new ArrayList<>(updates.values());
+        if (!dryRun) {
+            result.uncommitted.addAll(dao.insertBatch(conn, toInsert));
+            result.uncommitted.addAll(dao.updateBatch(conn, toUpdate));
+        }
+        for (Product p : toInsert) {
+            // em simulação não há id: um provisório por produto o marca como "já visto" nos próximos blocos
+            int id = p.getId() != null ? p.getId() : --result.placeholder;
+            idsByName.put(p.getName().toLowerCase(Locale.ROOT), id);
+            if (p.getSku() != null) idsBySku.put(p.getSku(), id);
+        }
+        result.inserted += toInsert.size();
+        result.updated  += toUpdate.size();
+        return toInsert.size() + toUpdate.size();
+    }
+
+    private static long maybeCommit(Connection conn, long sinceCommit, boolean dryRun, Result result) throws SQLException {
+        if (sinceCommit < ROWS_PER_TRANSACTION || dryRun) return sinceCommit;
+        conn.commit();
+        auditCommitted(result);
+        return 0;
+    }
+
+    /**
+     * Depois de cada commit: uma INCLUSAO ou ALTERACAO por produto na
+     * auditoria, como no cadastro pela tela. O que foi desfeito nunca chega
+     * aqui, e a importação espera a fila da auditoria em vez de descartar.
+     */
+    private static void auditCommitted(Result result) {
+        result.committedInserted = result.inserted;
+        result.committedUpdated  = result.updated;
+        for (ProductDAO.Change c : result.uncommitted) {
+            AuditLog.recordWaiting("produto", c.id(), c.action(), c.before(), c.after());
+        }
+        result.uncommitted.clear();
+    }
+
+    private static List<Row> await(Future<List<Row>> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importação interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Falha validando bloco do CSV", e.getCause());
+        }
+    }
+
+    /** Posição das colunas conhecidas no cabeçalho (aceita o cabeçalho do export). */
+    private static final class Columns {
+        int name = -1, price = -1, quantity = -1, sku = -1;
+
+        static Columns resolve(List<String> header) {
+            Columns c = new Columns();
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                    case "nome", "name"                     -> c.name = i;
+                    case "preço", "preco", "price"          -> c.price = i;
+                    case "quantidade", "qtd", "quantity"    -> c.quantity = i;
+                    case "sku", "sku/ean", "ean", "código", "codigo" -> c.sku = i;
+                    default -> { }
+                }
+            }
+            if (c.name < 0 || c.price < 0) {
+                throw new IllegalArgumentException("CSV precisa das colunas Nome e Preço");
+            }
+            return c;
+        }
+
+        String get(CSVRecord r, int col) {
+            return col < r.size() ? r.get(col).trim() : "";
+        }
+    }
+}
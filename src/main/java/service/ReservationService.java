@@ -0,0 +1,187 @@
+package service;
+
+import dao.ReservationDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.Terminal;
+
+import javax.swing.*;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Reservas de estoque do carrinho deste terminal.
+ *
+ * As idas ao banco rodam numa única thread, em ordem, para o caixa (e o leitor
+ * de código de barras) nunca esperar a rede. A validade de cada reserva é
+ * acompanhada numa {@link DelayQueue} (heap, O(log n) por reserva): quando
+ * vence, a reserva é apagada e o carrinho é avisado na EDT.
+ */
+public class ReservationService implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ReservationService.class);
+
+    /** Id das reservas deste terminal; o mesmo depois de reiniciar (ver {@link Terminal}). */
+    public static final String TERMINAL_ID = Terminal.ID;
+    public static final Duration DEFAULT_TTL =
+            Duration.ofSeconds(Integer.getInteger("lojavila.reservaTtlSegundos", 900));
+    private static final long PURGE_EVERY_MS = 60_000;
+
+    /** Avisos na EDT. */
+    public interface Listener {
+        /** A reserva venceu e as unidades voltaram ao estoque. */
+        void expired(int productId, int quantity);
+        /** O banco recusou a reserva (sem estoque disponível ou erro). */
+        void rejected(int productId, int quantity, String reason);
+    }
+
+    private static final class Held implements Delayed {
+        final long id;
+        final int  productId;
+        final int  quantity;
+        final long deadline;
+
+        Held(long id, int productId, int quantity, long deadline) {
+            this.id = id;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.deadline = deadline;
+        }
+
+        @Override public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        @Override public int compareTo(Delayed o) {
+            return Long.compare(deadline, ((Held) o).deadline);
+        }
+    }
+
+    private final ReservationDAO dao = new ReservationDAO();
+    private final Duration ttl;
+    private final Listener listener;
+    private final ExecutorService db = Executors.newSingleThreadExecutor(r -> daemon(r, "reservas-db"));
+    private final DelayQueue<Held> expiry = new DelayQueue<>();
+    private final Map<Long, Held> held = new ConcurrentHashMap<>();
+    private final Thread reaper;
+
+    public ReservationService(Duration ttl, Listener listener) {
+        this.ttl = ttl;
+        this.listener = listener;
+        this.reaper = daemon(this::reap, "reservas-validade");
+        reaper.start();
+    }
+
+    /** Pede a reserva em segundo plano; recusa chega pelo {@link Listener}. */
+    public void reserveAsync(int productId, int quantity) {
+        db.execute(() -> {
+            try {
+                long id = dao.reserve(productId, TERMINAL_ID, quantity, (int) ttl.toSeconds());
+                if (id < 0) {
+                    onEdt(l -> l.rejected(productId, quantity, "estoque indisponível"));
+                    return;
+                }
+                // margem de 1 s para o aviso local chegar antes do banco considerar vencida
+                Held h = new Held(id, productId, quantity, System.nanoTime() + ttl.toNanos() - 1_000_000_000L);
+                held.put(id, h);
+                expiry.add(h);
+            } catch (SQLException e) {
+                LOG.warn("Falha reservando produto {}: {}", productId, e.toString());
+                onEdt(l -> l.rejected(productId, quantity, e.getMessage()));
+            }
+        });
+    }
+
+    /** Libera todas as reservas do produto (item removido do carrinho). */
+    public void releaseProduct(int productId) {
+        db.execute(() -> deleteWhere(h -> h.productId == productId));
+    }
+
+    /** Libera tudo (venda cancelada). */
+    public void releaseAll() {
+        db.execute(() -> deleteWhere(h -> true));
+    }
+
+    /**
+     * Espera os pedidos pendentes e devolve os ids das reservas válidas, que
+     * deixam de ser acompanhadas: o fechamento da venda as consome.
+     */
+    public List<Long> takeForCheckout() throws InterruptedException {
+        try {
+            return db.submit(() -> {
+                List<Long> ids = new ArrayList<>(held.keySet());
+                ids.forEach(id -> expiry.remove(held.remove(id)));
+                return ids;
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        releaseAll();
+        db.shutdown();
+        reaper.interrupt();
+    }
+
+    private void deleteWhere(java.util.function.Predicate<Held> filter) {
+        List<Long> ids = new ArrayList<>();
+        for (Held h : held.values()) {
+            if (filter.test(h)) ids.add(h.id);
+        }
+        ids.forEach(id -> expiry.remove(held.remove(id)));
+        try {
+            dao.delete(ids);
+        } catch (SQLException e) {
+            // se falhar, a validade no banco libera as unidades sozinha
+            LOG.warn("Falha liberando reservas {}: {}", ids, e.toString());
+        }
+    }
+
+    private void reap() {
+        long nextPurge = System.currentTimeMillis() + PURGE_EVERY_MS;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Held h = expiry.poll(PURGE_EVERY_MS, TimeUnit.MILLISECONDS);
+                if (h != null && held.remove(h.id) != null) {
+                    db.execute(() -> {
+                        try {
+                            dao.delete(List.of(h.id));
+                        } catch (SQLException e) {
+                            LOG.warn("Falha apagando reserva vencida {}: {}", h.id, e.toString());
+                        }
+                    });
+                    onEdt(l -> l.expired(h.productId, h.quantity));
+                }
+                if (System.currentTimeMillis() >= nextPurge) {
+                    nextPurge = System.currentTimeMillis() + PURGE_EVERY_MS;
+                    db.execute(() -> {
+                        try {
+                            dao.purgeExpired();
+                        } catch (SQLException e) {
+                            LOG.debug("Limpeza de reservas falhou: {}", e.toString());
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RejectedExecutionException e) {
+                return; // serviço encerrado
+            }
+        }
+    }
+
+    private void onEdt(Consumer<Listener> call) {
+        SwingUtilities.invokeLater(() -> call.accept(listener));
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
@@ -0,0 +1,167 @@
+package service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.DBConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move vendas de meses fechados de {@code sales} para {@code sales_archive}.
+ *
+ * {@code sales} fica só com o mês atual e os {@link #HOT_MONTHS} anteriores;
+ * o arquivo tem uma partição por mês, criada aqui antes de receber linhas.
+ * A movimentação é feita em lotes por faixa de id, cada lote numa transação
+ * curta (INSERT ... SELECT e DELETE), para não segurar locks das vendas do
+ * dia. Vários terminais podem agendar o arquivamento: um lock nomeado no
+ * banco garante que só um rode por vez.
+ */
+public class SalesArchiveService {
+    private static final Logger LOG = LoggerFactory.getLogger(SalesArchiveService.class);
+
+    public static final int HOT_MONTHS = Integer.getInteger("lojavila.vendas.mesesQuentes", 3);
+    private static final int BATCH_ROWS = 5_000;
+    private static final String LOCK_NAME = "lojavila_arquivo_vendas";
+    private static final String COLUMNS = "id, ticket_id, product_id, user_id, quantity, unit_price, sale_date";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    public interface ProgressListener {
+        void onProgress(long movedRows);
+    }
+
+    /** Primeiro dia que continua em {@code sales}. */
+    public static LocalDate hotFrom() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(HOT_MONTHS);
+    }
+
+    /** Arquiva o que for anterior a {@link #hotFrom()}. Devolve as linhas movidas (0 se outro terminal já está arquivando). */
+    public long archive(ProgressListener listener) throws SQLException {
+        LocalDate boundary = hotFrom();
+        try (Connection conn = DBConnection.getConnection()) {
+            if (!tryLock(conn)) {
+                LOG.info("Arquivamento de vendas já em andamento em outro terminal");
+                return 0;
+            }
+            try {
+                ensurePartitions(conn, boundary);
+                return moveBefore(conn, boundary, listener);
+            } finally {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("DO RELEASE_LOCK('" + LOCK_NAME + "')");
+                }
+            }
+        }
+    }
+
+    /** Agenda o arquivamento diário numa thread de fundo. */
+    public static ScheduledExecutorService scheduleDaily() {
+        ScheduledExecutorService ses = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "arquivo-vendas");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        SalesArchiveService service = new SalesArchiveService();
+        ses.scheduleWithFixedDelay(() -> {
+            try {
+                long moved = service.archive(rows -> { });
+                if (moved > 0) LOG.info("Arquivadas {} vendas anteriores a {}", moved, hotFrom());
+            } catch (SQLException e) {
+                LOG.warn("Arquivamento de vendas falhou: {}", e.toString());
+            }
+        }, 10, 24 * 60, TimeUnit.MINUTES);
+        return ses;
+    }
+
+    private long moveBefore(Connection conn, LocalDate boundary, ProgressListener listener) throws SQLException {
+        Timestamp limit = Timestamp.valueOf(boundary.atStartOfDay());
+        String nextBatch = "SELECT MAX(id) FROM (SELECT id FROM sales WHERE sale_date < ? ORDER BY id LIMIT " + BATCH_ROWS + ") b";
+        String copy   = "INSERT INTO sales_archive (" + COLUMNS + ") SELECT " + COLUMNS +
+                " FROM sales WHERE id <= ? AND sale_date < ?";
+        String delete = "DELETE FROM sales WHERE id <= ? AND sale_date < ?";
+        long moved = 0;
+        try (PreparedStatement psNext = conn.prepareStatement(nextBatch);
+             PreparedStatement psCopy = conn.prepareStatement(copy);
+             PreparedStatement psDel  = conn.prepareStatement(delete)) {
+            while (true) {
+                psNext.setTimestamp(1, limit);
+                long maxId;
+                try (ResultSet rs = psNext.executeQuery()) {
+                    rs.next();
+                    maxId = rs.getLong(1);
+                    if (rs.wasNull()) break;
+                }
+                conn.setAutoCommit(false);
+                try {
+                    psCopy.setLong(1, maxId);
+                    psCopy.setTimestamp(2, limit);
+                    int copied = psCopy.executeUpdate();
+                    psDel.setLong(1, maxId);
+                    psDel.setTimestamp(2, limit);
+                    int deleted = psDel.executeUpdate();
+                    if (copied != deleted) {
+                        throw new SQLException("Arquivamento inconsistente: copiadas " + copied + ", removidas " + deleted);
+                    }
+                    conn.commit();
+                    moved += deleted;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                listener.onProgress(moved);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Cria as partições mensais que faltam entre a venda mais antiga a mover e
+     * o limite. Se falhar, o arquivamento não segue: linhas movidas para
+     * p_futuro tornariam as próximas reorganizações cópias de dados.
+     */
+    private void ensurePartitions(Connection conn, LocalDate boundary) throws SQLException {
+        LocalDate first;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT MIN(sale_date) FROM sales WHERE sale_date < ?")) {
+            ps.setTimestamp(1, Timestamp.valueOf(boundary.atStartOfDay()));
+            try (ResultSet rs = ps.executeQuery()) {
+                Timestamp min = rs.next() ? rs.getTimestamp(1) : null;
+                if (min == null) return;
+                first = min.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT partition_name FROM information_schema.partitions " +
+                "WHERE table_schema = DATABASE() AND table_name = 'sales_archive'");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) existing.add(rs.getString(1));
+        }
+        try (Statement st = conn.createStatement()) {
+            for (LocalDate m = first; m.isBefore(boundary); m = m.plusMonths(1)) {
+                String name = m.format(PARTITION_NAME);
+                if (existing.contains(name)) continue;
+                // p_futuro ainda está vazia para este mês, então a reorganização não copia dados
+                st.execute("ALTER TABLE sales_archive REORGANIZE PARTITION p_futuro INTO (" +
+                        "PARTITION " + name + " VALUES LESS THAN (TO_DAYS('" + m.plusMonths(1) + "')), " +
+                        "PARTITION p_futuro VALUES LESS THAN MAXVALUE)");
+                LOG.info("Partição {} criada em sales_archive", name);
+            }
+        }
+    }
+
+    private static boolean tryLock(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT GET_LOCK('" + LOCK_NAME + "', 0)")) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package service;
+
+import model.Product;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Produtos no estoque mínimo ou abaixo dele.
+ *
+ * Os produtos com mínimo definido ficam numa árvore ordenada pela folga
+ * (quantidade - mínimo). Cada mudança que chega do {@link ProductCatalog}
+ * tira e recoloca só aquele produto, O(log n), e compara o antes e o depois
+ * para saber se ele cruzou o limite; a lista de alertas é o começo da
+ * árvore (folga &lt;= 0), sem consultar o banco nem varrer o catálogo.
+ */
+public class StockAlerts implements ProductCatalog.ChangeListener {
+    private static final StockAlerts INSTANCE = new StockAlerts();
+
+    /** Avisos na EDT. */
+    public interface Listener {
+        /** {@code product} entrou ({@code low} = true) ou saiu dos alertas; {@code lowCount} é o total atual. */
+        void crossed(Product product, boolean low, int lowCount);
+    }
+
+    private record Level(int margin, int id) { }
+
+    private static final Comparator<Level> ORDER =
+            Comparator.comparingInt(Level::margin).thenComparingInt(Level::id);
+
+    private final TreeSet<Level> levels = new TreeSet<>(ORDER);
+    private final Map<Integer, Level> levelOf = new HashMap<>();
+    private final Map<Integer, Product> tracked = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private int lowCount;
+    private boolean attached;
+
+    /** Use {@link #getInstance()}; instâncias avulsas só nos testes. */
+    StockAlerts() { }
+
+    public static StockAlerts getInstance() {
+        return INSTANCE;
+    }
+
+    /** Passa a acompanhar o catálogo (uma vez só). */
+    public void start() {
+        synchronized (this) {
+            if (attached) return;
+            attached = true;
+        }
+        ProductCatalog.getInstance().addListener(this);
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    public synchronized int getLowCount() {
+        return lowCount;
+    }
+
+    /** Produtos em alerta, do mais crítico (maior falta) ao menos. O(k + log n). */
+    public synchronized List<Product> getLowStock() {
+        List<Product> list = new ArrayList<>(lowCount);
+        for (Level lv : levels.headSet(new Level(0, Integer.MAX_VALUE), true)) {
+            list.add(tracked.get(lv.id()));
+        }
+        return list;
+    }
+
+    @Override
+    public void changed(Product old, Product now) {
+        update(now.getId(), now.getReorderLevel() > 0 ? now : null);
+    }
+
+    @Override
+    public void removed(Product old) {
+        update(old.getId(), null);
+    }
+
+    private void update(int id, Product now) {
+        Product subject;
+        boolean isLow;
+        int count;
+        synchronized (this) {
+            Level before = levelOf.remove(id);
+            if (before != null) levels.remove(before);
+            Product previous = tracked.remove(id);
+            boolean wasLow = before != null && before.margin() <= 0;
+
+            isLow = false;
+            if (now != null) {
+                Level after = new Level(now.getQuantity() - now.getReorderLevel(), id);
+                levels.add(after);
+                levelOf.put(id, after);
+                tracked.put(id, now);
+                isLow = after.margin() <= 0;
+            }
+            if (wasLow == isLow) return;
+            lowCount += isLow ? 1 : -1;
+            count = lowCount;
+            subject = now != null ? now : previous;
+        }
+        boolean low = isLow;
+        SwingUtilities.invokeLater(() -> listeners.forEach(l -> l.crossed(subject, low, count)));
+    }
+}
@@ -0,0 +1,99 @@
+package service;
+
+import dao.StockLedgerDAO;
+import model.StockMovement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.AuditLog;
+import util.DBConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Movimentos de estoque fora da venda (entrada de mercadoria, devolução,
+ * ajuste de contagem), histórico por produto e a manutenção do razão.
+ *
+ * A manutenção ({@link #compact()}) consolida nos produtos os movimentos já
+ * comitados, mantendo curto o trecho que a leitura do saldo precisa somar,
+ * e tira o snapshot diário dos saldos usado pelas consultas de estoque numa
+ * data passada.
+ */
+public class StockLedgerService {
+    private static final Logger LOG = LoggerFactory.getLogger(StockLedgerService.class);
+
+    private static final int INTERVAL_SECONDS = Integer.getInteger("lojavila.estoque.consolidacaoSegundos", 60);
+    private static final int FOLD_BATCH       = 50_000;
+    public static final int HISTORY_LIMIT     = 500;
+
+    private final StockLedgerDAO dao = new StockLedgerDAO();
+
+    /**
+     * Lança um movimento em nome do usuário da sessão. Entrada e devolução
+     * só somam; ajuste pode ir para os dois lados. Saídas por venda passam
+     * pelo {@link CheckoutService}.
+     */
+    public void register(int productId, StockMovement.Kind kind, int quantity, String note) throws SQLException {
+        switch (kind) {
+            case ENTRADA, DEVOLUCAO -> {
+                if (quantity <= 0) throw new IllegalArgumentException(kind + " precisa de quantidade positiva");
+            }
+            case AJUSTE -> {
+                if (quantity == 0) throw new IllegalArgumentException("Ajuste sem quantidade");
+            }
+            case VENDA -> throw new IllegalArgumentException("Vendas são lançadas pelo fechamento da venda");
+        }
+        String text = note == null || note.isBlank() ? null : note.trim();
+        try (Connection conn = DBConnection.getConnection()) {
+            dao.append(conn, List.of(new StockMovement(productId, kind, quantity, AuditLog.user(), text)));
+        }
+    }
+
+    /** Movimentos mais recentes do produto, do último para o primeiro. */
+    public List<StockMovement> history(int productId) throws SQLException {
+        return dao.findByProduct(productId, HISTORY_LIMIT);
+    }
+
+    /** Estoque do produto no instante {@code at}. */
+    public int balanceAt(int productId, LocalDateTime at) throws SQLException {
+        return dao.balanceAt(productId, at);
+    }
+
+    /** Consolida os movimentos pendentes e tira o snapshot do dia, se faltar. */
+    public long compact() throws SQLException {
+        long folded = 0;
+        int n;
+        do {
+            n = dao.fold(FOLD_BATCH);
+            folded += n;
+        } while (n >= FOLD_BATCH);
+        if (dao.snapshotIfDue(LocalDate.now())) LOG.info("Estoque: snapshot diário dos saldos gravado");
+        return folded;
+    }
+
+    /** Agenda a consolidação periódica numa thread de fundo. */
+    public static ScheduledExecutorService scheduleCompaction() {
+        ScheduledExecutorService ses = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "razao-estoque");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        StockLedgerService service = new StockLedgerService();
+        ses.scheduleWithFixedDelay(() -> {
+            try {
+                long n = service.compact();
+                if (n > 0) LOG.debug("Estoque: {} movimentos consolidados", n);
+            } catch (SQLException e) {
+                LOG.warn("Consolidação do razão de estoque falhou: {}", e.toString());
+            }
+        }, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return ses;
+    }
+}
@@ -0,0 +1,40 @@
+package service;
+
+import dao.SaleDAO;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Números de ticket sem ida ao banco a cada venda (hi/lo): o terminal pega
+ * um bloco de {@link #BLOCK} números do contador da loja e entrega os
+ * próximos da memória; só volta ao banco quando o bloco acaba. Números
+ * únicos entre terminais, crescentes dentro de cada um, com lacunas quando
+ * o terminal fecha antes de usar o bloco inteiro.
+ */
+public final class TicketNumbers {
+    private static final int BLOCK = Integer.getInteger("lojavila.vendas.blocoTickets", 100);
+    private static final Map<Integer, TicketNumbers> BY_STORE = new ConcurrentHashMap<>();
+
+    private final SaleDAO dao;
+    private long next;
+    private long end;
+
+    private TicketNumbers(int storeId) {
+        this.dao = new SaleDAO(storeId);
+    }
+
+    /** Numeração da loja {@code storeId} neste terminal. */
+    public static TicketNumbers of(int storeId) {
+        return BY_STORE.computeIfAbsent(storeId, TicketNumbers::new);
+    }
+
+    public synchronized long next() throws SQLException {
+        if (next >= end) {
+            next = dao.allocateTicketBlock(BLOCK);
+            end  = next + BLOCK;
+        }
+        return next++;
+    }
+}
@@ -0,0 +1,294 @@
+package tools;
+
+import service.SalesArchiveService;
+import util.DBConnection;
+import util.PasswordUtil;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gera uma base de teste determinística por fator de escala:
+ * SF1 = 1.000 produtos e 1.000.000 vendas, SF10 = 10 mil e 10 milhões etc.
+ *
+ * Mesmo {@code sf} e {@code seed} geram os mesmos produtos e as mesmas vendas
+ * (datas relativas ao dia da geração, para os relatórios "últimos N dias"
+ * terem dados). As vendas saem agrupadas em tickets de 1 a {@link #MAX_LINES}
+ * linhas (mesmo vendedor e horário), com o cabeçalho em {@code sale_tickets};
+ * o id do ticket é o id da sua primeira linha. As vendas são divididas em
+ * blocos com semente própria e carregados em paralelo com ids explícitos,
+ * então o resultado não depende da ordem das threads. Carga em lotes multi-linha, FKs e checagem de unicidade
+ * desligadas na sessão, commit a cada bloco.
+ */
+public class DataGenerator {
+    public static final int PRODUCTS_PER_SF = 1_000;
+    public static final int SALES_PER_SF    = 1_000_000;
+
+    private static final int USERS       = 10;
+    private static final int HISTORY_DAYS = 730;
+    private static final int CHUNK       = 50_000;
+    private static final int BATCH       = 5_000;
+    private static final int MAX_LINES   = 8;
+    private static final String TERMINAL = "gerador";
+
+    public record Config(double scaleFactor, long seed, boolean wipe, boolean archive, int threads) {
+        public static Config parse(String[] args) {
+            java.util.Map<String, String> kv = new java.util.HashMap<>();
+            for (String a : args) {
+                int eq = a.indexOf('=');
+                if (eq < 0) throw new IllegalArgumentException("Argumento deve ser chave=valor: " + a);
+                kv.put(a.substring(0, eq), a.substring(eq + 1));
+            }
+            return new Config(
+                    Double.parseDouble(kv.getOrDefault("sf", "1")),
+                    Long.parseLong(kv.getOrDefault("seed", "42")),
+                    Boolean.parseBoolean(kv.getOrDefault("limpar", "false")),
+                    Boolean.parseBoolean(kv.getOrDefault("arquivar", "true")),
+                    Integer.parseInt(kv.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        }
+
+        int products() {
+            return Math.max(10, (int) Math.round(PRODUCTS_PER_SF * scaleFactor));
+        }
+
+        long sales() {
+            return Math.round(SALES_PER_SF * scaleFactor);
+        }
+    }
+
+    private final Config cfg;
+
+    public DataGenerator(Config cfg) {
+        this.cfg = cfg;
+    }
+
+    public void run(PrintStream out) throws Exception {
+        long t0 = System.nanoTime();
+        try (Connection conn = DBConnection.getConnection()) {
+            prepare(conn);
+            int[] userIds = loadUsers(conn);
+            double[] prices = loadProducts(conn);
+            out.printf("%d produtos e %d usuários em %d ms%n", prices.length, userIds.length, ms(t0));
+
+            long t1 = System.nanoTime();
+            loadSales(userIds, prices, out);
+            long n = cfg.sales();
+            out.printf("%,d vendas em %d ms (%,.0f linhas/s)%n", n, ms(t1), n / Math.max(1e-3, (System.nanoTime() - t1) / 1e9));
+
+            try (Statement st = conn.createStatement()) {
+                // tickets novos do caixa continuam depois dos gerados
+                st.executeUpdate("UPDATE ticket_blocks SET next_id = GREATEST(next_id, " +
+                        "(SELECT COALESCE(MAX(id), 0) + 1 FROM sale_tickets)) WHERE id = 1");
+                st.execute("ANALYZE TABLE products, sales, sale_tickets");
+            }
+        }
+        if (cfg.archive()) {
+            long t2 = System.nanoTime();
+            long moved = new SalesArchiveService().archive(rows -> { });
+            out.printf("%,d vendas anteriores a %s arquivadas em %d ms%n", moved, SalesArchiveService.hotFrom(), ms(t2));
+        }
+        out.printf("SF%s pronto em %d ms%n", label(cfg.scaleFactor()), ms(t0));
+    }
+
+    static String label(double sf) {
+        return sf == Math.rint(sf) ? String.valueOf((long) sf) : String.valueOf(sf);
+    }
+
+    private void prepare(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            if (cfg.wipe()) {
+                st.execute("SET FOREIGN_KEY_CHECKS = 0");
+                for (String t : List.of("stock_reservations", "product_demand", "stock_snapshots", "stock_movements",
+                        "sales", "sale_tickets", "sales_archive", "products")) {
+                    st.execute("TRUNCATE TABLE " + t);
+                }
+                st.execute("UPDATE stock_ledger_state SET fold_seq = 0, snapshot_at = NULL WHERE id = 1");
+                st.execute("DELETE FROM users WHERE username LIKE 'sim%'");
+                st.execute("SET FOREIGN_KEY_CHECKS = 1");
+                return;
+            }
+            try (ResultSet rs = st.executeQuery(
+                    "SELECT (SELECT COUNT(*) FROM products) + (SELECT COUNT(*) FROM sales) + (SELECT COUNT(*) FROM sales_archive)")) {
+                rs.next();
+                if (rs.getLong(1) > 0) {
+                    throw new IllegalStateException("Banco já tem produtos ou vendas; use limpar=true (apaga tudo) num banco de teste");
+                }
+            }
+        }
+    }
+
+    private int[] loadUsers(Connection conn) throws SQLException {
+        // um hash só: BCrypt é lento de propósito e a senha é a mesma para todos
+        String hash = PasswordUtil.hashPassword("sim");
+        int[] ids = new int[USERS];
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO users (username, password_hash, role) VALUES (?, ?, 'EMPLOYEE') " +
+                "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < USERS; i++) {
+                ps.setString(1, String.format("sim%02d", i));
+                ps.setString(2, hash);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    ids[i] = keys.getInt(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /** Insere os produtos com ids 1..n e devolve os preços (índice = id - 1). */
+    private double[] loadProducts(Connection conn) throws SQLException {
+        int n = cfg.products();
+        double[] prices = new double[n];
+        SplittableRandom rnd = new SplittableRandom(cfg.seed());
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO products (id, name, price, quantity, sku) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < n; i++) {
+                // preços log-normais: muitos itens baratos, poucos caros (R$ 2 a ~R$ 5.000)
+                double price = Math.min(5000, Math.round(Math.exp(3.5 + 1.3 * rnd.nextGaussian()) * 100) / 100.0 + 2);
+                prices[i] = price;
+                ps.setInt(1, i + 1);
+                ps.setString(2, String.format("Produto %06d", i + 1));
+                ps.setBigDecimal(3, BigDecimal.valueOf(price));
+                ps.setInt(4, rnd.nextInt(500));
+                ps.setString(5, String.format("SF%010d", i + 1));
+                ps.addBatch();
+                if ((i + 1) % BATCH == 0) ps.executeBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return prices;
+    }
+
+    private void loadSales(int[] userIds, double[] prices, PrintStream out) throws Exception {
+        long total = cfg.sales();
+        int chunks = (int) ((total + CHUNK - 1) / CHUNK);
+        Zipf zipf = new Zipf(prices.length, 1.0);
+        int[] popularity = shuffledIds(prices.length);
+        LocalDateTime end = LocalDate.now().plusDays(1).atStartOfDay();
+        AtomicLong done = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, cfg.threads()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < chunks; c++) {
+                long first = (long) c * CHUNK;
+                long count = Math.min(CHUNK, total - first);
+                long chunkSeed = cfg.seed() * 1_000_003L + c;
+                futures.add(pool.submit(() -> {
+                    loadSalesChunk(first, count, chunkSeed, userIds, prices, zipf, popularity, end);
+                    long d = done.addAndGet(count);
+                    if (d / 1_000_000 != (d - count) / 1_000_000) out.printf("  %,d vendas%n", d);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void loadSalesChunk(long first, long count, long seed, int[] userIds, double[] prices,
+                                Zipf zipf, int[] popularity, LocalDateTime end) throws SQLException {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long historySeconds = HISTORY_DAYS * 86_400L;
+        try (Connection conn = DBConnection.getConnection()) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("SET FOREIGN_KEY_CHECKS = 0");
+                st.execute("SET UNIQUE_CHECKS = 0");
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO sales (id, ticket_id, product_id, user_id, quantity, unit_price, sale_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement pt = conn.prepareStatement(
+                    "INSERT INTO sale_tickets (id, user_id, terminal, line_count, items, total, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                long i = 0;
+                while (i < count) {
+                    // tamanho geométrico: metade dos tickets com 1 ou 2 linhas, cauda até MAX_LINES
+                    int lines = 1;
+                    while (lines < MAX_LINES && rnd.nextInt(5) < 3) lines++;
+                    lines = (int) Math.min(lines, count - i);
+
+                    // mais vendas recentes que antigas (crescimento) e concentradas no horário comercial
+                    long back = (long) (historySeconds * Math.pow(rnd.nextDouble(), 1.3));
+                    LocalDateTime when = end.minusSeconds(back);
+                    int hour = 8 + (int) Math.min(13, Math.abs(rnd.nextGaussian() * 3.5 + 6));
+                    when = when.withHour(hour);
+                    if (!when.isBefore(end)) when = end.minusMinutes(1);
+                    Timestamp at = Timestamp.valueOf(when);
+                    int user = userIds[rnd.nextInt(userIds.length)];
+                    long ticket = first + i + 1;
+
+                    int items = 0;
+                    BigDecimal total = BigDecimal.ZERO;
+                    for (int l = 0; l < lines; l++, i++) {
+                        int product = popularity[zipf.sample(rnd)];
+                        int qty = rnd.nextInt(10) == 0 ? 2 + rnd.nextInt(4) : 1;
+                        BigDecimal price = BigDecimal.valueOf(prices[product - 1]);
+                        items += qty;
+                        total = total.add(price.multiply(BigDecimal.valueOf(qty)));
+
+                        ps.setLong(1, first + i + 1);
+                        ps.setLong(2, ticket);
+                        ps.setInt(3, product);
+                        ps.setInt(4, user);
+                        ps.setInt(5, qty);
+                        ps.setBigDecimal(6, price);
+                        ps.setTimestamp(7, at);
+                        ps.addBatch();
+                        if ((i + 1) % BATCH == 0) {
+                            ps.executeBatch();
+                            pt.executeBatch();
+                        }
+                    }
+
+                    pt.setLong(1, ticket);
+                    pt.setInt(2, user);
+                    pt.setString(3, TERMINAL);
+                    pt.setInt(4, lines);
+                    pt.setInt(5, items);
+                    pt.setBigDecimal(6, total);
+                    pt.setTimestamp(7, at);
+                    pt.addBatch();
+                }
+                ps.executeBatch();
+                pt.executeBatch();
+                conn.commit();
+            }
+        }
+    }
+
+    private int[] shuffledIds(int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) ids[i] = i + 1;
+        SplittableRandom rnd = new SplittableRandom(cfg.seed() ^ 0x5DEECE66DL);
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = ids[i];
+            ids[i] = ids[j];
+            ids[j] = t;
+        }
+        return ids;
+    }
+
+    private static long ms(long t0) {
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+}
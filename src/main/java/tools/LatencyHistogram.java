@@ -0,0 +1,64 @@
+package tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latência com faixas logarítmicas (1% de largura), seguro para
+ * muitas threads gravando ao mesmo tempo. Memória fixa, qualquer número de
+ * amostras; percentis com erro de no máximo 1%.
+ */
+public final class LatencyHistogram {
+    private static final double BASE = Math.log(1.01);
+    private static final int BUCKETS = 2600; // 1.01^2600 ns > 10^11 ns
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+        total.increment();
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void error() {
+        errors.increment();
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    /** Latência em ns abaixo da qual estão {@code p} (0..1) das amostras. */
+    public long percentile(double p) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(p * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upper(i), max.get());
+        }
+        return max.get();
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos <= 1) return 0;
+        return Math.min(BUCKETS - 1, (int) (Math.log(nanos) / BASE));
+    }
+
+    private static long upper(int bucket) {
+        return (long) Math.exp((bucket + 1) * BASE);
+    }
+}
@@ -0,0 +1,238 @@
+package tools;
+
+import dao.ProductDAO;
+import dao.ReservationDAO;
+import dao.SaleDAO;
+import dao.UserDAO;
+import model.Product;
+import model.User;
+import service.Cart;
+import service.CheckoutService;
+import service.ReservationService;
+import util.DBConnection;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simula N caixas usando o mesmo código de DAO, reservas e fechamento do
+ * cliente Swing, cada um numa thread virtual:
+ * <pre>
+ *   catálogo -> itens (reserva cada um) -> fechamento -> às vezes o painel
+ * </pre>
+ * A popularidade dos produtos segue Zipf (poucos produtos vendem muito) e as
+ * pausas entre passos são exponenciais com média configurável. No fim mostra
+ * vazão, p50/p99/p99,9 por operação, erros e divergências de estoque.
+ *
+ * Rode contra um banco de teste: as vendas são gravadas de verdade.
+ */
+public class LoadSimulator {
+
+    /** Parâmetros, lidos de argumentos chave=valor. */
+    public record Config(int terminals, int durationSeconds, int warmUpSeconds, int thinkMillis,
+                         double zipfExponent, int maxItems, double dashboardChance, int poolSize, String username) {
+
+        public static Config parse(String[] args) {
+            Map<String, String> kv = new HashMap<>();
+            for (String a : args) {
+                int eq = a.indexOf('=');
+                if (eq < 0) throw new IllegalArgumentException("Argumento deve ser chave=valor: " + a);
+                kv.put(a.substring(0, eq), a.substring(eq + 1));
+            }
+            Config c = new Config(
+                    Integer.parseInt(kv.getOrDefault("terminais", "20")),
+                    Integer.parseInt(kv.getOrDefault("duracao", "60")),
+                    Integer.parseInt(kv.getOrDefault("aquecimento", "10")),
+                    Integer.parseInt(kv.getOrDefault("pensar", "500")),
+                    Double.parseDouble(kv.getOrDefault("zipf", "1.0")),
+                    Integer.parseInt(kv.getOrDefault("itens", "5")),
+                    Double.parseDouble(kv.getOrDefault("painel", "0.1")),
+                    Integer.parseInt(kv.getOrDefault("pool", "0")),
+                    kv.getOrDefault("usuario", "admin"));
+            if (c.terminals() < 1 || c.maxItems() < 1) throw new IllegalArgumentException("terminais e itens devem ser >= 1");
+            return c;
+        }
+    }
+
+    private static final String[] OPS = {"catalogo", "reserva", "fechamento", "painel"};
+
+    private final Config cfg;
+    private final Map<String, LatencyHistogram> latency = new LinkedHashMap<>();
+    private final Map<Integer, LongAdder> soldByProduct = new ConcurrentHashMap<>();
+    private final LongAdder sales = new LongAdder();
+    private final LongAdder stockRejections = new LongAdder();
+    private final AtomicLong measureFrom = new AtomicLong(Long.MAX_VALUE);
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private final SaleDAO saleDAO = new SaleDAO();
+    private final ReservationDAO reservationDAO = new ReservationDAO();
+    private final CheckoutService checkout = new CheckoutService();
+
+    public LoadSimulator(Config cfg) {
+        this.cfg = cfg;
+        for (String op : OPS) latency.put(op, new LatencyHistogram());
+    }
+
+    public void run(PrintStream out) throws Exception {
+        if (cfg.poolSize() > 0) DBConnection.enablePool(cfg.poolSize());
+        User user = new UserDAO().findByUsername(cfg.username());
+        if (user == null) throw new IllegalArgumentException("Usuário não encontrado: " + cfg.username());
+
+        List<Product> products = productDAO.findAll();
+        if (products.isEmpty()) throw new IllegalStateException("Nenhum produto cadastrado");
+        Map<Integer, Integer> stockBefore = stockById();
+        // ordem de popularidade embaralhada para não coincidir com a ordem dos ids
+        List<Product> byPopularity = new ArrayList<>(products);
+        Collections.shuffle(byPopularity, new Random(42));
+        Zipf zipf = new Zipf(byPopularity.size(), cfg.zipfExponent());
+
+        out.printf("Simulando %d caixas por %d s (+%d s de aquecimento), %d produtos, zipf=%.2f%n",
+                cfg.terminals(), cfg.durationSeconds(), cfg.warmUpSeconds(), products.size(), cfg.zipfExponent());
+
+        long start = System.nanoTime();
+        measureFrom.set(start + TimeUnit.SECONDS.toNanos(cfg.warmUpSeconds()));
+        long end = measureFrom.get() + TimeUnit.SECONDS.toNanos(cfg.durationSeconds());
+        try (ExecutorService terminals = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < cfg.terminals(); t++) {
+                String terminalId = ReservationService.TERMINAL_ID + "-sim" + t;
+                terminals.execute(() -> terminal(terminalId, user, byPopularity, zipf, end));
+            }
+        } // close() espera todos terminarem
+
+        report(out, stockBefore);
+    }
+
+    private void terminal(String terminalId, User user, List<Product> byPopularity, Zipf zipf, long end) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int ttl = (int) ReservationService.DEFAULT_TTL.toSeconds();
+        while (System.nanoTime() < end) {
+            timed("catalogo", () -> productDAO.findAll());
+            think(rnd);
+
+            Cart cart = new Cart();
+            List<Long> reservations = new ArrayList<>();
+            int items = 1 + rnd.nextInt(cfg.maxItems());
+            for (int i = 0; i < items; i++) {
+                Product p = byPopularity.get(zipf.sample(rnd));
+                int qty = 1 + (rnd.nextInt(10) == 0 ? rnd.nextInt(3) : 0);
+                Long id = timed("reserva", () -> reservationDAO.reserve(p.getId(), terminalId, qty, ttl));
+                if (id == null) continue;
+                if (id < 0) {
+                    stockRejections.increment();
+                    continue;
+                }
+                reservations.add(id);
+                cart.add(p, qty);
+                think(rnd);
+            }
+
+            if (!cart.isEmpty()) {
+                Boolean ok = timed("fechamento", () -> {
+                    try {
+                        checkout.checkout(cart, user, terminalId, reservations);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false; // reserva vencida ou estoque acabou: regra de negócio, não erro
+                    }
+                });
+                if (Boolean.TRUE.equals(ok)) {
+                    sales.increment();
+                    cart.getLines().forEach(l ->
+                            soldByProduct.computeIfAbsent(l.getProductId(), k -> new LongAdder()).add(l.getQuantity()));
+                } else {
+                    if (Boolean.FALSE.equals(ok)) stockRejections.increment();
+                    try {
+                        reservationDAO.delete(reservations);
+                    } catch (SQLException ignore) {
+                        // vencem pelo TTL
+                    }
+                }
+            }
+
+            if (rnd.nextDouble() < cfg.dashboardChance()) {
+                timed("painel", () -> {
+                    saleDAO.findSalesByDay(7);
+                    return saleDAO.findTopSelling(5);
+                });
+            }
+            think(rnd);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Op<T> {
+        T call() throws Exception;
+    }
+
+    /** Mede a operação (fora do aquecimento). Devolve null se ela falhou. */
+    private <T> T timed(String op, Op<T> call) {
+        long t0 = System.nanoTime();
+        boolean measured = t0 >= measureFrom.get();
+        try {
+            T r = call.call();
+            if (measured) latency.get(op).record(System.nanoTime() - t0);
+            return r;
+        } catch (Exception e) {
+            if (measured) latency.get(op).error();
+            return null;
+        }
+    }
+
+    private void think(ThreadLocalRandom rnd) {
+        if (cfg.thinkMillis() <= 0) return;
+        long ms = (long) (-Math.log(1 - rnd.nextDouble()) * cfg.thinkMillis());
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(PrintStream out, Map<Integer, Integer> stockBefore) throws SQLException {
+        double secs = cfg.durationSeconds();
+        out.println();
+        out.printf("%-11s %9s %9s %9s %9s %9s %9s %8s%n", "operação", "n", "ops/s", "p50 ms", "p99 ms", "p99,9 ms", "máx ms", "erros");
+        for (Map.Entry<String, LatencyHistogram> e : latency.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            long n = h.count();
+            out.printf("%-11s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %7.2f%%%n",
+                    e.getKey(), n, n / secs,
+                    h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6,
+                    h.maxNanos() / 1e6,
+                    n + h.errors() == 0 ? 0.0 : 100.0 * h.errors() / (n + h.errors()));
+        }
+        out.printf("%nVendas concluídas: %d (inclui aquecimento); recusas por estoque/reserva: %d%n",
+                sales.sum(), stockRejections.sum());
+
+        // estoque: cada unidade vendida tem que ter saído do produto, e nada pode ficar negativo
+        Map<Integer, Integer> after = stockById();
+        int violations = 0;
+        for (Map.Entry<Integer, Integer> e : stockBefore.entrySet()) {
+            int now = after.getOrDefault(e.getKey(), 0);
+            long sold = Optional.ofNullable(soldByProduct.get(e.getKey())).map(LongAdder::sum).orElse(0L);
+            if (now < 0 || e.getValue() - now != sold) {
+                violations++;
+                if (violations <= 10) {
+                    out.printf("  divergência produto %d: antes %d, vendido %d, agora %d%n", e.getKey(), e.getValue(), sold, now);
+                }
+            }
+        }
+        out.printf("Divergências de estoque: %d%s%n", violations,
+                violations > 0 ? " (outro processo alterou o estoque durante o teste?)" : "");
+    }
+
+    /** Saldo de cada produto pelo razão de estoque. */
+    private Map<Integer, Integer> stockById() {
+        Map<Integer, Integer> map = new HashMap<>();
+        productDAO.forEach(p -> map.put(p.getId(), p.getQuantity()));
+        return map;
+    }
+}
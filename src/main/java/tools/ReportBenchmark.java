@@ -0,0 +1,147 @@
+package tools;
+
+import dao.ProductDAO;
+import dao.SaleDAO;
+import util.DBConnection;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Mede cada consulta de relatório (as mesmas que o painel e a tela de
+ * relatórios usam) e acrescenta o resultado num CSV. Compara com a última
+ * medição da mesma escala no arquivo e aponta quem ficou mais lento que a
+ * tolerância, para regressão aparecer como número.
+ *
+ * Uma execução de aquecimento é descartada; depois {@code repeticoes}
+ * execuções e o registro de mínimo, mediana e máximo.
+ */
+public class ReportBenchmark {
+    private static final String HEADER = "quando,escala,produtos,vendas,consulta,repeticoes,min_ms,mediana_ms,max_ms";
+
+    public record Config(String scale, int repetitions, Path output, double tolerance) {
+        public static Config parse(String[] args) {
+            Map<String, String> kv = new HashMap<>();
+            for (String a : args) {
+                int eq = a.indexOf('=');
+                if (eq < 0) throw new IllegalArgumentException("Argumento deve ser chave=valor: " + a);
+                kv.put(a.substring(0, eq), a.substring(eq + 1));
+            }
+            return new Config(
+                    kv.getOrDefault("escala", "local"),
+                    Integer.parseInt(kv.getOrDefault("repeticoes", "5")),
+                    Path.of(kv.getOrDefault("saida", "relatorios-tempos.csv")),
+                    Double.parseDouble(kv.getOrDefault("tolerancia", "0.2")));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        Object run() throws Exception;
+    }
+
+    private final Config cfg;
+    private final Map<String, Query> queries = new LinkedHashMap<>();
+
+    public ReportBenchmark(Config cfg) {
+        this.cfg = cfg;
+        SaleDAO sales = new SaleDAO();
+        ProductDAO products = new ProductDAO();
+        queries.put("vendas_por_dia_7",     () -> sales.findSalesByDay(7));
+        queries.put("vendas_por_dia_365",   () -> sales.findSalesByDay(365));
+        queries.put("vendas_por_hora_7d",   () -> sales.findSalesByPeriod(Duration.ofDays(7)));
+        queries.put("vendas_por_minuto_60", () -> sales.findSalesByMinute(60));
+        queries.put("mais_vendidos_5",      () -> sales.findTopSelling(5));
+        queries.put("vendas_por_usuario",   sales::findSalesByUser);
+        queries.put("tickets_resumo_hoje",  () -> sales.findTicketSummary(LocalDate.now().atStartOfDay()));
+        queries.put("tickets_por_dia_30",   () -> sales.findTicketsByDay(30));
+        queries.put("tickets_por_hora_30",  () -> sales.findTicketsByHour(30));
+        queries.put("produtos_todos",       products::findAll);
+    }
+
+    public int run(PrintStream out) throws Exception {
+        long[] counts = counts();
+        Map<String, Double> previous = previousMedians();
+        String now = LocalDateTime.now().withNano(0).toString();
+        List<String> lines = new ArrayList<>();
+        int regressions = 0;
+
+        out.printf("Escala %s: %,d produtos, %,d vendas (com arquivo)%n%n", cfg.scale(), counts[0], counts[1]);
+        out.printf("%-22s %9s %11s %9s %10s%n", "consulta", "min ms", "mediana ms", "max ms", "vs. antes");
+        for (Map.Entry<String, Query> e : queries.entrySet()) {
+            e.getValue().run(); // aquecimento: cache do banco e JIT
+            double[] ms = new double[cfg.repetitions()];
+            for (int i = 0; i < ms.length; i++) {
+                long t0 = System.nanoTime();
+                e.getValue().run();
+                ms[i] = (System.nanoTime() - t0) / 1e6;
+            }
+            Arrays.sort(ms);
+            double median = ms[ms.length / 2];
+
+            String delta = "";
+            Double before = previous.get(e.getKey());
+            if (before != null && before > 0) {
+                double change = (median - before) / before;
+                delta = String.format("%+.0f%%", change * 100);
+                if (change > cfg.tolerance()) {
+                    delta += " REGRESSÃO";
+                    regressions++;
+                }
+            }
+            out.printf("%-22s %9.1f %11.1f %9.1f %10s%n", e.getKey(), ms[0], median, ms[ms.length - 1], delta);
+            lines.add(String.join(",", now, cfg.scale(), String.valueOf(counts[0]), String.valueOf(counts[1]),
+                    e.getKey(), String.valueOf(ms.length),
+                    fmt(ms[0]), fmt(median), fmt(ms[ms.length - 1])));
+        }
+        append(lines);
+        out.printf("%nResultados acrescentados em %s%n", cfg.output().toAbsolutePath());
+        if (regressions > 0) out.printf("%d consulta(s) mais lenta(s) que a tolerância de %.0f%%%n", regressions, cfg.tolerance() * 100);
+        return regressions;
+    }
+
+    private long[] counts() throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT (SELECT COUNT(*) FROM products), " +
+                     "(SELECT COUNT(*) FROM sales) + (SELECT COUNT(*) FROM sales_archive)")) {
+            rs.next();
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        }
+    }
+
+    /** Mediana mais recente de cada consulta nesta escala. */
+    private Map<String, Double> previousMedians() throws IOException {
+        Map<String, Double> map = new HashMap<>();
+        if (!Files.exists(cfg.output())) return map;
+        for (String line : Files.readAllLines(cfg.output(), StandardCharsets.UTF_8)) {
+            String[] f = line.split(",");
+            if (f.length < 9 || f[0].equals("quando") || !f[1].equals(cfg.scale())) continue;
+            map.put(f[4], Double.parseDouble(f[7])); // linhas mais novas sobrescrevem as antigas
+        }
+        return map;
+    }
+
+    private void append(List<String> lines) throws IOException {
+        List<String> out = new ArrayList<>();
+        if (!Files.exists(cfg.output())) out.add(HEADER);
+        out.addAll(lines);
+        Files.write(cfg.output(), out, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String fmt(double v) {
+        return String.format(Locale.ROOT, "%.2f", v);
+    }
+}
@@ -0,0 +1,24 @@
+package tools;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/** Amostra ranks 0..n-1 com P(k) proporcional a 1/(k+1)^s, por busca binária na CDF. */
+final class Zipf {
+    private final double[] cdf;
+
+    Zipf(int n, double s) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) cdf[k] /= sum;
+    }
+
+    int sample(RandomGenerator rnd) {
+        int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+        return Math.min(cdf.length - 1, i >= 0 ? i : -i - 1);
+    }
+}
@@ -0,0 +1,56 @@
+package ui;
+
+import model.CartLine;
+import service.Cart;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Só desenha o {@link Cart}: não guarda dados próprios e repassa cada
+ * mudança do carrinho como evento da linha afetada.
+ */
+class CartTableModel extends AbstractTableModel implements Cart.Listener {
+    private static final String[] COLUMNS = {"Produto", "Qtd", "Preço Unit.", "Desconto", "Subtotal"};
+
+    private final Cart cart;
+
+    CartTableModel(Cart cart) {
+        this.cart = cart;
+        cart.addListener(this);
+    }
+
+    @Override public int getRowCount()                 { return cart.getLines().size(); }
+    @Override public int getColumnCount()              { return COLUMNS.length; }
+    @Override public String getColumnName(int column)  { return COLUMNS[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return switch (column) {
+            case 0  -> String.class;
+            case 1  -> Integer.class;
+            default -> Money.class;
+        };
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        CartLine line = cart.getLines().get(row);
+        return switch (column) {
+            case 0  -> line.getProductName();
+            case 1  -> line.getQuantity();
+            case 2  -> new Money(line.getUnitPriceCents());
+            case 3  -> new Money(line.getDiscountCents());
+            default -> new Money(line.getTotalCents());
+        };
+    }
+
+    @Override public void lineInserted(int row) { fireTableRowsInserted(row, row); }
+    @Override public void lineUpdated(int row)  { fireTableRowsUpdated(row, row); }
+    @Override public void lineRemoved(int row)  { fireTableRowsDeleted(row, row); }
+    @Override public void cleared()             { fireTableDataChanged(); }
+
+    /** Valor em centavos; ordena como número e é formatado pelo renderer. */
+    record Money(long cents) implements Comparable<Money> {
+        @Override public int compareTo(Money o) { return Long.compare(cents, o.cents); }
+    }
+}
@@ -0,0 +1,106 @@
+package ui;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.time.TimeSeriesCollection;
+import util.SeriesDownsampler;
+
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Gráfico de linha temporal que guarda a série completa e entrega ao JFreeChart
+ * só os pontos necessários para a largura atual (LTTB). Reamostra ao
+ * redimensionar e ao dar zoom, então o custo de desenho segue a largura do
+ * gráfico e não o tamanho da série.
+ */
+public class DownsampledChartPanel extends ChartPanel {
+    private static final int PIXELS_PER_POINT = 2;
+    private static final int DEFAULT_POINTS   = 500;
+
+    private final TimeSeries series;
+    private final ValueAxis  domainAxis;
+
+    private long[]   xs = new long[0];
+    private double[] ys = new double[0];
+    private boolean  resampling;
+
+    public DownsampledChartPanel(String title, String valueLabel, String seriesName) {
+        super(null);
+        series = new TimeSeries(seriesName);
+        JFreeChart chart = ChartFactory.createTimeSeriesChart(
+                title,
+                "",
+                valueLabel,
+                new TimeSeriesCollection(series),
+                false, true, false
+        );
+        setChart(chart);
+        setMouseWheelEnabled(true);
+
+        domainAxis = chart.getXYPlot().getDomainAxis();
+        domainAxis.addChangeListener(e -> resample());
+        addComponentListener(new ComponentAdapter() {
+            @Override public void componentResized(ComponentEvent e) {
+                resample();
+            }
+        });
+    }
+
+    /** Substitui a série completa; as chaves devem vir em ordem crescente. */
+    public void setData(Map<LocalDateTime, Double> data) {
+        long[]   x = new long[data.size()];
+        double[] y = new double[data.size()];
+        ZoneId zone = ZoneId.systemDefault();
+        int i = 0;
+        for (Map.Entry<LocalDateTime, Double> e : data.entrySet()) {
+            x[i] = e.getKey().atZone(zone).toInstant().toEpochMilli();
+            y[i] = e.getValue();
+            i++;
+        }
+        xs = x;
+        ys = y;
+        resample();
+    }
+
+    private void resample() {
+        if (resampling) return;
+        resampling = true;
+        try {
+            int n = xs.length;
+            int from = 0, to = n;
+            if (n > 0 && !domainAxis.isAutoRange()) {
+                // janela visível mais um vizinho de cada lado, para a linha não cortar na borda
+                from = Math.max(0, lowerIndex((long) domainAxis.getLowerBound()) - 1);
+                to   = Math.min(n, lowerIndex((long) Math.ceil(domainAxis.getUpperBound())) + 1);
+            }
+            int width  = getWidth();
+            int target = width > 0 ? Math.max(3, width / PIXELS_PER_POINT) : DEFAULT_POINTS;
+            int[] idx = SeriesDownsampler.lttb(xs, ys, from, to, target);
+
+            series.clear();
+            // mantém os extremos globais para que "restaurar zoom" volte à série inteira
+            if (n > 0 && from > 0) series.add(new FixedMillisecond(xs[0]), ys[0], false);
+            for (int i : idx) {
+                series.add(new FixedMillisecond(xs[i]), ys[i], false);
+            }
+            if (n > 0 && to < n) series.add(new FixedMillisecond(xs[n - 1]), ys[n - 1], false);
+            series.fireSeriesChanged();
+        } finally {
+            resampling = false;
+        }
+    }
+
+    private int lowerIndex(long millis) {
+        int i = Arrays.binarySearch(xs, millis);
+        return i >= 0 ? i : -i - 1;
+    }
+}
@@ -0,0 +1,37 @@
+package ui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR de um travamento da EDT, gravado por {@link EdtWatchdog} quando
+ * o evento que travou termina. A pilha do commit não diz nada (é o fim do
+ * dispatch), então vai desligada; a pilha do bloqueio segue em {@link #stack}.
+ */
+@Name("lojavila.EdtStall")
+@Label("Travamento da EDT")
+@Category({"Loja Vila", "Interface"})
+@Description("Evento da interface que segurou a thread de eventos além do limite")
+@StackTrace(false)
+final class EdtStallEvent extends jdk.jfr.Event {
+    @Label("Painel")
+    String panel;
+
+    @Label("Ação")
+    String action;
+
+    @Label("Origem")
+    @Description("Primeiro método das telas na pilha do bloqueio")
+    String origin;
+
+    @Label("Tempo bloqueado")
+    @Timespan(Timespan.MILLISECONDS)
+    long blocked;
+
+    @Label("Pilha do bloqueio")
+    String stack;
+}
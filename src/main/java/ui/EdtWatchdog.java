@@ -0,0 +1,264 @@
+package ui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.InvocationEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Vigia da thread de eventos (EDT).
+ *
+ * Entra na frente da fila de eventos do AWT e mede quanto tempo cada evento
+ * segura a EDT. Só conta o tempo ocupado: enquanto um diálogo modal espera
+ * o usuário, a EDT está livre atendendo a fila do diálogo. Uma thread de
+ * fundo olha a EDT a cada quarto do limite e, passado
+ * {@code lojavila.edt.travamentoMs} (padrão 200; 0 desliga) no mesmo trecho,
+ * guarda a pilha dela naquele momento, que é onde ela está presa.
+ *
+ * Quando o evento termina, o travamento é atribuído ao painel do componente
+ * que recebeu o evento (botão, tabela, campo) e à ação (qual botão, qual
+ * tecla, invokeLater de quem), com o primeiro método das telas na pilha como
+ * origem; vira um {@link EdtStallEvent} no JFR e entra no acumulado por
+ * origem que a tela de admin mostra.
+ */
+public final class EdtWatchdog extends EventQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(EdtWatchdog.class);
+
+    static final long THRESHOLD_MS = Long.getLong("lojavila.edt.travamentoMs", 200);
+    private static final int STACK_DEPTH   = 40;
+    private static final int MAX_OFFENDERS = 500;
+
+    /** Travamentos acumulados de uma origem; {@code stack} é a do pior deles. */
+    record Offender(String panel, String action, String origin, int count, long totalMs, long maxMs,
+                    LocalDateTime last, String stack) {
+        String key() {
+            return panel + '|' + action + '|' + origin;
+        }
+    }
+
+    /** Um evento em despacho e o seu trecho ocupado mais longo; modais aninham um dentro do outro. */
+    private static final class Dispatch {
+        final AWTEvent event;
+        long longestMs;                 // só a EDT mexe
+        volatile long sampledSegment;
+        volatile StackTraceElement[] stack;
+
+        Dispatch(AWTEvent event) {
+            this.event = event;
+        }
+    }
+
+    private static final Map<String, Offender> OFFENDERS = new HashMap<>();
+    private static boolean installed;
+
+    private volatile Thread edt;
+    private volatile Dispatch active;
+    /** Início do trecho ocupado atual, em nanos; 0 com a EDT esperando evento. */
+    private volatile long busySince;
+
+    private EdtWatchdog() { }
+
+    /** Liga o vigia; chamar uma vez, antes da primeira janela. */
+    public static synchronized void install() {
+        if (THRESHOLD_MS <= 0 || installed) return;
+        installed = true;
+        EdtWatchdog queue = new EdtWatchdog();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+        Thread t = new Thread(queue::watch, "vigia-edt");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    static synchronized boolean isInstalled() {
+        return installed;
+    }
+
+    /** Origens com travamento, do maior tempo total para o menor. */
+    static List<Offender> offenders() {
+        List<Offender> list;
+        synchronized (OFFENDERS) {
+            list = new ArrayList<>(OFFENDERS.values());
+        }
+        list.sort(Comparator.comparingLong(Offender::totalMs).reversed());
+        return list;
+    }
+
+    static void clear() {
+        synchronized (OFFENDERS) {
+            OFFENDERS.clear();
+        }
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long now = System.nanoTime();
+        edt = Thread.currentThread();
+        Dispatch outer = active;
+        closeSegment(now);
+        Dispatch d = new Dispatch(event);
+        active = d;
+        busySince = now;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            closeSegment(end);
+            active = outer;
+            busySince = outer == null ? 0 : end;
+            if (d.longestMs >= THRESHOLD_MS) record(d);
+        }
+    }
+
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        // a EDT (ou o loop de um modal) vai esperar evento: o trecho ocupado acaba aqui
+        if (Thread.currentThread() == edt) {
+            closeSegment(System.nanoTime());
+            busySince = 0;
+        }
+        return super.getNextEvent();
+    }
+
+    private void closeSegment(long now) {
+        Dispatch d = active;
+        long since = busySince;
+        if (d != null && since != 0) d.longestMs = Math.max(d.longestMs, (now - since) / 1_000_000);
+    }
+
+    private void watch() {
+        long period = Math.max(10, THRESHOLD_MS / 4);
+        while (true) {
+            try {
+                Thread.sleep(period);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Thread t = edt;
+            Dispatch d = active;
+            long since = busySince;
+            if (t == null || d == null || since == 0 || d.sampledSegment == since) continue;
+            if ((System.nanoTime() - since) / 1_000_000 < THRESHOLD_MS) continue;
+            d.sampledSegment = since;
+            StackTraceElement[] stack = t.getStackTrace();
+            // a EDT pode ter andado entre a leitura do estado e a captura
+            if (active == d && busySince == since) d.stack = stack;
+        }
+    }
+
+    // --- atribuição ------------------------------------------------------
+
+    private static void record(Dispatch d) {
+        StackTraceElement[] stack = d.stack;
+        String origin = origin(stack);
+        String panel = panelOf(d.event.getSource());
+        if (panel == null) panel = origin.isEmpty() ? "-" : topLevelName(origin.substring(0, origin.indexOf('.')));
+        String action = describe(d.event);
+        String text = format(stack);
+
+        EdtStallEvent jfr = new EdtStallEvent();
+        if (jfr.isEnabled()) {
+            jfr.panel = panel;
+            jfr.action = action;
+            jfr.origin = origin;
+            jfr.blocked = d.longestMs;
+            jfr.stack = text;
+            jfr.commit();
+        }
+
+        LOG.info("EDT travada {} ms: {} / {} ({})", d.longestMs, panel, action, origin.isEmpty() ? "sem pilha" : origin);
+        Offender fresh = new Offender(panel, action, origin, 1, d.longestMs, d.longestMs, LocalDateTime.now(), text);
+        synchronized (OFFENDERS) {
+            Offender old = OFFENDERS.get(fresh.key());
+            if (old == null) {
+                if (OFFENDERS.size() < MAX_OFFENDERS) OFFENDERS.put(fresh.key(), fresh);
+                return;
+            }
+            boolean worse = d.longestMs > old.maxMs() || old.stack().isEmpty();
+            OFFENDERS.put(fresh.key(), new Offender(panel, action, origin, old.count() + 1,
+                    old.totalMs() + d.longestMs, Math.max(old.maxMs(), d.longestMs), fresh.last(),
+                    worse && !text.isEmpty() ? text : old.stack()));
+        }
+    }
+
+    /** Painel (classe deste pacote) que contém o componente, ou null. */
+    private static String panelOf(Object source) {
+        if (!(source instanceof Component c)) return null;
+        for (Component p = c; p != null; p = p.getParent()) {
+            if (p.getClass().getPackageName().equals("ui")) return topLevelName(p.getClass().getName());
+        }
+        return null;
+    }
+
+    private static String describe(AWTEvent event) {
+        Object source = event.getSource();
+        if (event instanceof MouseEvent) {
+            return source instanceof AbstractButton b ? "botão " + label(b) : "clique em " + typeOf(source);
+        }
+        if (event instanceof KeyEvent k) {
+            return "tecla " + KeyEvent.getKeyText(k.getKeyCode()) + " em " + typeOf(source);
+        }
+        if (event instanceof InvocationEvent) {
+            // paramString traz o toString do runnable: timer, SwingWorker ou lambda de uma tela
+            String p = event.paramString();
+            int at = p.indexOf("runnable=");
+            String runnable = at < 0 ? "" : p.substring(at + 9);
+            if (runnable.startsWith("javax.swing.Timer")) return "timer";
+            if (runnable.startsWith("javax.swing.SwingWorker")) return "fim de SwingWorker";
+            if (runnable.startsWith("ui.")) return "invokeLater de " + topLevelName(runnable);
+            return "invokeLater";
+        }
+        return event.getClass().getSimpleName() + " em " + typeOf(source);
+    }
+
+    private static String label(AbstractButton b) {
+        if (b.getText() != null && !b.getText().isBlank()) return "'" + b.getText().strip() + "'";
+        if (b.getToolTipText() != null) return "'" + b.getToolTipText() + "'";
+        return b.getActionCommand() != null ? "'" + b.getActionCommand() + "'" : "(ícone)";
+    }
+
+    /** Primeira classe do Swing/AWT na hierarquia do componente (JTable, JTextField...). */
+    private static String typeOf(Object source) {
+        if (source == null) return "-";
+        Class<?> c = source.getClass();
+        while (c.getSuperclass() != null && !c.getPackageName().startsWith("java")) c = c.getSuperclass();
+        return c.getSimpleName();
+    }
+
+    /** Primeiro método das telas na pilha, fora deste vigia: {@code JSale.lambda$new$3:212}. */
+    private static String origin(StackTraceElement[] stack) {
+        if (stack == null) return "";
+        for (StackTraceElement f : stack) {
+            String cls = f.getClassName();
+            if (!cls.startsWith("ui.") || cls.startsWith("ui.EdtWatchdog")) continue;
+            return cls.substring(3) + "." + f.getMethodName() + (f.getLineNumber() > 0 ? ":" + f.getLineNumber() : "");
+        }
+        return "";
+    }
+
+    private static String format(StackTraceElement[] stack) {
+        if (stack == null) return "";
+        StringJoiner sj = new StringJoiner("\n");
+        for (int i = 0; i < stack.length && i < STACK_DEPTH; i++) sj.add("at " + stack[i]);
+        if (stack.length > STACK_DEPTH) sj.add("... mais " + (stack.length - STACK_DEPTH));
+        return sj.toString();
+    }
+
+    private static String topLevelName(String className) {
+        String name = className.startsWith("ui.") ? className.substring(3) : className;
+        int cut = name.indexOf('$');
+        int at = name.indexOf('@');
+        if (at >= 0 && (cut < 0 || at < cut)) cut = at;
+        return cut < 0 ? name : name.substring(0, cut);
+    }
+}
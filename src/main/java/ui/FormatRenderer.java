@@ -0,0 +1,20 @@
+package ui;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.text.Format;
+
+/** Mostra o valor cru da célula pelo {@link Format} dado, alinhado à direita. */
+class FormatRenderer extends DefaultTableCellRenderer {
+    private final Format format;
+
+    FormatRenderer(Format format) {
+        this.format = format;
+        setHorizontalAlignment(SwingConstants.RIGHT);
+    }
+
+    @Override
+    protected void setValue(Object value) {
+        setText(value == null ? "" : format.format(value));
+    }
+}
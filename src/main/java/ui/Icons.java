@@ -0,0 +1,42 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache de ícones já decodificados e redimensionados. O {@link #preload()}
+ * roda durante o splash, fora da EDT, para a tela de login não pagar o
+ * custo do SCALE_SMOOTH ao abrir.
+ */
+public final class Icons {
+    private static final Map<String, ImageIcon> CACHE = new ConcurrentHashMap<>();
+
+    private Icons() { }
+
+    /** Ícones usados pela tela de login. */
+    public static void preload() {
+        get("/icons/user.png", 40, 40);
+        get("/icons/lock.png", 40, 40);
+        get("/icons/minimize.png", 16, 16);
+        get("/icons/close.png", 16, 16);
+    }
+
+    public static ImageIcon get(String path, int w, int h) {
+        return CACHE.computeIfAbsent(path + "@" + w + "x" + h, k -> load(path, w, h));
+    }
+
+    private static ImageIcon load(String path, int w, int h) {
+        Image src = new ImageIcon(Icons.class.getResource(path))
+                .getImage()
+                .getScaledInstance(w, h, Image.SCALE_SMOOTH);
+        // desenhar numa BufferedImage força o filtro a rodar agora, e não no primeiro paint
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.drawImage(new ImageIcon(src).getImage(), 0, 0, null);
+        g.dispose();
+        return new ImageIcon(img);
+    }
+}
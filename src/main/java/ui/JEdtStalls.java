@@ -0,0 +1,101 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Travamentos da interface medidos por {@link EdtWatchdog}, agrupados por
+ * painel, ação e origem, do maior tempo total para o menor. A pilha do pior
+ * travamento da linha selecionada aparece embaixo. Só admin.
+ */
+public class JEdtStalls extends JPanel {
+    private static final Color BG_COLOR   = new Color(245, 245, 245);
+    private static final Font  TITLE_FONT = new Font("SansSerif", Font.BOLD, 16);
+    private static final Font  TABLE_FONT = new Font("SansSerif", Font.PLAIN, 13);
+    private static final Font  MONO_FONT  = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("dd/MM HH:mm:ss");
+    private static final Duration REFRESH = Duration.ofSeconds(5);
+
+    private final RowTableModel<EdtWatchdog.Offender> model = new RowTableModel<>(EdtWatchdog.Offender::key, List.of(
+            new RowTableModel.Column<>("Painel",      String.class,  EdtWatchdog.Offender::panel),
+            new RowTableModel.Column<>("Ação",        String.class,  EdtWatchdog.Offender::action),
+            new RowTableModel.Column<>("Origem",      String.class,  EdtWatchdog.Offender::origin),
+            new RowTableModel.Column<>("Vezes",       Integer.class, EdtWatchdog.Offender::count),
+            new RowTableModel.Column<>("Máx (ms)",    Long.class,    EdtWatchdog.Offender::maxMs),
+            new RowTableModel.Column<>("Total (ms)",  Long.class,    EdtWatchdog.Offender::totalMs),
+            new RowTableModel.Column<EdtWatchdog.Offender>("Última", String.class, o -> FMT.format(o.last()))
+    ));
+    private final JTable table = new JTable(model);
+    private final JTextArea detail = new JTextArea();
+    private final JLabel lblTitle = new JLabel();
+    private final RefreshScheduler.Job refreshJob;
+
+    public JEdtStalls() {
+        setBackground(BG_COLOR);
+        setLayout(new BorderLayout(0, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JButton btnClear = new JButton("Limpar");
+        JPanel top = new JPanel(new BorderLayout());
+        top.setOpaque(false);
+        lblTitle.setFont(TITLE_FONT);
+        top.add(lblTitle, BorderLayout.CENTER);
+        top.add(btnClear, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
+
+        table.setFont(TABLE_FONT);
+        table.setRowHeight(24);
+        table.getTableHeader().setFont(TABLE_FONT.deriveFont(Font.BOLD));
+        table.setAutoCreateRowSorter(true);
+        table.getRowSorter().setSortKeys(List.of(new RowSorter.SortKey(5, SortOrder.DESCENDING)));
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnModel().getColumn(2).setPreferredWidth(260);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) showDetail();
+        });
+
+        detail.setEditable(false);
+        detail.setFont(MONO_FONT);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), new JScrollPane(detail));
+        split.setResizeWeight(0.6);
+        add(split, BorderLayout.CENTER);
+
+        refreshJob = RefreshScheduler.register(this, "travamentos-edt", REFRESH, EdtWatchdog::offenders, this::show);
+        refreshJob.requestNow();
+        btnClear.addActionListener(e -> {
+            EdtWatchdog.clear();
+            refreshJob.requestNow();
+        });
+    }
+
+    private void show(List<EdtWatchdog.Offender> list) {
+        model.setRows(list);
+        if (!EdtWatchdog.isInstalled()) {
+            lblTitle.setText("Vigia da interface desligado (lojavila.edt.travamentoMs = 0)");
+        } else {
+            int count = list.stream().mapToInt(EdtWatchdog.Offender::count).sum();
+            lblTitle.setText(count + " travamento(s) acima de " + EdtWatchdog.THRESHOLD_MS
+                    + " ms em " + list.size() + " origem(ns)");
+        }
+        showDetail();
+    }
+
+    private void showDetail() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            detail.setText("");
+            return;
+        }
+        EdtWatchdog.Offender o = model.getRow(table.convertRowIndexToModel(row));
+        String text = o.panel() + " / " + o.action() + "\n" + o.count() + " vez(es), pior " + o.maxMs() + " ms\n\n"
+                + (o.stack().isEmpty() ? "(travamento curto demais para a pilha ser capturada)" : o.stack());
+        if (!text.equals(detail.getText())) {
+            detail.setText(text);
+            detail.setCaretPosition(0);
+        }
+    }
+}
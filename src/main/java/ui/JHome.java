@@ -1,11 +1,13 @@
 // src/ui/JHome.java
 package ui;
 
-import dao.ProductDAO;
 import dao.SaleDAO;
+import model.Product;
 import model.ProductSales;
+import model.TicketSummary;
 import model.UserSales;
 import net.miginfocom.swing.MigLayout;
+import service.ProductCatalog;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -13,10 +15,12 @@ import org.jfree.data.category.DefaultCategoryDataset;
 
 import javax.swing.*;
 import java.awt.*;
-import java.sql.SQLException;
 import java.text.NumberFormat;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.TextStyle;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -28,99 +32,50 @@ public class JHome extends JPanel {
     private static final Color ACCENT2    = new Color(244,180,0);
     private static final Color ACCENT3    = new Color(15,157,88);
     private static final Color ACCENT4    = new Color(219,68,55);
+    private static final Color STALE      = new Color(230,81,0);
     private static final Font  CARD_VAL   = new Font("SansSerif",Font.BOLD,24);
     private static final Font  CARD_LBL   = new Font("SansSerif",Font.PLAIN,12);
 
-    private final ProductDAO productDAO = new ProductDAO();
     private final SaleDAO    saleDAO    = new SaleDAO();
     private final NumberFormat fmt      = NumberFormat.getCurrencyInstance(new Locale("pt","BR"));
 
+    private static final Duration REFRESH = Duration.ofSeconds(Integer.getInteger("lojavila.painel.atualizacaoSegundos", 30));
+
+    private final JLabel lblStale = new JLabel();
+    private final DashCard cardProdutos = new DashCard("Total Produtos",   ACCENT1);
+    private final DashCard cardEstoque  = new DashCard("Valor Estoque",    ACCENT2);
+    private final DashCard cardReceita  = new DashCard("Receita Total",    ACCENT3);
+    private final DashCard cardHoje     = new DashCard("Vendas Hoje",      ACCENT4);
+    private final DashCard cardMedia    = new DashCard("Média 7 dias",     ACCENT1);
+    private final DashCard cardTickets  = new DashCard("Tickets Hoje",     ACCENT2);
+    private final DashCard cardTicketMd = new DashCard("Ticket Médio",     ACCENT3);
+    private final DashCard cardItens    = new DashCard("Itens por Ticket", ACCENT4);
+    // os gráficos ficam e só os dados mudam: zoom e arraste do usuário sobrevivem à atualização
+    private final DownsampledChartPanel chart7 = new DownsampledChartPanel("Vendas Últimos 7 Dias", "R$", "Vendas");
+    private final DefaultCategoryDataset dsTop = new DefaultCategoryDataset();
+    private final RefreshScheduler.Job refreshJob;
+
+    /** Números e séries do painel, lidos fora da EDT. */
+    private record Data(int totalProd, double valorEstoque, double receitaTotal, double vendaHoje,
+                        double mediaDiaria, TicketSummary ticketsHoje,
+                        Map<LocalDateTime, Double> hourly, List<ProductSales> top5, boolean stale) { }
+
     public JHome() {
         setBackground(BG_COLOR);
+        lblStale.setForeground(STALE);
         setLayout(new MigLayout(
                 "wrap 2, ins 10, gap 10",
                 "[grow][grow]",
-                "[60!][60!][10][200!][10][200!]"
+                "[][60!][60!][60!][60!][200!][200!]"
         ));
-        rebuildDashboard();
-    }
-
-    public void reloadData() {
-        removeAll();
-        rebuildDashboard();
-        revalidate();
-        repaint();
-    }
 
-    private void rebuildDashboard() {
-        int totalProd = 0;
-        double valorEstoque = 0, receitaTotal = 0, vendaHoje = 0, mediaDiaria = 0;
-
-        try {
-            // dados dos produtos
-            var prods = productDAO.findAll();
-            totalProd = prods.size();
-            valorEstoque = prods.stream()
-                    .mapToDouble(p -> p.getPrice() * p.getQuantity())
-                    .sum();
-
-            // receita total por usuário
-            List<UserSales> byUser = saleDAO.findSalesByUser();
-            receitaTotal = byUser.stream()
-                    .mapToDouble(UserSales::getTotalSold)
-                    .sum();
-
-            // vendas por dia últimos 7 dias
-            Map<LocalDate, Double> daily7 = saleDAO.findSalesByDay(7);
-            LocalDate today = LocalDate.now();
-            vendaHoje   = daily7.getOrDefault(today, 0.0);
-            mediaDiaria = daily7.values().stream()
-                    .mapToDouble(d -> d)
-                    .average()
-                    .orElse(0.0);
-
-        } catch (SQLException ex) {
-            JOptionPane.showMessageDialog(this,
-                    "Erro ao recarregar dashboard: " + ex.getMessage(),
-                    "Erro", JOptionPane.ERROR_MESSAGE);
+        add(lblStale, "spanx");
+        for (DashCard card : List.of(cardProdutos, cardEstoque, cardReceita, cardHoje,
+                cardMedia, cardTickets, cardTicketMd, cardItens)) {
+            add(card, "growx");
         }
-
-        // cards
-        add(new DashCard("Total Produtos", String.valueOf(totalProd), ACCENT1), "growx");
-        add(new DashCard("Valor Estoque",  fmt.format(valorEstoque),       ACCENT2), "growx");
-        add(new DashCard("Receita Total",  fmt.format(receitaTotal),       ACCENT3), "growx");
-        add(new DashCard("Vendas Hoje",    fmt.format(vendaHoje),          ACCENT4), "growx");
-        add(new DashCard("Média 7 dias",   fmt.format(mediaDiaria),        ACCENT1),
-                "spanx, growx");
-
-        // gráfico vendas 7 dias
-        DefaultCategoryDataset ds7 = new DefaultCategoryDataset();
-        try {
-            Map<LocalDate, Double> daily7 = saleDAO.findSalesByDay(7);
-            LocalDate today = LocalDate.now();
-            for (int i = 6; i >= 0; i--) {
-                LocalDate d = today.minusDays(i);
-                double v = daily7.getOrDefault(d, 0.0);
-                String label = d.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.getDefault());
-                ds7.addValue(v, "Vendas", label);
-            }
-        } catch (SQLException ignored) { }
-        JFreeChart chart7 = ChartFactory.createLineChart(
-                "Vendas Últimos 7 Dias",
-                "",
-                "R$",
-                ds7
-        );
-        add(new ChartPanel(chart7), "spanx, grow, h 200!");
-
-        // gráfico top 5 produtos
-        DefaultCategoryDataset dsTop = new DefaultCategoryDataset();
-        try {
-            List<ProductSales> top5 = saleDAO.findTopSelling(5);
-            for (ProductSales ps : top5) {
-                dsTop.addValue(ps.getTotalQuantity(), "Quantidade", ps.getProductName());
-            }
-        } catch (SQLException ignored) { }
+        // gráfico vendas 7 dias (buckets por hora, reamostrado pela largura do painel)
+        add(chart7, "spanx, grow, h 200!");
         JFreeChart chartTop = ChartFactory.createBarChart(
                 "Top 5 Produtos",
                 "",
@@ -129,15 +84,91 @@ public class JHome extends JPanel {
         );
         add(new ChartPanel(chartTop), "spanx, growx, h 200!");
 
+        // começa vazio; a primeira carga roda quando o painel aparece
+        show(new Data(0, 0, 0, 0, 0, new TicketSummary(null, 0, 0, 0), Map.of(), List.of(), false));
+        refreshJob = RefreshScheduler.register(this, "painel", REFRESH, this::load, this::show);
+        refreshJob.requestNow();
+    }
+
+    /** Pede uma atualização fora da EDT (vendas, importação...). */
+    public void reloadData() {
+        refreshJob.requestNow();
+    }
+
+    /** As consultas são independentes: rodam juntas e são canceladas juntas. */
+    private Data load(LoadScope scope) throws Exception {
+        var byUser = scope.fork(saleDAO::findSalesByUser);
+        var daily7 = scope.fork(() -> saleDAO.findSalesByDay(7));
+        var hourly = scope.fork(() -> saleDAO.findSalesByPeriod(Duration.ofDays(7)));
+        var top5   = scope.fork(() -> saleDAO.findTopSelling(5));
+        var ticket = scope.fork(() -> saleDAO.findTicketSummary(LocalDate.now().atStartOfDay()));
+
+        // dados dos produtos: do catálogo em memória, sem consulta
+        List<Product> prods = ProductCatalog.getInstance().getProducts();
+        double valorEstoque = prods.stream()
+                .mapToDouble(p -> p.getPrice() * p.getQuantity())
+                .sum();
+
+        scope.join();
+
+        // receita total por usuário
+        double receitaTotal = byUser.get().stream()
+                .mapToDouble(UserSales::getTotalSold)
+                .sum();
+
+        // vendas por dia últimos 7 dias
+        Map<LocalDate, Double> days = daily7.get();
+        double vendaHoje   = days.getOrDefault(LocalDate.now(), 0.0);
+        double mediaDiaria = days.values().stream()
+                .mapToDouble(d -> d)
+                .average()
+                .orElse(0.0);
+
+        return new Data(prods.size(), valorEstoque, receitaTotal, vendaHoje, mediaDiaria, ticket.get(),
+                fillHourlyGaps(hourly.get(), Duration.ofDays(7)), top5.get(), saleDAO.isServingCached());
+    }
+
+    private void show(Data d) {
+        // circuito dos relatórios aberto: os números abaixo são da última leitura boa
+        lblStale.setText(d.stale() ? "Banco sem resposta: vendas e tickets da última leitura bem-sucedida" : "");
+
+        cardProdutos.setValue(String.valueOf(d.totalProd()));
+        cardEstoque.setValue(fmt.format(d.valorEstoque()));
+        cardReceita.setValue(fmt.format(d.receitaTotal()));
+        cardHoje.setValue(fmt.format(d.vendaHoje()));
+        cardMedia.setValue(fmt.format(d.mediaDiaria()));
+        cardTickets.setValue(String.valueOf(d.ticketsHoje().getTickets()));
+        cardTicketMd.setValue(fmt.format(d.ticketsHoje().getAverageTicket()));
+        cardItens.setValue(String.format(new Locale("pt","BR"), "%.1f", d.ticketsHoje().getItemsPerTicket()));
+
+        chart7.setData(d.hourly());
+
+        // top 5: troca os valores num evento só, sem recriar o gráfico
+        dsTop.setNotify(false);
+        dsTop.clear();
+        for (ProductSales ps : d.top5()) {
+            dsTop.addValue(ps.getTotalQuantity(), "Quantidade", ps.getProductName());
+        }
+        dsTop.setNotify(true);
+    }
+
+    private static Map<LocalDateTime, Double> fillHourlyGaps(Map<LocalDateTime, Double> byHour, Duration range) {
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Map<LocalDateTime, Double> filled = new LinkedHashMap<>();
+        for (LocalDateTime h = end.minus(range); !h.isAfter(end); h = h.plusHours(1)) {
+            filled.put(h, byHour.getOrDefault(h, 0.0));
+        }
+        return filled;
     }
 
     private static class DashCard extends JPanel {
-        DashCard(String label, String value, Color color) {
+        private final JLabel v = new JLabel("", SwingConstants.CENTER);
+
+        DashCard(String label, Color color) {
             setLayout(new BorderLayout());
             setBackground(Color.WHITE);
             setBorder(BorderFactory.createLineBorder(color, 2));
             setPreferredSize(new Dimension(0, 60));
-            JLabel v = new JLabel(value, SwingConstants.CENTER);
             v.setFont(CARD_VAL);
             v.setForeground(color);
             add(v, BorderLayout.CENTER);
@@ -146,5 +177,9 @@ public class JHome extends JPanel {
             l.setForeground(TEXT_COLOR);
             add(l, BorderLayout.SOUTH);
         }
+
+        void setValue(String value) {
+            v.setText(value);
+        }
     }
 }
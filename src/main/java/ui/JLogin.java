@@ -33,10 +33,10 @@ public class JLogin extends JFrame {
     public JLogin() {
         FlatLightLaf.setup();
 
-        userIcon = loadIcon("/icons/user.png", FIELD_HEIGHT, FIELD_HEIGHT);
-        passIcon = loadIcon("/icons/lock.png", FIELD_HEIGHT, FIELD_HEIGHT);
-        icoMin   = loadIcon("/icons/minimize.png", 16, 16);
-        icoClose = loadIcon("/icons/close.png", 16, 16);
+        userIcon = Icons.get("/icons/user.png", FIELD_HEIGHT, FIELD_HEIGHT);
+        passIcon = Icons.get("/icons/lock.png", FIELD_HEIGHT, FIELD_HEIGHT);
+        icoMin   = Icons.get("/icons/minimize.png", 16, 16);
+        icoClose = Icons.get("/icons/close.png", 16, 16);
 
         setUndecorated(true);
         setBackground(new Color(0,0,0,0));
@@ -167,13 +167,6 @@ public class JLogin extends JFrame {
         area.addMouseMotionListener(ma);
     }
 
-    private ImageIcon loadIcon(String path,int w,int h){
-        Image img = new ImageIcon(getClass().getResource(path))
-                .getImage()
-                .getScaledInstance(w,h,Image.SCALE_SMOOTH);
-        return new ImageIcon(img);
-    }
-
     private static class BottomRoundedPanel extends JPanel {
         private final int    radius;
         private final Color  bg;
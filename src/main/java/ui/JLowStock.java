@@ -0,0 +1,69 @@
+package ui;
+
+import model.Product;
+import service.StockAlerts;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+/** Lista dos produtos no estoque mínimo ou abaixo, mantida por {@link StockAlerts}. */
+public class JLowStock extends JPanel implements StockAlerts.Listener {
+    private static final Color BG_COLOR   = new Color(245, 245, 245);
+    private static final Font  TITLE_FONT = new Font("SansSerif", Font.BOLD, 16);
+    private static final Font  TABLE_FONT = new Font("SansSerif", Font.PLAIN, 13);
+
+    private final RowTableModel<Product> model = new RowTableModel<>(Product::getId, List.of(
+            new RowTableModel.Column<>("ID",         Integer.class, Product::getId),
+            new RowTableModel.Column<>("Produto",    String.class,  Product::getName),
+            new RowTableModel.Column<>("SKU",        String.class,  Product::getSku),
+            new RowTableModel.Column<>("Quantidade", Integer.class, Product::getQuantity),
+            new RowTableModel.Column<>("Mínimo",     Integer.class, Product::getReorderLevel),
+            new RowTableModel.Column<Product>("Falta", Integer.class, p -> p.getReorderLevel() - p.getQuantity())
+    ));
+    private final JLabel lblTitle = new JLabel();
+
+    public JLowStock() {
+        setBackground(BG_COLOR);
+        setLayout(new BorderLayout(0, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        lblTitle.setFont(TITLE_FONT);
+        add(lblTitle, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.setFont(TABLE_FONT);
+        table.setRowHeight(24);
+        table.getTableHeader().setFont(TABLE_FONT.deriveFont(Font.BOLD));
+        table.setAutoCreateRowSorter(true);
+        // maior falta primeiro, como a lista vem de StockAlerts
+        table.getRowSorter().setSortKeys(List.of(new RowSorter.SortKey(5, SortOrder.DESCENDING)));
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        StockAlerts.getInstance().addListener(this);
+        refresh();
+    }
+
+    @Override
+    public void removeNotify() {
+        StockAlerts.getInstance().removeListener(this);
+        super.removeNotify();
+    }
+
+    @Override
+    public void crossed(Product product, boolean low, int lowCount) {
+        refresh();
+    }
+
+    private void refresh() {
+        List<Product> list = StockAlerts.getInstance().getLowStock();
+        model.setRows(list);
+        lblTitle.setText(list.isEmpty()
+                ? "Nenhum produto abaixo do estoque mínimo"
+                : list.size() + " produto(s) no estoque mínimo ou abaixo");
+    }
+}
@@ -2,15 +2,31 @@ package ui;
 
 import com.formdev.flatlaf.FlatLightLaf;
 import model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.ProductCatalog;
+import service.StockAlerts;
+import util.AuditLog;
+import util.StartupMetrics;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class JMain extends JFrame {
+    private static final Logger LOG = LoggerFactory.getLogger(JMain.class);
     private static final Color BG_COLOR   = new Color(245,245,245);
     private static final Color NAV_BG     = new Color(33,33,33);
     private static final Color NAV_ACTIVE = new Color(66,133,244);
     private static final Color NAV_HOVER  = new Color(55,55,55);
+    private static final Color NAV_ALERT  = new Color(211,47,47);
+    private static final long  CATALOG_REFRESH_SECONDS = 60;
 
     private static final Font NAV_FONT = new Font("SansSerif",Font.PLAIN,14);
 
@@ -19,12 +35,26 @@ public class JMain extends JFrame {
     private final User       currentUser;
     private final JPanel     cardsPanel;
     private final CardLayout cardLayout = new CardLayout();
-    private final JHome      homePanel;
-    private final JProduct   productPanel;
+    private final Map<String, Supplier<JComponent>> cardFactories = new LinkedHashMap<>();
+    private final Map<String, JComponent>           cards         = new HashMap<>();
+    private String currentKey = "";
+
+    // painéis criados na primeira navegação
+    private JHome    homePanel;
+    private JProduct productPanel;
+
+    private JButton btnAlerts;
+    private final StockAlerts.Listener alertBadge = (p, low, count) -> updateAlertBadge(count);
+    private final ScheduledExecutorService catalogRefresh = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "catalogo-refresh");
+        t.setDaemon(true);
+        return t;
+    });
 
     public JMain(User user) {
         instance = this;
         this.currentUser = user;
+        AuditLog.setUser(user.getUsername());
         FlatLightLaf.setup();
 
         setTitle("Loja Vila");
@@ -32,27 +62,34 @@ public class JMain extends JFrame {
         setSize(1100, 680);
         setLocationRelativeTo(null);
 
-        homePanel     = new JHome();
-        productPanel  = new JProduct();
-        JSale salesPanel   = new JSale(currentUser, productPanel);
-        JReport reportPanel = new JReport();
-        JManage managePanel = "ADMIN".equalsIgnoreCase(currentUser.getRole())
-                ? new JManage()
-                : null;
+        cardFactories.put("HOME",     () -> homePanel = new JHome());
+        cardFactories.put("PRODUCTS", () -> productPanel = new JProduct());
+        cardFactories.put("SALES",    () -> new JSale(currentUser, this::catalogChanged));
+        cardFactories.put("REPORTS",  JReport::new);
+        cardFactories.put("ALERTS",   JLowStock::new);
+        if ("ADMIN".equalsIgnoreCase(currentUser.getRole())) {
+            cardFactories.put("USERS", JManage::new);
+            cardFactories.put("QUERIES", JSlowQueries::new);
+            cardFactories.put("STALLS",  JEdtStalls::new);
+        }
 
         cardsPanel = new JPanel(cardLayout);
         cardsPanel.setBackground(BG_COLOR);
-        cardsPanel.add(homePanel,       "HOME");
-        cardsPanel.add(productPanel,    "PRODUCTS");
-        cardsPanel.add(salesPanel,      "SALES");
-        cardsPanel.add(reportPanel,     "REPORTS");
-        if (managePanel != null) {
-            cardsPanel.add(managePanel, "USERS");
-        }
 
         initUI();
+        StockAlerts.getInstance().addListener(alertBadge);
+        catalogRefresh.execute(() -> StockAlerts.getInstance().start());
+        // vendas de outros caixas chegam pelo delta do catálogo, que alimenta os alertas
+        catalogRefresh.scheduleWithFixedDelay(() -> {
+            try {
+                ProductCatalog.getInstance().reload();
+            } catch (RuntimeException ex) {
+                LOG.debug("Atualização do catálogo falhou: {}", ex.toString());
+            }
+        }, CATALOG_REFRESH_SECONDS, CATALOG_REFRESH_SECONDS, TimeUnit.SECONDS);
         showCard("HOME");
         setVisible(true);
+        StartupMetrics.mark("janela principal visível");
     }
 
     private void initUI() {
@@ -70,9 +107,15 @@ public class JMain extends JFrame {
         nav.add(btnSales);
         nav.add(btnReport);
 
+        btnAlerts = makeNav("Estoque baixo", () -> showCard("ALERTS"));
+        nav.add(btnAlerts);
+        updateAlertBadge(StockAlerts.getInstance().getLowCount());
+
         if ("ADMIN".equalsIgnoreCase(currentUser.getRole())) {
             JButton btnUsers = makeNav("Usuários", () -> showCard("USERS"));
             nav.add(btnUsers);
+            nav.add(makeNav("Consultas lentas", () -> showCard("QUERIES")));
+            nav.add(makeNav("Travamentos", () -> showCard("STALLS")));
         }
 
         nav.add(Box.createVerticalGlue());
@@ -98,8 +141,9 @@ public class JMain extends JFrame {
 
         b.addActionListener(e -> {
             setActiveNav(b);
+            boolean homeExisted = homePanel != null;
             action.run();
-            if ("HOME".equals(currentKey())) {
+            if ("HOME".equals(currentKey) && homeExisted) {
                 homePanel.reloadData();
             }
         });
@@ -108,7 +152,8 @@ public class JMain extends JFrame {
                 if (b != activeNav) b.setBackground(NAV_HOVER);
             }
             @Override public void mouseExited(java.awt.event.MouseEvent e){
-                if (b != activeNav) b.setBackground(NAV_BG);
+                if (b == btnAlerts) updateAlertBadge(StockAlerts.getInstance().getLowCount());
+                else if (b != activeNav) b.setBackground(NAV_BG);
             }
         });
         return b;
@@ -119,27 +164,41 @@ public class JMain extends JFrame {
         if (activeNav != null) activeNav.setBackground(NAV_BG);
         activeNav = b;
         activeNav.setBackground(NAV_ACTIVE);
+        if (btnAlerts != null) updateAlertBadge(StockAlerts.getInstance().getLowCount());
+    }
+
+    /** Contador no botão de navegação; vermelho enquanto houver produto em alerta. */
+    private void updateAlertBadge(int count) {
+        btnAlerts.setText(count == 0 ? "Estoque baixo" : "Estoque baixo (" + count + ")");
+        if (btnAlerts != activeNav) btnAlerts.setBackground(count == 0 ? NAV_BG : NAV_ALERT);
     }
 
     private void showCard(String key) {
+        if (!cards.containsKey(key)) {
+            long t0 = System.nanoTime();
+            JComponent card = cardFactories.get(key).get();
+            cards.put(key, card);
+            cardsPanel.add(card, key);
+            StartupMetrics.took("painel " + key, t0);
+        }
         cardLayout.show(cardsPanel, key);
+        currentKey = key;
     }
 
-    private String currentKey() {
-        for (Component c : cardsPanel.getComponents()) {
-            if (c.isVisible()) {
-                if (c == homePanel)      return "HOME";
-                if (c == productPanel)   return "PRODUCTS";
-                if (c instanceof JSale)   return "SALES";
-                if (c instanceof JReport) return "REPORTS";
-                if (c instanceof JManage) return "USERS";
-            }
-        }
-        return "";
+    /** Chamado após uma venda: atualiza a tela de produtos, se já foi aberta. */
+    private void catalogChanged() {
+        if (productPanel != null) productPanel.loadTableData();
     }
 
     public static void refreshDashboard() {
-        if (instance != null) instance.homePanel.reloadData();
+        if (instance != null && instance.homePanel != null) instance.homePanel.reloadData();
+    }
+
+    @Override
+    public void dispose() {
+        StockAlerts.getInstance().removeListener(alertBadge);
+        catalogRefresh.shutdownNow();
+        super.dispose();
     }
 
     private void doLogout() {
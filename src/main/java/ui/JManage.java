@@ -7,7 +7,6 @@ import net.miginfocom.swing.MigLayout;
 import org.mindrot.jbcrypt.BCrypt;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.SQLException;
 import java.util.List;
@@ -21,9 +20,11 @@ public class JManage extends JPanel {
 
     private final UserDAO userDAO = new UserDAO();
 
-    private final DefaultTableModel tableModel = new DefaultTableModel(
-            new Object[]{"ID", "Usuário", "Perfil"}, 0
-    );
+    private final RowTableModel<User> tableModel = new RowTableModel<>(User::getId, List.of(
+            new RowTableModel.Column<>("ID",      Integer.class, User::getId),
+            new RowTableModel.Column<>("Usuário", String.class,  User::getUsername),
+            new RowTableModel.Column<>("Perfil",  String.class,  User::getRole)
+    ));
     private final JTable table = new JTable(tableModel);
 
     private final JTextField       tfUsername = new JTextField();
@@ -97,14 +98,8 @@ public class JManage extends JPanel {
     }
 
     private void loadUserData() {
-        tableModel.setRowCount(0);
         try {
-            List<User> users = userDAO.findAll();
-            for (User u : users) {
-                tableModel.addRow(new Object[]{
-                        u.getId(), u.getUsername(), u.getRole()
-                });
-            }
+            tableModel.setRows(userDAO.findAll());
         } catch (SQLException ex) {
             showError("Erro ao carregar usuários: " + ex.getMessage());
         }
@@ -113,9 +108,9 @@ public class JManage extends JPanel {
     private void attachListeners() {
         table.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && table.getSelectedRow() >= 0) {
-                int r = table.getSelectedRow();
-                tfUsername.setText((String) tableModel.getValueAt(r,1));
-                cbRole.setSelectedItem((String) tableModel.getValueAt(r,2));
+                User u = tableModel.getRow(table.getSelectedRow());
+                tfUsername.setText(u.getUsername());
+                cbRole.setSelectedItem(u.getRole());
                 pfPassword.setText("");
             }
         });
@@ -151,7 +146,7 @@ public class JManage extends JPanel {
         btnEdit.addActionListener(e -> {
             int r = table.getSelectedRow();
             if (r < 0) return;
-            Integer id = (Integer) tableModel.getValueAt(r,0);
+            Integer id = tableModel.getRow(r).getId();
             String user = tfUsername.getText().trim();
             char[] pw = pfPassword.getPassword();
             String role = (String) cbRole.getSelectedItem();
@@ -181,7 +176,7 @@ public class JManage extends JPanel {
             if (JOptionPane.showConfirmDialog(this,
                     "Excluir usuário selecionado?", "Confirmar",
                     JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) return;
-            Integer id = (Integer) tableModel.getValueAt(r,0);
+            Integer id = tableModel.getRow(r).getId();
             try {
                 userDAO.delete(id);
                 loadUserData();
@@ -4,12 +4,15 @@ import com.formdev.flatlaf.FlatLightLaf;
 import dao.ProductDAO;
 import model.Product;
 import net.miginfocom.swing.MigLayout;
+import service.ProductCatalog;
+import service.ProductImportService;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.table.*;
 import java.awt.*;
+import java.nio.file.Path;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
@@ -23,21 +26,32 @@ public class JProduct extends JPanel {
     private final ProductDAO dao = new ProductDAO();
     private final NumberFormat fmt = NumberFormat.getNumberInstance(new Locale("pt", "BR"));
 
-    private final DefaultTableModel tableModel = new DefaultTableModel(
-            new Object[]{"ID", "Nome", "Preço", "Quantidade"}, 0
-    );
+    private final RowTableModel<Product> tableModel = new RowTableModel<>(Product::getId, List.of(
+            new RowTableModel.Column<>("ID",         Integer.class, Product::getId),
+            new RowTableModel.Column<>("Nome",       String.class,  Product::getName),
+            new RowTableModel.Column<>("Preço",      Double.class,  Product::getPrice),
+            new RowTableModel.Column<>("Quantidade", Integer.class, Product::getQuantity),
+            new RowTableModel.Column<>("SKU",        String.class,  Product::getSku),
+            new RowTableModel.Column<>("Mínimo",     Integer.class, Product::getReorderLevel)
+    ));
     private final JTable table = new JTable(tableModel);
     private final TableRowSorter<TableModel> sorter = new TableRowSorter<>(tableModel);
 
     private final JTextField tfName   = new JTextField();
     private final JTextField tfPrice  = new JTextField();
+    private final JTextField tfSku    = new JTextField();
     private final JSpinner spQuantity = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
+    private final JSpinner spReorder  = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
+    /** Quantidade que o formulário carregou do produto selecionado; a edição lança só a diferença para ela. */
+    private int loadedQuantity;
 
     private final JButton btnNew    = makeButton("Novo");
     private final JButton btnSave   = makeButton("Salvar");
     private final JButton btnEdit   = makeButton("Editar");
     private final JButton btnDelete = makeButton("Excluir");
     private final JButton btnClear  = makeButton("Limpar");
+    private final JButton btnImport = makeButton("Importar CSV");
+    private final JButton btnLedger = makeButton("Movimentos");
 
     private final JLabel statusBar = new JLabel("Pronto");
 
@@ -53,7 +67,7 @@ public class JProduct extends JPanel {
         initTable();
         initForm();
         initStatus();
-        loadTableData();
+        showProducts(ProductCatalog.getInstance().getProducts());
         attachListeners();
     }
 
@@ -84,12 +98,13 @@ public class JProduct extends JPanel {
         table.setFont(LABEL_FONT);
         table.setRowHeight(24);
         table.setRowSorter(sorter);
+        table.setDefaultRenderer(Double.class, new FormatRenderer(fmt));
         add(new JScrollPane(table), BorderLayout.CENTER);
     }
 
     private void initForm() {
         JPanel f = new JPanel(new MigLayout("insets 0, gap 8",
-                "[right][grow,fill][pref!]", "[]8[]8[]8[]"));
+                "[right][grow,fill][pref!]", "[]8[]8[]8[]8[]8[]8[]"));
         f.setOpaque(false);
         f.add(new JLabel("Nome:"),       "cell 0 0");
         f.add(tfName,                    "cell 1 0 2 1");
@@ -97,12 +112,21 @@ public class JProduct extends JPanel {
         f.add(tfPrice,                   "cell 1 1 2 1");
         f.add(new JLabel("Quantidade:"),"cell 0 2");
         spQuantity.setFont(LABEL_FONT);
+        spQuantity.setToolTipText("Ao editar, só a mudança feita neste campo é lançada como ajuste de estoque");
         f.add(spQuantity,                "cell 1 2");
-        f.add(btnClear,  "cell 1 3, split 5");
+        f.add(new JLabel("SKU/EAN:"),    "cell 0 3");
+        f.add(tfSku,                     "cell 1 3 2 1");
+        f.add(new JLabel("Estoque mín.:"),"cell 0 4");
+        spReorder.setFont(LABEL_FONT);
+        spReorder.setToolTipText("Alerta quando a quantidade chegar a este valor (0 = sem alerta)");
+        f.add(spReorder,                 "cell 1 4");
+        f.add(btnClear,  "cell 1 5, split 5");
         f.add(btnNew);
         f.add(btnSave);
         f.add(btnEdit);
         f.add(btnDelete);
+        f.add(btnImport, "cell 1 6, split 2");
+        f.add(btnLedger);
         add(f, BorderLayout.EAST);
     }
 
@@ -123,28 +147,24 @@ public class JProduct extends JPanel {
     }
 
     public void loadTableData() {
-        SwingUtilities.invokeLater(() -> {
-            tableModel.setRowCount(0);
-            List<Product> list = dao.findAll();
-            for (Product p : list) {
-                tableModel.addRow(new Object[]{
-                        p.getId(),
-                        p.getName(),
-                        fmt.format(p.getPrice()),
-                        p.getQuantity()
-                });
-            }
-            statusBar.setText("Carregados " + list.size() + " produtos");
-        });
+        SwingUtilities.invokeLater(() -> showProducts(ProductCatalog.getInstance().reload()));
+    }
+
+    private void showProducts(List<Product> list) {
+        tableModel.setRows(list);
+        statusBar.setText("Carregados " + list.size() + " produtos");
     }
 
     private void attachListeners() {
         table.getSelectionModel().addListSelectionListener(e->{
             if (!e.getValueIsAdjusting() && table.getSelectedRow()>=0) {
-                int r = table.convertRowIndexToModel(table.getSelectedRow());
-                tfName.setText((String)tableModel.getValueAt(r,1));
-                tfPrice.setText((String)tableModel.getValueAt(r,2));
-                spQuantity.setValue(tableModel.getValueAt(r,3));
+                Product p = tableModel.getRow(table.convertRowIndexToModel(table.getSelectedRow()));
+                tfName.setText(p.getName());
+                tfPrice.setText(fmt.format(p.getPrice()));
+                spQuantity.setValue(p.getQuantity());
+                loadedQuantity = p.getQuantity();
+                tfSku.setText(p.getSku());
+                spReorder.setValue(p.getReorderLevel());
             }
         });
 
@@ -166,8 +186,10 @@ public class JProduct extends JPanel {
                         .replace(",", ".");
                 double price = Double.parseDouble(raw);
                 int qty = (int) spQuantity.getValue();
+                String sku = readSku(null);
 
-                Product p = new Product(null, name, price, qty);
+                Product p = new Product(null, name, price, qty, sku);
+                p.setReorderLevel((int) spReorder.getValue());
                 dao.save(p);
                 loadTableData();
                 clearForm();
@@ -186,7 +208,7 @@ public class JProduct extends JPanel {
             if (sel < 0) return;
             try {
                 int r = table.convertRowIndexToModel(sel);
-                Integer id = (Integer) tableModel.getValueAt(r, 0);
+                Integer id = tableModel.getRow(r).getId();
                 String name = tfName.getText().trim();
                 if (name.isEmpty()) throw new IllegalArgumentException("Nome vazio");
 
@@ -202,9 +224,11 @@ public class JProduct extends JPanel {
                         .replace(",", ".");
                 double price = Double.parseDouble(raw);
                 int qty = (int) spQuantity.getValue();
+                String sku = readSku(id);
 
-                Product p = new Product(id, name, price, qty);
-                dao.update(p);
+                Product p = new Product(id, name, price, qty, sku);
+                p.setReorderLevel((int) spReorder.getValue());
+                dao.update(p, qty - loadedQuantity);
                 loadTableData();
                 clearForm();
                 statusBar.setText("Atualizado ID=" + id);
@@ -225,7 +249,7 @@ public class JProduct extends JPanel {
                     JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) return;
 
             int r = table.convertRowIndexToModel(sel);
-            Integer id = (Integer) tableModel.getValueAt(r, 0);
+            Integer id = tableModel.getRow(r).getId();
             try {
                 dao.delete(id);
                 loadTableData();
@@ -244,13 +268,90 @@ public class JProduct extends JPanel {
         });
 
         btnClear.addActionListener(e-> clearForm());
+
+        btnImport.addActionListener(e-> importCsv());
+
+        btnLedger.addActionListener(e-> {
+            int sel = table.getSelectedRow();
+            if (sel < 0) {
+                statusBar.setText("Selecione um produto para ver os movimentos");
+                return;
+            }
+            Product p = tableModel.getRow(table.convertRowIndexToModel(sel));
+            new JStockLedger(this, p, this::loadTableData).setVisible(true);
+        });
+    }
+
+    private void importCsv() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Importar CSV de produtos");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+        Path rejects = file.resolveSibling(file.getFileName() + ".rejeitados.csv");
+
+        Object[] options = {"Importar", "Simular", "Cancelar"};
+        int choice = JOptionPane.showOptionDialog(this,
+                "Importar " + file.getFileName() + "?\nLinhas inválidas vão para " + rejects.getFileName(),
+                "Importação", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null, options, options[1]);
+        if (choice != 0 && choice != 1) return;
+        boolean dryRun = choice == 1;
+
+        btnImport.setEnabled(false);
+        new SwingWorker<ProductImportService.Result, String>() {
+            @Override protected ProductImportService.Result doInBackground() throws Exception {
+                return new ProductImportService().importCsv(file, rejects, dryRun,
+                        (read, ins, upd, rej) -> publish(String.format(
+                                "Importando... %d lidos, %d novos, %d atualizados, %d rejeitados",
+                                read, ins, upd, rej)));
+            }
+            @Override protected void process(List<String> chunks) {
+                statusBar.setText(chunks.get(chunks.size() - 1));
+            }
+            @Override protected void done() {
+                btnImport.setEnabled(true);
+                try {
+                    ProductImportService.Result r = get();
+                    statusBar.setText(r.toString());
+                    JOptionPane.showMessageDialog(JProduct.this, r.toString(),
+                            "Importação", JOptionPane.INFORMATION_MESSAGE);
+                    if (!dryRun) {
+                        loadTableData();
+                        JMain.refreshDashboard();
+                    }
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showError("Falha na importação: " + cause.getMessage());
+                    // blocos confirmados antes da falha continuam no banco
+                    if (!dryRun) {
+                        loadTableData();
+                        JMain.refreshDashboard();
+                    }
+                }
+            }
+        }.execute();
+    }
+
+    /** SKU do formulário (null se vazio); recusa código já usado por outro produto. */
+    private String readSku(Integer currentId) {
+        String sku = tfSku.getText().trim();
+        if (sku.isEmpty()) return null;
+        if (sku.length() > 32) throw new IllegalArgumentException("SKU com mais de 32 caracteres");
+        Product other = ProductCatalog.getInstance().findBySku(sku);
+        if (other != null && !other.getId().equals(currentId)) {
+            throw new IllegalArgumentException("SKU '" + sku + "' já usado por " + other.getName());
+        }
+        return sku;
     }
 
     private void clearForm() {
         table.clearSelection();
         tfName.setText("");
         tfPrice.setText("");
+        tfSku.setText("");
         spQuantity.setValue(0);
+        loadedQuantity = 0;
+        spReorder.setValue(0);
         statusBar.setText("Pronto");
     }
 
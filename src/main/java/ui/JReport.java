@@ -4,17 +4,29 @@ package ui;
 import dao.ProductDAO;
 import dao.SaleDAO;
 import model.Product;
+import model.ReorderSuggestion;
+import model.TicketSummary;
 import model.UserSales;
 import net.miginfocom.swing.MigLayout;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.data.category.DefaultCategoryDataset;
+import service.ConsolidatedReportService;
+import service.DemandForecastService;
+import util.DBConnection;
+
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.FileWriter;
 import java.nio.file.Path;
-import java.sql.SQLException;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 
 public class JReport extends JPanel {
     private static final Color BG_COLOR     = new Color(245, 245, 245);
@@ -29,9 +41,13 @@ public class JReport extends JPanel {
     private final NumberFormat fmt      =
             NumberFormat.getCurrencyInstance(new Locale("pt","BR"));
 
-    private final DefaultTableModel prodModel = new DefaultTableModel(
-            new Object[]{"ID","Nome","Preço","Quantidade"}, 0
-    );
+    private final RowTableModel<Product> prodModel = new RowTableModel<>(Product::getId, List.of(
+            new RowTableModel.Column<>("ID",         Integer.class, Product::getId),
+            new RowTableModel.Column<>("Nome",       String.class,  Product::getName),
+            new RowTableModel.Column<>("Preço",      Double.class,  Product::getPrice),
+            new RowTableModel.Column<>("Quantidade", Integer.class, Product::getQuantity),
+            new RowTableModel.Column<>("SKU",        String.class,  Product::getSku)
+    ));
     private final JTable prodTable = new JTable(prodModel);
 
     private final JLabel lblProdCount      = new JLabel();
@@ -39,11 +55,49 @@ public class JReport extends JPanel {
     private final JButton btnProdRefresh   = makeButton("Atualizar");
     private final JButton btnProdExport    = makeButton("Exportar CSV");
 
-    private final DefaultTableModel userModel = new DefaultTableModel(
-            new Object[]{"Usuário","Total Vendido"},0
-    );
+    private final RowTableModel<UserSales> userModel = new RowTableModel<>(UserSales::getUsername, List.of(
+            new RowTableModel.Column<>("Usuário",       String.class, UserSales::getUsername),
+            new RowTableModel.Column<>("Total Vendido", Double.class, UserSales::getTotalSold)
+    ));
     private final JTable userTable = new JTable(userModel);
     private final JButton btnUserRefresh = makeButton("Atualizar");
+    private final JCheckBox chkAllStores = new JCheckBox("Todas as lojas");
+    private final JLabel lblUserStatus   = new JLabel();
+    private ConsolidatedReportService consolidated;
+
+    private final RowTableModel<ReorderSuggestion> reorderModel = new RowTableModel<>(ReorderSuggestion::getProductId, List.of(
+            new RowTableModel.Column<>("Produto",    String.class,  ReorderSuggestion::getProductName),
+            new RowTableModel.Column<>("Estoque",    Integer.class, ReorderSuggestion::getQuantity),
+            new RowTableModel.Column<>("Média/dia",  Double.class,  ReorderSuggestion::getDailyDemand),
+            new RowTableModel.Column<>("Previsão",   Double.class,  ReorderSuggestion::getForecast),
+            new RowTableModel.Column<>("Segurança",  Double.class,  ReorderSuggestion::getSafetyStock),
+            new RowTableModel.Column<>("Pedir",      Integer.class, ReorderSuggestion::getSuggested)
+    ));
+    private final JTable reorderTable = new JTable(reorderModel);
+    private final JButton btnReorderRefresh = makeButton("Recalcular");
+    private final JLabel lblReorderStatus   = new JLabel();
+    private boolean reorderLoaded;
+
+    private static final int TICKET_DAYS = 30;
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private final RowTableModel<TicketSummary> ticketModel = new RowTableModel<>(TicketSummary::getDay, List.of(
+            new RowTableModel.Column<>("Dia",            String.class,  t -> DAY_FORMAT.format(t.getDay())),
+            new RowTableModel.Column<>("Tickets",        Integer.class, TicketSummary::getTickets),
+            new RowTableModel.Column<>("Faturamento",    Double.class,  TicketSummary::getTotal),
+            new RowTableModel.Column<>("Ticket médio",   Double.class,  TicketSummary::getAverageTicket),
+            new RowTableModel.Column<>("Itens/ticket",   Double.class,  TicketSummary::getItemsPerTicket)
+    ));
+    private final JTable ticketTable = new JTable(ticketModel);
+    private final DefaultCategoryDataset ticketsByHour = new DefaultCategoryDataset();
+    private final JLabel lblTicketSummary = new JLabel();
+
+    /** Aba de tickets: resumo diário e distribuição pelas horas do dia. */
+    private record TicketData(List<TicketSummary> byDay, int[] byHour) { }
+
+    private static final Duration REFRESH = Duration.ofSeconds(Integer.getInteger("lojavila.relatorio.atualizacaoSegundos", 60));
+    private RefreshScheduler.Job prodJob;
+    private RefreshScheduler.Job userJob;
+    private RefreshScheduler.Job ticketJob;
 
     public JReport() {
         setBackground(BG_COLOR);
@@ -51,9 +105,29 @@ public class JReport extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
 
         initUI();
-        loadProductData();
-        loadUserSales();
         attachListeners();
+        // cada aba carrega ao aparecer e só consulta enquanto está visível (trocar
+        // de aba ou de tela cancela a carga em andamento); a consolidada fica no botão
+        prodJob = RefreshScheduler.register(prodTable, "relatorio-produtos", REFRESH,
+                productDAO::findAll, this::showProducts,
+                ex -> showError("Erro ao carregar produtos: " + ex.getMessage()));
+        userJob = RefreshScheduler.register(userTable, "relatorio-vendas", REFRESH,
+                () -> chkAllStores.isSelected() ? null : saleDAO.findSalesByUser(),
+                list -> {
+                    if (chkAllStores.isSelected()) return;
+                    userModel.setRows(list);
+                    lblUserStatus.setText("Loja: " + DBConnection.currentStore().name() + staleNote());
+                }, ex -> showError("Erro ao carregar vendas: " + ex.getMessage()));
+        ticketJob = RefreshScheduler.register(ticketTable, "relatorio-tickets", REFRESH, scope -> {
+            var byDay  = scope.fork(() -> saleDAO.findTicketsByDay(TICKET_DAYS));
+            var byHour = scope.fork(() -> saleDAO.findTicketsByHour(TICKET_DAYS));
+            scope.join();
+            return new TicketData(byDay.get(), byHour.get());
+        }, this::showTickets, ex -> showError("Erro ao carregar tickets: " + ex.getMessage()));
+        lblUserStatus.setText("Loja: " + DBConnection.currentStore().name());
+        prodJob.requestNow();
+        userJob.requestNow();
+        ticketJob.requestNow();
     }
 
     private void initUI() {
@@ -71,6 +145,8 @@ public class JReport extends JPanel {
 
         prodTable.setFont(TABLE_FONT);
         prodTable.setRowHeight(24);
+        prodTable.setAutoCreateRowSorter(true);
+        prodTable.setDefaultRenderer(Double.class, new FormatRenderer(fmt));
         prodTable.getTableHeader().setFont(TABLE_FONT.deriveFont(Font.BOLD));
         pProd.add(new JScrollPane(prodTable), "grow, push");
 
@@ -85,60 +161,167 @@ public class JReport extends JPanel {
 
         JPanel userBar = new JPanel(new FlowLayout(FlowLayout.RIGHT,8,0));
         userBar.setOpaque(false);
+        userBar.add(lblUserStatus);
+        if (DBConnection.stores().size() > 1) {
+            chkAllStores.setOpaque(false);
+            userBar.add(chkAllStores);
+        }
         userBar.add(btnUserRefresh);
         pUser.add(userBar, "growx");
 
         userTable.setFont(TABLE_FONT);
         userTable.setRowHeight(24);
+        userTable.setAutoCreateRowSorter(true);
+        userTable.setDefaultRenderer(Double.class, new FormatRenderer(fmt));
         userTable.getTableHeader().setFont(TABLE_FONT.deriveFont(Font.BOLD));
         pUser.add(new JScrollPane(userTable), "grow, push");
 
+        JPanel pReorder = new JPanel(new MigLayout("wrap 1, ins 10","[grow]","[pref][grow]"));
+        pReorder.setBackground(BG_COLOR);
+
+        JPanel reorderBar = new JPanel(new FlowLayout(FlowLayout.RIGHT,8,0));
+        reorderBar.setOpaque(false);
+        reorderBar.add(lblReorderStatus);
+        reorderBar.add(btnReorderRefresh);
+        pReorder.add(reorderBar, "growx");
+
+        reorderTable.setFont(TABLE_FONT);
+        reorderTable.setRowHeight(24);
+        reorderTable.setAutoCreateRowSorter(true);
+        reorderTable.getTableHeader().setFont(TABLE_FONT.deriveFont(Font.BOLD));
+        reorderTable.setDefaultRenderer(Double.class,
+                new FormatRenderer(new DecimalFormat("#,##0.0", DecimalFormatSymbols.getInstance(new Locale("pt","BR")))));
+        pReorder.add(new JScrollPane(reorderTable), "grow, push");
+
+        JPanel pTicket = new JPanel(new MigLayout("wrap 1, ins 10","[grow]","[pref][grow][220!]"));
+        pTicket.setBackground(BG_COLOR);
+        pTicket.add(lblTicketSummary, "growx");
+        ticketTable.setFont(TABLE_FONT);
+        ticketTable.setRowHeight(24);
+        ticketTable.setAutoCreateRowSorter(true);
+        ticketTable.getTableHeader().setFont(TABLE_FONT.deriveFont(Font.BOLD));
+        ticketTable.setDefaultRenderer(Double.class, new FormatRenderer(fmt));
+        ticketTable.getColumnModel().getColumn(4).setCellRenderer(
+                new FormatRenderer(new DecimalFormat("#,##0.0", DecimalFormatSymbols.getInstance(new Locale("pt","BR")))));
+        pTicket.add(new JScrollPane(ticketTable), "grow, push");
+        pTicket.add(new ChartPanel(ChartFactory.createBarChart(
+                "Tickets por hora do dia (" + TICKET_DAYS + " dias)", "Hora", "Tickets", ticketsByHour)), "grow");
+
         tabs.addTab("Produtos", pProd);
         tabs.addTab("Vendas por Usuário", pUser);
+        tabs.addTab("Tickets", pTicket);
+        tabs.addTab("Reposição", pReorder);
+        // previsão só é lida quando a aba é aberta
+        tabs.addChangeListener(e -> {
+            if (tabs.getSelectedComponent() == pReorder && !reorderLoaded) loadReorder(false);
+        });
 
         add(tabs, BorderLayout.CENTER);
     }
 
-    private void loadProductData() {
-        prodModel.setRowCount(0);
-        try {
-            List<Product> list = productDAO.findAll();
-            double totalValue = 0;
-            for (Product p : list) {
-                prodModel.addRow(new Object[]{
-                        p.getId(),
-                        p.getName(),
-                        fmt.format(p.getPrice()),
-                        p.getQuantity()
-                });
-                totalValue += p.getPrice() * p.getQuantity();
-            }
-            lblProdCount.setText("Total de produtos: " + list.size());
-            lblProdTotalValue.setText("Valor em estoque: " + fmt.format(totalValue));
-        } catch (Exception ex) {
-            showError("Erro ao carregar produtos: " + ex.getMessage());
+    private void showProducts(List<Product> list) {
+        double totalValue = 0;
+        for (Product p : list) {
+            totalValue += p.getPrice() * p.getQuantity();
         }
+        prodModel.setRows(list);
+        lblProdCount.setText("Total de produtos: " + list.size());
+        lblProdTotalValue.setText("Valor em estoque: " + fmt.format(totalValue));
+    }
+
+    private void showTickets(TicketData d) {
+        ticketModel.setRows(d.byDay().reversed());
+        int tickets = 0;
+        long items = 0;
+        double total = 0;
+        for (TicketSummary t : d.byDay()) {
+            tickets += t.getTickets();
+            items += t.getItems();
+            total += t.getTotal();
+        }
+        TicketSummary all = new TicketSummary(null, tickets, items, total);
+        lblTicketSummary.setText(String.format(new Locale("pt","BR"),
+                "Últimos %d dias: %d tickets — ticket médio %s — %.1f itens por ticket%s",
+                TICKET_DAYS, all.getTickets(), fmt.format(all.getAverageTicket()), all.getItemsPerTicket(), staleNote()));
+        ticketsByHour.clear();
+        for (int h = 0; h < 24; h++) {
+            ticketsByHour.addValue(d.byHour()[h], "Tickets", String.format("%02dh", h));
+        }
+    }
+
+    /** Aviso para os rótulos quando os relatórios da loja estão saindo do cache. */
+    private String staleNote() {
+        return saleDAO.isServingCached() ? " (banco sem resposta: dados da última leitura bem-sucedida)" : "";
     }
 
     private void loadUserSales() {
-        userModel.setRowCount(0);
-        try {
-            List<UserSales> sales = saleDAO.findSalesByUser();
-            for (UserSales us : sales) {
-                userModel.addRow(new Object[]{
-                        us.getUsername(),
-                        fmt.format(us.getTotalSold())
-                });
-            }
-        } catch (SQLException ex) {
-            showError("Erro ao carregar vendas: " + ex.getMessage());
+        if (chkAllStores.isSelected()) {
+            loadConsolidatedUserSales();
+            return;
         }
+        lblUserStatus.setText("Loja: " + DBConnection.currentStore().name());
+        userJob.requestNow();
+    }
+
+    /** Consulta as lojas fora da EDT; lojas que não responderam aparecem no rótulo. */
+    private void loadConsolidatedUserSales() {
+        if (consolidated == null) consolidated = new ConsolidatedReportService();
+        btnUserRefresh.setEnabled(false);
+        lblUserStatus.setText("Consultando " + DBConnection.stores().size() + " lojas...");
+        new SwingWorker<ConsolidatedReportService.Result<List<UserSales>>, Void>() {
+            @Override protected ConsolidatedReportService.Result<List<UserSales>> doInBackground() throws Exception {
+                return consolidated.salesByUser();
+            }
+            @Override protected void done() {
+                btnUserRefresh.setEnabled(true);
+                try {
+                    var result = get();
+                    userModel.setRows(result.value());
+                    lblUserStatus.setText(result.complete()
+                            ? "Todas as lojas"
+                            : "Sem resposta: " + result.missing().stream()
+                                    .map(DBConnection.Store::name).collect(Collectors.joining(", ")));
+                } catch (Exception ex) {
+                    lblUserStatus.setText("");
+                    showError("Erro ao consolidar vendas: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /** Sugestões de compra fora da EDT; {@code recalc} incorpora antes os dias ainda não vistos. */
+    private void loadReorder(boolean recalc) {
+        reorderLoaded = true;
+        btnReorderRefresh.setEnabled(false);
+        lblReorderStatus.setText(recalc ? "Recalculando previsão..." : "Carregando...");
+        new SwingWorker<List<ReorderSuggestion>, Void>() {
+            @Override protected List<ReorderSuggestion> doInBackground() throws Exception {
+                DemandForecastService service = new DemandForecastService();
+                if (recalc) service.update();
+                return service.suggestions();
+            }
+            @Override protected void done() {
+                btnReorderRefresh.setEnabled(true);
+                try {
+                    List<ReorderSuggestion> list = get();
+                    reorderModel.setRows(list);
+                    lblReorderStatus.setText(list.size() + " produto(s) a repor — prazo "
+                            + DemandForecastService.LEAD_DAYS + " dias + cobertura " + DemandForecastService.COVER_DAYS + " dias");
+                } catch (Exception ex) {
+                    lblReorderStatus.setText("");
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showError("Erro ao calcular reposição: " + cause.getMessage());
+                }
+            }
+        }.execute();
     }
 
     private void attachListeners() {
-        btnProdRefresh.addActionListener(e -> loadProductData());
+        btnReorderRefresh.addActionListener(e -> loadReorder(true));
+        btnProdRefresh.addActionListener(e -> prodJob.requestNow());
         btnProdExport.addActionListener(e -> exportProductCsv());
         btnUserRefresh.addActionListener(e -> loadUserSales());
+        chkAllStores.addActionListener(e -> loadUserSales());
     }
 
     private void exportProductCsv() {
@@ -150,15 +333,10 @@ public class JReport extends JPanel {
              var csv = new org.apache.commons.csv.CSVPrinter(
                      w,
                      org.apache.commons.csv.CSVFormat.DEFAULT
-                             .withHeader("ID","Nome","Preço","Quantidade")
+                             .withHeader("ID","Nome","Preço","Quantidade","SKU")
              )) {
-            for (int i = 0; i < prodModel.getRowCount(); i++) {
-                csv.printRecord(
-                        prodModel.getValueAt(i,0),
-                        prodModel.getValueAt(i,1),
-                        prodModel.getValueAt(i,2),
-                        prodModel.getValueAt(i,3)
-                );
+            for (Product p : prodModel.getRows()) {
+                csv.printRecord(p.getId(), p.getName(), fmt.format(p.getPrice()), p.getQuantity(), p.getSku());
             }
             csv.flush();
             JOptionPane.showMessageDialog(
@@ -1,20 +1,26 @@
 package ui;
 
 import com.formdev.flatlaf.FlatLightLaf;
-import dao.ProductDAO;
-import dao.SaleDAO;
+import dao.ReservationDAO;
+import model.CartLine;
 import model.Product;
 import model.User;
 import net.miginfocom.swing.MigLayout;
+import service.Cart;
+import service.CheckoutService;
+import service.ProductCatalog;
+import service.ReservationService;
 
 import javax.swing.*;
 import javax.swing.event.PopupMenuEvent;
 import javax.swing.event.PopupMenuListener;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
+import java.sql.SQLException;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public class JSale extends JPanel {
     private static final Color BG_COLOR     = new Color(245, 245, 245);
@@ -22,15 +28,19 @@ public class JSale extends JPanel {
     private static final Font  LABEL_FONT   = new Font("SansSerif", Font.PLAIN, 14);
     private static final Font  BTN_FONT     = new Font("SansSerif", Font.BOLD, 13);
 
-    private final ProductDAO productDAO = new ProductDAO();
-    private final SaleDAO    saleDAO    = new SaleDAO();
+    private final ProductCatalog catalog = ProductCatalog.getInstance();
     private final User       currentUser;
 
-    private final DefaultTableModel saleModel = new DefaultTableModel(
-            new Object[]{"Produto","Qtd","Preço Unit.","Subtotal"}, 0
-    );
+    private final Cart cart = new Cart();
+    private final CheckoutService checkout = new CheckoutService();
+    private final ReservationDAO reservationDAO = new ReservationDAO();
+    private final ReservationService reservations;
+    private Map<Integer, Integer> reservedByOthers = Map.of();
+    private final CartTableModel saleModel = new CartTableModel(cart);
     private final JTable tblSale = new JTable(saleModel);
 
+    private final JTextField tfScan = new JTextField();
+    private final JLabel lblScan = new JLabel(" ");
     private final JComboBox<Product> cbProduct = new JComboBox<>();
     private final JSpinner spQty = new JSpinner(new SpinnerNumberModel(1, 1, 1, 1));
     private final JButton btnAdd    = makeButton("Adicionar");
@@ -39,13 +49,25 @@ public class JSale extends JPanel {
     private final JButton btnCancel = makeButton("Cancelar");
     private final JLabel lblTotal  = new JLabel("Total: R$ 0,00");
 
-    private double total = 0;
     private final NumberFormat fmt = NumberFormat.getCurrencyInstance(new Locale("pt","BR"));
-    private final JProduct jProduct;
+    private final Runnable onCatalogChanged;
 
-    public JSale(User currentUser, JProduct jProduct) {
+    public JSale(User currentUser, Runnable onCatalogChanged) {
         this.currentUser = currentUser;
-        this.jProduct = jProduct;
+        this.onCatalogChanged = onCatalogChanged;
+        this.reservations = new ReservationService(ReservationService.DEFAULT_TTL, new ReservationService.Listener() {
+            @Override public void expired(int productId, int quantity) {
+                cart.reduce(productId, quantity);
+                updateTotal();
+                lblScan.setText("Reserva vencida: item devolvido ao estoque");
+            }
+            @Override public void rejected(int productId, int quantity, String reason) {
+                cart.reduce(productId, quantity);
+                updateTotal();
+                Toolkit.getDefaultToolkit().beep();
+                lblScan.setText("Item removido: " + reason);
+            }
+        });
         FlatLightLaf.setup();
 
         setBackground(BG_COLOR);
@@ -55,7 +77,8 @@ public class JSale extends JPanel {
         initProductSelector();
         initTable();
         initControls();
-        loadProducts();
+        loadReservedByOthers();
+        fillProducts(catalog.getProducts());
         attachListeners();
     }
 
@@ -63,6 +86,15 @@ public class JSale extends JPanel {
         JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
         top.setOpaque(false);
 
+        JLabel l0 = new JLabel("Código:");
+        l0.setFont(LABEL_FONT);
+        top.add(l0);
+        tfScan.setPreferredSize(new Dimension(140,25));
+        tfScan.setFont(LABEL_FONT);
+        tfScan.setToolTipText("Leia o código de barras ou digite o SKU e tecle Enter");
+        top.add(tfScan);
+        lblScan.setForeground(Color.RED);
+
         JLabel l1 = new JLabel("Produto:");
         l1.setFont(LABEL_FONT);
         top.add(l1);
@@ -87,10 +119,10 @@ public class JSale extends JPanel {
                 super.getListCellRendererComponent(list,value,index,isSelected,cellHasFocus);
                 if (value instanceof Product) {
                     Product p = (Product)value;
-                    setText(String.format("%s (R$ %s) — estoque: %d",
+                    setText(String.format("%s (R$ %s) — disponível: %d",
                             p.getName(),
                             fmt.format(p.getPrice()),
-                            p.getQuantity()));
+                            available(p)));
                 }
                 return this;
             }
@@ -107,13 +139,15 @@ public class JSale extends JPanel {
         btnAdd.setFont(BTN_FONT);
         top.add(btnAdd);
 
+        top.add(lblScan);
+
         add(top,BorderLayout.NORTH);
     }
 
     private void updateSpinnerModel() {
         Product p = (Product)cbProduct.getSelectedItem();
         if (p != null) {
-            int max = p.getQuantity().intValue();
+            int max = Math.max(1, available(p));
             spQty.setModel(new SpinnerNumberModel(1, 1, max, 1));
         }
     }
@@ -121,6 +155,12 @@ public class JSale extends JPanel {
     private void initTable() {
         tblSale.setRowHeight(24);
         tblSale.setAutoCreateRowSorter(true);
+        tblSale.setDefaultRenderer(CartTableModel.Money.class, new DefaultTableCellRenderer() {
+            @Override protected void setValue(Object value) {
+                setHorizontalAlignment(SwingConstants.RIGHT);
+                setText(value == null ? "" : fmt.format(((CartTableModel.Money) value).cents() / 100.0));
+            }
+        });
         add(new JScrollPane(tblSale),BorderLayout.CENTER);
 
         lblTotal.setFont(lblTotal.getFont().deriveFont(Font.BOLD,16f));
@@ -138,7 +178,24 @@ public class JSale extends JPanel {
     }
 
     private void loadProducts() {
-        List<Product> list = productDAO.findAll();
+        loadReservedByOthers();
+        fillProducts(catalog.reload());
+    }
+
+    private void loadReservedByOthers() {
+        try {
+            reservedByOthers = reservationDAO.findReservedByOthers(ReservationService.TERMINAL_ID);
+        } catch (SQLException ex) {
+            reservedByOthers = Map.of();
+        }
+    }
+
+    /** Estoque menos o que outros terminais têm reservado (as reservas deste já estão no carrinho). */
+    private int available(Product p) {
+        return p.getQuantity() - reservedByOthers.getOrDefault(p.getId(), 0);
+    }
+
+    private void fillProducts(List<Product> list) {
         DefaultComboBoxModel<Product> model = new DefaultComboBoxModel<>();
         list.forEach(model::addElement);
         cbProduct.setModel(model);
@@ -150,88 +207,154 @@ public class JSale extends JPanel {
             Product p = (Product)cbProduct.getSelectedItem();
             int qty = (int)spQty.getValue();
             if (p==null || qty<=0) return;
+            addToCart(p, qty);
+        });
 
-            int inCart=0;
-            for (int i=0;i<saleModel.getRowCount();i++){
-                if (saleModel.getValueAt(i,0).equals(p.getName()))
-                    inCart += (int)saleModel.getValueAt(i,1);
-            }
-            if (inCart+qty>p.getQuantity()) {
-                JOptionPane.showMessageDialog(this,
-                        "Estoque insuficiente: só há "+p.getQuantity(),
-                        "Aviso", JOptionPane.WARNING_MESSAGE);
+        // leitor de código de barras: cada leitura termina com Enter e soma 1 unidade,
+        // consultando só o índice em memória do catálogo
+        tfScan.addActionListener(e -> {
+            String code = tfScan.getText().trim();
+            tfScan.setText("");
+            if (code.isEmpty()) return;
+            Product p = catalog.findBySku(code);
+            if (p == null) {
+                Toolkit.getDefaultToolkit().beep();
+                lblScan.setText("Código não encontrado: " + code);
                 return;
             }
-
-            double unit=p.getPrice(), sub=unit*qty;
-            for (int i=0;i<saleModel.getRowCount();i++){
-                if (saleModel.getValueAt(i,0).equals(p.getName())){
-                    int old=(int)saleModel.getValueAt(i,1),
-                            neo=old+qty;
-                    saleModel.setValueAt(neo,i,1);
-                    saleModel.setValueAt(fmt.format(neo*unit),i,3);
-                    total+=sub;
-                    updateTotal();
-                    return;
-                }
-            }
-            saleModel.addRow(new Object[]{
-                    p.getName(),qty,fmt.format(unit),fmt.format(sub)
-            });
-            total+=sub;
-            updateTotal();
+            lblScan.setText(" ");
+            addToCart(p, 1);
         });
 
         btnRemove.addActionListener(e->{
             int r=tblSale.getSelectedRow(); if(r<0)return;
             int m=tblSale.convertRowIndexToModel(r);
-            try{ total-=fmt.parse((String)saleModel.getValueAt(m,3)).doubleValue(); }
-            catch(Exception ignored){}
-            saleModel.removeRow(m);
+            reservations.releaseProduct(cart.getLines().get(m).getProductId());
+            cart.removeAt(m);
             updateTotal();
         });
 
         btnFinish.addActionListener(e->{
-            if(saleModel.getRowCount()==0){
+            if(cart.isEmpty()){
                 JOptionPane.showMessageDialog(this,
                         "Nenhum item adicionado.","Aviso",JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            try{
-                for(int i=0;i<saleModel.getRowCount();i++){
-                    String name=(String)saleModel.getValueAt(i,0);
-                    int qty=(int)saleModel.getValueAt(i,1);
-                    Product p=productDAO.findByName(name);
-                    saleDAO.save(p.getId(), currentUser.getId(), qty, p.getPrice());
-                    p.setQuantity(p.getQuantity()-qty);
-                    productDAO.update(p);
+            finish();
+        });
+
+        btnCancel.addActionListener(e-> {
+            reservations.releaseAll();
+            clearAll();
+        });
+    }
+
+    /**
+     * Fecha a venda fora da EDT (espera as reservas pendentes e grava no
+     * banco); o carrinho fica travado até o resultado voltar.
+     */
+    private record Finished(long ticket, Map<Integer, Integer> reservedByOthers, List<Product> products) { }
+
+    private void finish() {
+        setBusy(true);
+        new SwingWorker<Finished, Void>() {
+            @Override protected Finished doInBackground() throws Exception {
+                List<Long> reserved = reservations.takeForCheckout();
+                long ticket;
+                try {
+                    ticket = checkout.checkout(cart, currentUser, reserved);
+                } catch (SQLException | RuntimeException e) {
+                    // nada foi gravado: as reservas consumidas voltam
+                    releaseQuietly(reserved);
+                    throw e;
                 }
-                JOptionPane.showMessageDialog(this,
-                        "Venda finalizada: " + fmt.format(total),
-                        "Sucesso", JOptionPane.INFORMATION_MESSAGE);
-                clearAll();
-                loadProducts();
-                if (jProduct != null) {
-                    jProduct.loadTableData();
+                // a venda já foi gravada: falha ao recarregar não pode virar erro de venda
+                Map<Integer, Integer> others;
+                List<Product> products;
+                try {
+                    others = reservationDAO.findReservedByOthers(ReservationService.TERMINAL_ID);
+                    products = catalog.reload();
+                } catch (SQLException | RuntimeException ex) {
+                    others = Map.of();
+                    products = catalog.getProducts();
                 }
-            } catch(Exception ex){
-                JOptionPane.showMessageDialog(this,
-                        "Erro: "+ex.getMessage(),
-                        "Erro", JOptionPane.ERROR_MESSAGE);
+                return new Finished(ticket, others, products);
             }
-        });
 
-        btnCancel.addActionListener(e-> clearAll());
+            @Override protected void done() {
+                setBusy(false);
+                try {
+                    Finished f = get();
+                    JOptionPane.showMessageDialog(JSale.this,
+                            "Venda finalizada — ticket nº " + f.ticket() + ": " + fmt.format(cart.getTotalCents() / 100.0),
+                            "Sucesso", JOptionPane.INFORMATION_MESSAGE);
+                    clearAll();
+                    reservedByOthers = f.reservedByOthers();
+                    fillProducts(f.products());
+                    if (onCatalogChanged != null) {
+                        onCatalogChanged.run();
+                    }
+                } catch (Exception ex) {
+                    // pede de novo as reservas para o que ficou no carrinho
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    for (CartLine line : cart.getLines()) {
+                        reservations.reserveAsync(line.getProductId(), line.getQuantity());
+                    }
+                    JOptionPane.showMessageDialog(JSale.this,
+                            "Erro: " + cause.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void setBusy(boolean busy) {
+        for (JComponent c : List.of(tfScan, cbProduct, spQty, btnAdd, btnRemove, btnFinish, btnCancel)) {
+            c.setEnabled(!busy);
+        }
+    }
+
+    /**
+     * Entra no carrinho na hora; a reserva no banco vai em segundo plano e,
+     * se for recusada, o listener tira as unidades de volta.
+     */
+    private void addToCart(Product p, int qty) {
+        int inCart = cart.quantityOf(p.getId());
+        if (inCart+qty>available(p)) {
+            // aviso sem modal, como o código não encontrado: o resto da rajada do leitor segue para o campo
+            Toolkit.getDefaultToolkit().beep();
+            lblScan.setText("Estoque insuficiente para " + p.getName() + ": só há " + available(p) + " disponíveis");
+            return;
+        }
+        cart.add(p, qty);
+        reservations.reserveAsync(p.getId(), qty);
+        updateTotal();
+    }
+
+    private void releaseQuietly(List<Long> ids) {
+        try {
+            reservationDAO.delete(ids);
+        } catch (SQLException ignored) {
+            // vencem sozinhas pelo TTL
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        reservations.close();
     }
 
     private void updateTotal() {
-        lblTotal.setText("Total: "+fmt.format(total));
+        long discount = cart.getDiscountCents();
+        lblTotal.setText((discount > 0 ? "Descontos: " + fmt.format(discount / 100.0) + "   " : "")
+                + "Total: " + fmt.format(cart.getTotalCents() / 100.0));
     }
 
     private void clearAll() {
-        saleModel.setRowCount(0);
-        total=0;
+        cart.clear();
         updateTotal();
+        tfScan.requestFocusInWindow();
     }
 
     private JButton makeButton(String t) {
@@ -0,0 +1,120 @@
+package ui;
+
+import util.SlowQueryLog;
+import util.SlowQueryLog.SlowQuery;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Consultas lentas deste terminal ({@link SlowQueryLog}), da mais recente
+ * para a mais antiga, com o plano da consulta selecionada embaixo. Só admin.
+ */
+public class JSlowQueries extends JPanel {
+    private static final Color BG_COLOR   = new Color(245, 245, 245);
+    private static final Color FULL_SCAN  = new Color(211, 47, 47);
+    private static final Font  TITLE_FONT = new Font("SansSerif", Font.BOLD, 16);
+    private static final Font  TABLE_FONT = new Font("SansSerif", Font.PLAIN, 13);
+    private static final Font  MONO_FONT  = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("dd/MM HH:mm:ss");
+    private static final Duration REFRESH = Duration.ofSeconds(5);
+
+    private final RowTableModel<SlowQuery> model = new RowTableModel<>(SlowQuery::id, List.of(
+            new RowTableModel.Column<>("#",           Long.class,    SlowQuery::id),
+            new RowTableModel.Column<>("Quando",      String.class,  q -> FMT.format(q.at())),
+            new RowTableModel.Column<>("Duração (ms)", Long.class,   SlowQuery::millis),
+            new RowTableModel.Column<SlowQuery>("Linhas", Long.class, q -> q.rows() < 0 ? null : q.rows()),
+            new RowTableModel.Column<>("Banco",       String.class,  SlowQuery::database),
+            new RowTableModel.Column<SlowQuery>("Plano", String.class, q -> q.fullScan() ? "varredura completa" : ""),
+            new RowTableModel.Column<>("SQL",         String.class,  SlowQuery::sql)
+    ));
+    private final JTable table = new JTable(model);
+    private final JTextArea detail = new JTextArea();
+    private final JLabel lblTitle = new JLabel();
+    private final RefreshScheduler.Job refreshJob;
+
+    public JSlowQueries() {
+        setBackground(BG_COLOR);
+        setLayout(new BorderLayout(0, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JButton btnClear = new JButton("Limpar");
+        JPanel top = new JPanel(new BorderLayout());
+        top.setOpaque(false);
+        lblTitle.setFont(TITLE_FONT);
+        top.add(lblTitle, BorderLayout.CENTER);
+        top.add(btnClear, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
+
+        table.setFont(TABLE_FONT);
+        table.setRowHeight(24);
+        table.getTableHeader().setFont(TABLE_FONT.deriveFont(Font.BOLD));
+        table.setAutoCreateRowSorter(true);
+        table.getRowSorter().setSortKeys(List.of(new RowSorter.SortKey(0, SortOrder.DESCENDING)));
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnModel().getColumn(0).setMaxWidth(60);
+        table.getColumnModel().getColumn(6).setPreferredWidth(500);
+        table.getColumnModel().getColumn(5).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable t, Object value, boolean selected,
+                                                           boolean focus, int row, int column) {
+                Component c = super.getTableCellRendererComponent(t, value, selected, focus, row, column);
+                if (!selected) c.setForeground(FULL_SCAN);
+                return c;
+            }
+        });
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) showDetail();
+        });
+
+        detail.setEditable(false);
+        detail.setFont(MONO_FONT);
+        detail.setLineWrap(true);
+        detail.setWrapStyleWord(true);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), new JScrollPane(detail));
+        split.setResizeWeight(0.65);
+        add(split, BorderLayout.CENTER);
+
+        // o buffer é memória local: atualizar sempre é barato
+        refreshJob = RefreshScheduler.register(this, "consultas-lentas", REFRESH, SlowQueryLog::recent, this::show);
+        refreshJob.requestNow();
+        btnClear.addActionListener(e -> {
+            SlowQueryLog.clear();
+            refreshJob.requestNow();
+        });
+    }
+
+    private void show(List<SlowQuery> list) {
+        model.setRows(list);
+        lblTitle.setText(SlowQueryLog.THRESHOLD_MS <= 0
+                ? "Registro de consultas lentas desligado (lojavila.consultaLenta.ms = 0)"
+                : list.size() + " consulta(s) acima de " + SlowQueryLog.THRESHOLD_MS + " ms");
+        showDetail();
+    }
+
+    private void showDetail() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            detail.setText("");
+            return;
+        }
+        SlowQuery q = model.getRow(table.convertRowIndexToModel(row));
+        StringBuilder sb = new StringBuilder()
+                .append(FMT.format(q.at())).append("  ").append(q.millis()).append(" ms  ")
+                .append(q.rows() < 0 ? "" : q.rows() + " linha(s)  ")
+                .append(q.database()).append("  thread ").append(q.thread()).append("\n\n")
+                .append(q.sql()).append('\n');
+        if (!q.params().isEmpty()) sb.append("\nParâmetros: ").append(q.params()).append('\n');
+        sb.append("\nPlano:\n").append(q.plan() == null ? "(sem EXPLAIN: comando não suportado, amostra pulada ou ainda na fila)" : q.plan());
+        String text = sb.toString();
+        if (!text.equals(detail.getText())) {
+            detail.setText(text);
+            detail.setCaretPosition(0);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ui;
+
+import model.Product;
+import model.StockMovement;
+import net.miginfocom.swing.MigLayout;
+import service.StockLedgerService;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Razão de estoque de um produto: últimos movimentos, saldo numa data
+ * passada e lançamento de entrada, devolução ou ajuste.
+ */
+class JStockLedger extends JDialog {
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.PLAIN, 14);
+
+    private final StockLedgerService service = new StockLedgerService();
+    private final Product product;
+    private final Runnable onChange;
+
+    private final RowTableModel<StockMovement> tableModel = new RowTableModel<>(StockMovement::getId, List.of(
+            new RowTableModel.Column<>("Data",       String.class,  m -> FMT.format(m.getCreatedAt())),
+            new RowTableModel.Column<>("Tipo",       String.class,  m -> m.getKind().toString()),
+            new RowTableModel.Column<>("Quantidade", Integer.class, StockMovement::getQuantity),
+            new RowTableModel.Column<>("Usuário",    String.class,  StockMovement::getUsername),
+            new RowTableModel.Column<>("Observação", String.class,  StockMovement::getNote)
+    ));
+
+    private final JComboBox<StockMovement.Kind> cbKind = new JComboBox<>(new StockMovement.Kind[]{
+            StockMovement.Kind.ENTRADA, StockMovement.Kind.DEVOLUCAO, StockMovement.Kind.AJUSTE });
+    private final JSpinner spQuantity = new JSpinner(new SpinnerNumberModel(1, -1_000_000, 1_000_000, 1));
+    private final JTextField tfNote   = new JTextField();
+    private final JTextField tfAt     = new JTextField(FMT.format(LocalDateTime.now()), 14);
+    private final JLabel lblAt        = new JLabel(" ");
+    private final JLabel statusBar    = new JLabel(" ");
+    private final JButton btnRegister = new JButton("Lançar");
+    private final JButton btnAt       = new JButton("Consultar");
+
+    /** {@code onChange} roda na EDT depois de cada lançamento (recarregar a lista de produtos). */
+    JStockLedger(Component parent, Product product, Runnable onChange) {
+        super(SwingUtilities.getWindowAncestor(parent), "Estoque — " + product.getName(), ModalityType.APPLICATION_MODAL);
+        this.product = product;
+        this.onChange = onChange;
+
+        JPanel root = new JPanel(new MigLayout("insets 10, gap 8", "[right][grow,fill][pref!]", "[][grow,fill][][][]"));
+        root.add(new JLabel("Saldo atual: " + product.getQuantity()), "span 3, wrap");
+
+        JTable table = new JTable(tableModel);
+        table.setFont(LABEL_FONT);
+        table.setRowHeight(22);
+        root.add(new JScrollPane(table), "span 3, w 640, h 320, wrap");
+
+        root.add(new JLabel("Saldo em:"));
+        root.add(tfAt, "split 2, growx 0");
+        root.add(lblAt);
+        root.add(btnAt, "wrap");
+
+        root.add(new JLabel("Lançar:"));
+        root.add(cbKind, "split 3, growx 0");
+        root.add(spQuantity, "w 90!");
+        root.add(tfNote);
+        root.add(btnRegister, "wrap");
+        tfNote.setToolTipText("Observação (nota fiscal, motivo do ajuste...)");
+        spQuantity.setToolTipText("Entrada e devolução somam; ajuste negativo tira do estoque");
+
+        root.add(statusBar, "span 3");
+        setContentPane(root);
+
+        btnAt.addActionListener(e -> balanceAt());
+        btnRegister.addActionListener(e -> register());
+
+        pack();
+        setLocationRelativeTo(parent);
+        load();
+    }
+
+    private void load() {
+        inBackground(() -> service.history(product.getId()), list -> {
+            tableModel.setRows(list);
+            statusBar.setText(list.size() < StockLedgerService.HISTORY_LIMIT
+                    ? list.size() + " movimentos"
+                    : "Últimos " + list.size() + " movimentos");
+        });
+    }
+
+    private void balanceAt() {
+        LocalDateTime at;
+        try {
+            at = LocalDateTime.parse(tfAt.getText().trim(), FMT);
+        } catch (DateTimeParseException ex) {
+            lblAt.setText("use dd/mm/aaaa hh:mm");
+            return;
+        }
+        inBackground(() -> service.balanceAt(product.getId(), at), qty -> lblAt.setText(qty + " unidades"));
+    }
+
+    private void register() {
+        StockMovement.Kind kind = (StockMovement.Kind) cbKind.getSelectedItem();
+        int qty = (int) spQuantity.getValue();
+        String note = tfNote.getText();
+        btnRegister.setEnabled(false);
+        inBackground(() -> {
+            service.register(product.getId(), kind, qty, note);
+            return null;
+        }, ignored -> {
+            tfNote.setText("");
+            onChange.run();
+            load();
+        });
+    }
+
+    private <T> void inBackground(Callable<T> task, Consumer<T> done) {
+        new SwingWorker<T, Void>() {
+            @Override protected T doInBackground() throws Exception {
+                return task.call();
+            }
+            @Override protected void done() {
+                btnRegister.setEnabled(true);
+                try {
+                    done.accept(get());
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    statusBar.setText("Erro: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,104 @@
+package ui;
+
+import util.QueryScope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Carga de um painel como uma tarefa estruturada: as consultas independentes
+ * são disparadas com {@link #fork} e rodam ao mesmo tempo (uma thread virtual
+ * cada); {@link #join()} espera todas. Se uma falhar, as outras são
+ * canceladas. {@link #cancel()} (painel escondido, atualização mais nova)
+ * interrompe as threads e cancela no banco os statements em andamento.
+ * Nenhuma consulta sobrevive ao {@link #close()}: ele cancela o que ainda
+ * roda e espera as tarefas terminarem de fato, então a conexão de cada uma
+ * já voltou ao pool quando ele retorna.
+ *
+ * Mesmo papel do StructuredTaskScope, que ainda é preview no Java desta
+ * aplicação.
+ */
+final class LoadScope implements AutoCloseable {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final QueryScope queries = new QueryScope();
+    private final ExecutorCompletionService<Object> completion = new ExecutorCompletionService<>(EXECUTOR);
+    private final List<Future<Object>> forks = new ArrayList<>();
+    // uma marca por fork: quem pega primeiro (a tarefa ao começar ou o close) decide se ela roda
+    private final List<AtomicBoolean> claims = new ArrayList<>();
+    private final Semaphore finished = new Semaphore(0);
+
+    /** Dispara {@code task}; o resultado só pode ser lido depois de {@link #join()}. */
+    @SuppressWarnings("unchecked")
+    <T> Supplier<T> fork(Callable<T> task) {
+        if (queries.isCancelled()) throw new CancellationException();
+        AtomicBoolean claim = new AtomicBoolean();
+        Future<Object> f = completion.submit(() -> {
+            if (!claim.compareAndSet(false, true)) throw new CancellationException();
+            try {
+                return queries.call(task);
+            } finally {
+                finished.release();
+            }
+        });
+        forks.add(f);
+        claims.add(claim);
+        return () -> (T) f.resultNow();
+    }
+
+    /** Executa {@code task} na thread atual, dentro do escopo (consultas canceláveis). */
+    <T> T run(Callable<T> task) throws Exception {
+        return queries.call(task);
+    }
+
+    /** Espera todas as tarefas; a primeira falha cancela as demais e é relançada. */
+    void join() throws Exception {
+        for (int i = 0; i < forks.size(); i++) {
+            try {
+                completion.take().get();
+            } catch (ExecutionException e) {
+                cancel();
+                if (e.getCause() instanceof Exception cause) throw cause;
+                throw e;
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            }
+        }
+        if (queries.isCancelled()) throw new CancellationException();
+    }
+
+    void cancel() {
+        queries.cancel();
+        for (Future<Object> f : forks) f.cancel(true);
+    }
+
+    boolean isCancelled() {
+        return queries.isCancelled();
+    }
+
+    @Override
+    public void close() {
+        for (Future<Object> f : forks) {
+            if (!f.isDone()) {
+                cancel();
+                break;
+            }
+        }
+        // Future cancelado já conta como pronto, mas a thread pode estar saindo do driver
+        for (AtomicBoolean claim : claims) {
+            if (claim.compareAndSet(false, true)) finished.release(); // não começou e não vai começar
+        }
+        finished.acquireUninterruptibly(claims.size());
+    }
+}
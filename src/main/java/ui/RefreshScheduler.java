@@ -0,0 +1,224 @@
+package ui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.event.HierarchyEvent;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Atualização periódica dos painéis, num lugar só.
+ *
+ * Cada painel registra um {@link Job}: a consulta roda num pool pequeno fora
+ * da EDT e o resultado é aplicado na EDT. O intervalo leva ±20% de jitter,
+ * para vários terminais abertos no painel não consultarem o banco juntos.
+ * Consulta lenta (acima de {@link #SLOW_MS}) ou com erro dobra o intervalo
+ * do job, até {@link #MAX_BACKOFF}x; consultas rápidas o trazem de volta.
+ * Painel fora da tela (outro card do {@code CardLayout}, janela fechada) não
+ * consulta; quando volta a aparecer, atualiza na hora se o dado já venceu,
+ * senão no vencimento.
+ * Cada execução roda num {@link LoadScope}: painel que sai da tela ou pedido
+ * de atualização mais novo cancela a carga em andamento, consultas no banco
+ * inclusive, e o resultado parcial é descartado.
+ * Falha de uma carga vai para o {@code onError} do painel, na EDT, quando foi
+ * pedida ({@link Job#requestNow()}) ou quando a anterior tinha dado certo:
+ * o usuário vê o erro uma vez, não a cada ciclo enquanto o banco não volta.
+ */
+final class RefreshScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshScheduler.class);
+
+    private static final long SLOW_MS = Long.getLong("lojavila.atualizacao.lentaMs", 1_500);
+    private static final int MAX_BACKOFF = 16;
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private RefreshScheduler() { }
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        AtomicInteger n = new AtomicInteger();
+        ScheduledThreadPoolExecutor ses = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread t = new Thread(r, "atualizacao-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ses.setRemoveOnCancelPolicy(true);
+        return ses;
+    }
+
+    /** Carga de um painel; consultas independentes podem ser disparadas em paralelo no escopo. */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load(LoadScope scope) throws Exception;
+    }
+
+    /**
+     * Registra a atualização de {@code view} a cada {@code cadence}.
+     * {@code fetch} roda fora da EDT; se devolver null nada é aplicado.
+     */
+    static <T> Job register(JComponent view, String name, Duration cadence,
+                            Callable<T> fetch, Consumer<? super T> apply) {
+        return register(view, name, cadence, scope -> fetch.call(), apply);
+    }
+
+    static <T> Job register(JComponent view, String name, Duration cadence,
+                            Loader<T> loader, Consumer<? super T> apply) {
+        return register(view, name, cadence, loader, apply, null);
+    }
+
+    /** Como os demais, com {@code onError} (na EDT) para mostrar ao usuário a falha da carga. */
+    static <T> Job register(JComponent view, String name, Duration cadence,
+                            Callable<T> fetch, Consumer<? super T> apply, Consumer<Exception> onError) {
+        return register(view, name, cadence, scope -> fetch.call(), apply, onError);
+    }
+
+    static <T> Job register(JComponent view, String name, Duration cadence,
+                            Loader<T> loader, Consumer<? super T> apply, Consumer<Exception> onError) {
+        Job job = new Job(view, name, cadence.toMillis(), onError, scope -> {
+            T data = scope.run(() -> loader.load(scope));
+            return data == null ? null : () -> apply.accept(data);
+        });
+        view.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                if (view.isShowing()) job.becameVisible(); else job.hidden();
+            }
+        });
+        job.schedule(job.jittered(job.cadenceMs));
+        return job;
+    }
+
+    static final class Job {
+        private final JComponent view;
+        private final String name;
+        private final long cadenceMs;
+        private final Consumer<Exception> onError;
+        private final Loader<Runnable> work;
+
+        // guardados pelo monitor do job
+        private ScheduledFuture<?> next;
+        private boolean running;
+        private boolean again;
+        private boolean requested;
+        private boolean lastFailed;
+        private boolean cancelled;
+        private LoadScope active;
+        private int backoff = 1;
+        private long lastRun;
+
+        private Job(JComponent view, String name, long cadenceMs, Consumer<Exception> onError, Loader<Runnable> work) {
+            this.view = view;
+            this.name = name;
+            this.cadenceMs = cadenceMs;
+            this.onError = onError;
+            this.work = work;
+        }
+
+        /** Atualiza assim que possível (botão "Atualizar", venda concluída...). */
+        public synchronized void requestNow() {
+            if (cancelled) return;
+            lastRun = 0; // se o painel estiver escondido, atualiza quando voltar
+            requested = true;
+            if (running) {
+                // o pedido novo vale mais que a carga em andamento
+                again = true;
+                active.cancel();
+            } else {
+                schedule(0);
+            }
+        }
+
+        /** Para de atualizar; chamado quando o painel é descartado. */
+        public synchronized void cancel() {
+            cancelled = true;
+            if (next != null) next.cancel(false);
+            if (active != null) active.cancel();
+        }
+
+        private synchronized void hidden() {
+            if (active != null) active.cancel();
+        }
+
+        private synchronized void becameVisible() {
+            if (running) return;
+            long due = lastRun + cadenceMs * backoff - System.currentTimeMillis();
+            schedule(Math.max(0, due));
+        }
+
+        private synchronized void schedule(long delayMs) {
+            if (cancelled) return;
+            if (next != null) next.cancel(false);
+            next = EXECUTOR.schedule(this::run, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        private long jittered(long ms) {
+            return (long) (ms * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        }
+
+        private void run() {
+            synchronized (this) {
+                if (cancelled || running) return;
+                // fora da tela: não consulta; becameVisible() retoma
+                if (!view.isShowing()) return;
+                running = true;
+                active = new LoadScope();
+            }
+            Exception error = null;
+            LoadScope scope = active;
+            long t0 = System.nanoTime();
+            boolean failed = false;
+            try (scope) {
+                Runnable apply = work.load(scope);
+                if (apply != null) SwingUtilities.invokeLater(() -> {
+                    if (!scope.isCancelled()) apply.run();
+                });
+            } catch (Exception e) {
+                failed = !scope.isCancelled();
+                if (failed) {
+                    LOG.warn("Atualização de {} falhou: {}", name, e.toString());
+                    error = e;
+                }
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            synchronized (this) {
+                running = false;
+                active = null;
+                if (scope.isCancelled()) {
+                    // cancelada: não conta como lenta; roda de novo se houve pedido ou quando voltar à tela
+                    if (again) {
+                        again = false;
+                        schedule(0);
+                    }
+                    return;
+                }
+                lastRun = System.currentTimeMillis();
+                if (failed && onError != null && (requested || !lastFailed)) {
+                    Exception shown = error;
+                    SwingUtilities.invokeLater(() -> onError.accept(shown));
+                }
+                requested = false;
+                lastFailed = failed;
+                if (failed || ms > SLOW_MS) {
+                    if (backoff < MAX_BACKOFF) {
+                        backoff *= 2;
+                        LOG.info("Atualização de {} lenta ({} ms), intervalo agora {} s", name, ms, cadenceMs * backoff / 1000);
+                    }
+                } else if (backoff > 1) {
+                    backoff /= 2;
+                }
+                if (again) {
+                    again = false;
+                    schedule(0);
+                } else {
+                    schedule(jittered(cadenceMs * backoff));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Modelo de tabela tipado sobre uma lista de objetos identificados por chave.
+ *
+ * {@link #setRows} compara a lista nova com a atual pela chave: linhas iguais
+ * não geram evento, as alteradas são trocadas no lugar, as que sumiram são
+ * removidas e as novas entram na posição que têm na lista nova, cada grupo de
+ * linhas vizinhas num único evento de faixa. Atualizar 50 mil linhas com 3
+ * alteradas repinta 3. A ordem do modelo é sempre a da lista recebida; se as
+ * linhas que ficaram mudaram de ordem entre si, a tabela é recarregada inteira.
+ * As colunas devolvem o valor cru (números como números) e a formatação fica
+ * no renderer, para a ordenação do {@code TableRowSorter} ser numérica.
+ */
+class RowTableModel<T> extends AbstractTableModel {
+
+    /** Coluna: título, tipo (para sorter e renderer) e como ler o valor da linha. */
+    record Column<T>(String name, Class<?> type, Function<? super T, ?> value) { }
+
+    private final Function<? super T, ?> key;
+    private final List<Column<T>> columns;
+    private final List<T> rows = new ArrayList<>();
+
+    RowTableModel(Function<? super T, ?> key, List<Column<T>> columns) {
+        this.key = key;
+        this.columns = List.copyOf(columns);
+    }
+
+    @Override public int getRowCount()                  { return rows.size(); }
+    @Override public int getColumnCount()               { return columns.size(); }
+    @Override public String getColumnName(int column)   { return columns.get(column).name(); }
+    @Override public Class<?> getColumnClass(int column) { return columns.get(column).type(); }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns.get(column).value().apply(rows.get(row));
+    }
+
+    /** Objeto da linha (índice do modelo, não da view). */
+    T getRow(int row) {
+        return rows.get(row);
+    }
+
+    List<T> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /** Troca o conteúdo pelo de {@code fresh}, disparando só os eventos da diferença. */
+    void setRows(List<? extends T> fresh) {
+        Map<Object, T> pending = new LinkedHashMap<>(fresh.size() * 4 / 3 + 1);
+        for (T t : fresh) pending.put(key.apply(t), t);
+        List<T> ordered = new ArrayList<>(pending.values());
+
+        // 1) alteradas, no lugar; as linhas ainda não mudaram de posição
+        boolean[] gone = new boolean[rows.size()];
+        int runStart = -1;
+        for (int i = 0; i < rows.size(); i++) {
+            T now = pending.remove(key.apply(rows.get(i)));
+            boolean changed = false;
+            if (now == null) {
+                gone[i] = true;
+            } else {
+                changed = !sameValues(rows.get(i), now);
+                rows.set(i, now);
+            }
+            if (changed && runStart < 0) runStart = i;
+            if (!changed && runStart >= 0) {
+                fireTableRowsUpdated(runStart, i - 1);
+                runStart = -1;
+            }
+        }
+        if (runStart >= 0) fireTableRowsUpdated(runStart, rows.size() - 1);
+
+        // 2) removidas, de trás para frente para os índices dos eventos valerem
+        for (int end = gone.length - 1; end >= 0; end--) {
+            if (!gone[end]) continue;
+            int start = end;
+            while (start > 0 && gone[start - 1]) start--;
+            rows.subList(start, end + 1).clear();
+            fireTableRowsDeleted(start, end);
+            end = start;
+        }
+
+        // 3) as que ficaram têm que estar na ordem da lista nova; senão recarrega tudo
+        Set<Object> added = pending.keySet();
+        int kept = 0;
+        for (T t : ordered) {
+            Object k = key.apply(t);
+            if (added.contains(k)) continue;
+            if (!Objects.equals(key.apply(rows.get(kept)), k)) {
+                rows.clear();
+                rows.addAll(ordered);
+                fireTableDataChanged();
+                return;
+            }
+            kept++;
+        }
+
+        // 4) novas, cada bloco vizinho na sua posição
+        for (int i = 0; i < ordered.size(); ) {
+            if (!added.contains(key.apply(ordered.get(i)))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < ordered.size() && added.contains(key.apply(ordered.get(i)))) {
+                rows.add(i, ordered.get(i));
+                i++;
+            }
+            fireTableRowsInserted(start, i - 1);
+        }
+    }
+
+    private boolean sameValues(T a, T b) {
+        if (a == b) return true;
+        for (Column<T> c : columns) {
+            if (!Objects.equals(c.value().apply(a), c.value().apply(b))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,210 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trilha de auditoria: quem alterou o quê, quando, com o valor antes e depois.
+ *
+ * {@link #record} só coloca o registro numa fila limitada em memória e volta;
+ * uma thread de fundo esvazia a fila e grava em lotes em {@code audit_log}.
+ * Quem altera o cadastro não espera banco nenhum por causa da auditoria. Se o
+ * banco cair, os registros esperam na fila; se a fila encher, o excedente vai
+ * para o log da aplicação (nível WARN) em vez de travar a tela. Um lote que
+ * falha por outro motivo que não a conexão é tentado {@value #MAX_ATTEMPTS}
+ * vezes e depois gravado registro a registro; o que ainda falhar vai para o
+ * log (nível ERROR) e sai da fila, para não segurar os que vêm atrás.
+ */
+public final class AuditLog {
+    private static final Logger LOG = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final int CAPACITY   = Integer.getInteger("lojavila.auditoria.fila", 10_000);
+    private static final int BATCH      = 500;
+    private static final long MAX_WAIT_MS = 1_000;
+    private static final long BULK_WAIT_MS = 30_000;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private record Entry(long at, String user, String entity, String entityId,
+                         String action, String before, String after) { }
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    // na fila ou no lote em gravação
+    private static final AtomicLong PENDING = new AtomicLong();
+    private static volatile String currentUser = "sistema";
+    private static final Thread WRITER = new Thread(AuditLog::drainLoop, "auditoria");
+
+    static {
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(2_000), "auditoria-flush"));
+    }
+
+    private AuditLog() { }
+
+    /** Usuário atribuído aos registros desta sessão (o login da tela). */
+    public static void setUser(String username) {
+        currentUser = username == null ? "sistema" : username;
+    }
+
+    /** Usuário da sessão (ou "sistema" antes do login). */
+    public static String user() {
+        return currentUser;
+    }
+
+    /** Registra em nome do usuário da sessão. Não bloqueia. */
+    public static void record(String entity, Object entityId, String action, String before, String after) {
+        record(currentUser, entity, entityId, action, before, after);
+    }
+
+    /** Registra em nome de {@code user} (vendas da API, por exemplo). Não bloqueia. */
+    public static void record(String user, String entity, Object entityId, String action, String before, String after) {
+        enqueue(new Entry(System.currentTimeMillis(), user, entity,
+                entityId == null ? null : String.valueOf(entityId), action, before, after), 0);
+    }
+
+    /**
+     * Como {@link #record(String, Object, String, String, String)}, mas com a
+     * fila cheia espera até {@value #BULK_WAIT_MS} ms pela gravação abrir
+     * espaço antes de mandar o registro para o log. Para rotinas em lote fora
+     * da tela (importação), que geram mais registros do que a fila comporta.
+     */
+    public static void recordWaiting(String entity, Object entityId, String action, String before, String after) {
+        enqueue(new Entry(System.currentTimeMillis(), currentUser, entity,
+                entityId == null ? null : String.valueOf(entityId), action, before, after), BULK_WAIT_MS);
+    }
+
+    private static void enqueue(Entry e, long waitMs) {
+        boolean queued;
+        try {
+            queued = waitMs > 0 ? QUEUE.offer(e, waitMs, TimeUnit.MILLISECONDS) : QUEUE.offer(e);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (queued) {
+            PENDING.incrementAndGet();
+        } else {
+            DROPPED.incrementAndGet();
+            LOG.warn("Fila de auditoria cheia, registro só no log: {}", e);
+        }
+    }
+
+    /** Registros descartados por fila cheia desde o início. */
+    public static long dropped() {
+        return DROPPED.get();
+    }
+
+    /** Espera a fila esvaziar, até {@code timeoutMs}. Chamado no encerramento. */
+    public static void flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (PENDING.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (PENDING.get() > 0) LOG.warn("Encerrando com {} registros de auditoria não gravados", PENDING.get());
+    }
+
+    private static void drainLoop() {
+        List<Entry> batch = new ArrayList<>(BATCH);
+        long backoff = 1_000;
+        int attempts = 0;
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    Entry first = QUEUE.poll(MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    QUEUE.drainTo(batch, BATCH - 1);
+                }
+                if (attempts >= MAX_ATTEMPTS) {
+                    writeOneByOne(batch);
+                } else {
+                    write(batch);
+                }
+                PENDING.addAndGet(-batch.size());
+                batch.clear();
+                backoff = 1_000;
+                attempts = 0;
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable e) {
+                // banco fora do ar: o lote fica guardado e é regravado sem limite (a fila é que limita)
+                if (!isConnectionFailure(e)) attempts++;
+                LOG.warn("Gravação da auditoria falhou ({} registros pendentes, tentativa {}): {}",
+                        PENDING.get(), attempts, e.toString());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, 60_000);
+            }
+        }
+    }
+
+    /**
+     * Último recurso de um lote que não grava: separa os registros bons dos
+     * que o banco recusa. Cada registro resolvido sai do lote na hora, então
+     * uma queda no meio não grava nada duas vezes.
+     */
+    private static void writeOneByOne(List<Entry> batch) throws SQLException {
+        for (Iterator<Entry> it = batch.iterator(); it.hasNext(); ) {
+            Entry e = it.next();
+            try {
+                write(List.of(e));
+            } catch (SQLException ex) {
+                if (isConnectionFailure(ex)) throw ex;
+                LOG.error("Registro de auditoria recusado pelo banco, só no log: {} ({})", e, ex.toString());
+            } catch (RuntimeException ex) {
+                LOG.error("Registro de auditoria recusado pelo banco, só no log: {} ({})", e, ex.toString());
+            }
+            it.remove();
+            PENDING.decrementAndGet();
+        }
+    }
+
+    /** Banco fora do alcance (sem conexão, pool esgotado): vale a pena esperar e tentar de novo. */
+    private static boolean isConnectionFailure(Throwable e) {
+        if (e instanceof SQLTransientException || e instanceof SQLNonTransientConnectionException) return true;
+        return e instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08");
+    }
+
+    private static void write(List<Entry> batch) throws SQLException {
+        String sql = "INSERT INTO audit_log (at, username, terminal, entity, entity_id, action, before_value, after_value) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Entry e : batch) {
+                ps.setTimestamp(1, new Timestamp(e.at()));
+                ps.setString(2, e.user());
+                ps.setString(3, Terminal.ID);
+                ps.setString(4, e.entity());
+                ps.setString(5, e.entityId());
+                ps.setString(6, e.action());
+                ps.setString(7, e.before());
+                ps.setString(8, e.after());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool simples para um endereço de banco. O {@code close()} da conexão
+ * entregue devolve a conexão física ao pool; o semáforo limita quantas
+ * ficam abertas ao mesmo tempo, e quem passa do limite espera (barato em
+ * threads virtuais).
+ */
+final class ConnectionPool {
+    private static final long ACQUIRE_TIMEOUT_MS = 10_000;
+    private static final long VALIDATE_AFTER_MS  = 30_000;
+
+    private record Idle(Connection conn, long since) { }
+
+    private final String url, user, pass;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Idle> idle = new ConcurrentLinkedDeque<>();
+
+    ConnectionPool(String url, String user, String pass, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Pool de conexões esgotado para " + url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido esperando conexão", e);
+        }
+        try {
+            return wrap(physical());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection physical() throws SQLException {
+        Idle i;
+        // LIFO: a conexão usada por último é a que tem menos chance de ter caído
+        while ((i = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - i.since() < VALIDATE_AFTER_MS || i.conn().isValid(2)) {
+                return i.conn();
+            }
+            closeQuietly(i.conn());
+        }
+        return DriverManager.getConnection(url, user, pass);
+    }
+
+    private Connection wrap(Connection real) {
+        InvocationHandler h = new InvocationHandler() {
+            private boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, java.lang.reflect.Method m, Object[] args) throws Throwable {
+                switch (m.getName()) {
+                    case "close" -> {
+                        if (!returned) {
+                            returned = true;
+                            giveBack(real);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        if (returned) return true;
+                    }
+                    default -> {
+                        if (returned) throw new SQLException("Conexão já devolvida ao pool");
+                    }
+                }
+                try {
+                    return m.invoke(real, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, h);
+    }
+
+    private void giveBack(Connection real) {
+        try {
+            // quem usou pode ter deixado uma transação aberta ou mudado o modo
+            if (!real.getAutoCommit()) {
+                real.rollback();
+                real.setAutoCommit(true);
+            }
+            if (real.isReadOnly()) real.setReadOnly(false);
+            idle.offerFirst(new Idle(real, System.currentTimeMillis()));
+        } catch (SQLException e) {
+            closeQuietly(real);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignore) {
+        }
+    }
+}
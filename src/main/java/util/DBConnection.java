@@ -3,13 +3,127 @@ package util;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Conexões por loja. Cada loja tem o seu banco (schema) e o terminal fala só
+ * com a loja dele; relatórios consolidados abrem conexões para cada loja.
+ *
+ * Configuração por propriedades de sistema:
+ * <pre>
+ *   -Dlojavila.lojas=1=lojavila_centro,2=lojavila_norte   (id=schema ou id=URL JDBC completa)
+ *   -Dlojavila.loja=1                                      (loja deste terminal)
+ * </pre>
+ * Sem configuração, há uma única loja (id 1) no schema {@code lojavila}.
+ * Relatórios podem ler de uma réplica da loja (ver {@link ReadReplicas}).
+ */
 public class DBConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/lojavila";
+    private static final String BASE_URL = "jdbc:mysql://localhost:3306/";
+    private static final String OPTIONS  = "?rewriteBatchedStatements=true";
     private static final String USER = "root";
     private static final String PASS = "";
 
+    /**
+     * Tempo máximo, em segundos, de cada comando do caminho da venda (reserva,
+     * baixa de estoque, gravação). Lock preso por outra transação vira erro
+     * rápido em vez de caixa parado; relatórios têm o seu em {@link QueryGuard}.
+     */
+    public static final int SALE_TIMEOUT_SECONDS = Integer.getInteger("lojavila.venda.timeoutSegundos", 10);
+
+    /** Uma loja e o endereço do seu banco. */
+    public record Store(int id, String url) {
+        public String name() {
+            String path = url.substring(url.lastIndexOf('/') + 1);
+            int q = path.indexOf('?');
+            return q < 0 ? path : path.substring(0, q);
+        }
+    }
+
+    private static final List<Store> STORES = parseStores(System.getProperty("lojavila.lojas", "1=lojavila"));
+    private static final Store CURRENT = store(Integer.getInteger("lojavila.loja", STORES.get(0).id()));
+    private static final ReadReplicas REPLICAS = new ReadReplicas(System.getProperty("lojavila.replicas", ""));
+    private static final Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
+    private static volatile int poolSize;
+
+    /** Conexão com o banco da loja deste terminal. */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        return open(CURRENT.url());
+    }
+
+    /** Conexão com o banco de uma loja específica. */
+    public static Connection getConnection(int storeId) throws SQLException {
+        return open(store(storeId).url());
+    }
+
+    /**
+     * Passa a reutilizar conexões, no máximo {@code maxPerStore} abertas por
+     * loja. Usado no modo servidor; o cliente Swing abre conexões avulsas.
+     */
+    public static void enablePool(int maxPerStore) {
+        poolSize = maxPerStore;
+    }
+
+    private static Connection open(String url) throws SQLException {
+        Connection conn = poolSize <= 0
+                ? DriverManager.getConnection(url, USER, PASS)
+                : POOLS.computeIfAbsent(url, u -> new ConnectionPool(u, USER, PASS, poolSize)).borrow();
+        return SlowQueryLog.trace(conn, url);
+    }
+
+    /** Conexão avulsa, fora do pool e sem medição; para o EXPLAIN de {@link SlowQueryLog}. */
+    static Connection openUntraced(String url) throws SQLException {
+        return DriverManager.getConnection(url, USER, PASS);
+    }
+
+    /**
+     * Conexão para consultas de relatório: a réplica da loja se houver uma em
+     * dia, senão o primário. Só para leitura; vendas e estoque usam
+     * {@link #getConnection()}.
+     */
+    public static Connection getReportConnection(int storeId) throws SQLException {
+        Connection replica = REPLICAS.connect(storeId, USER, PASS);
+        return replica != null ? SlowQueryLog.trace(replica, REPLICAS.url(storeId)) : getConnection(storeId);
+    }
+
+    public static Store currentStore() {
+        return CURRENT;
+    }
+
+    public static List<Store> stores() {
+        return STORES;
+    }
+
+    public static Store store(int id) {
+        for (Store s : STORES) {
+            if (s.id() == id) return s;
+        }
+        throw new IllegalArgumentException("Loja " + id + " não configurada em lojavila.lojas");
+    }
+
+    /** Abre e valida uma conexão para carregar o driver e resolver o servidor antes do primeiro uso. */
+    public static void warmUp() throws SQLException {
+        try (Connection conn = getConnection()) {
+            conn.isValid(2);
+        }
+    }
+
+    private static List<Store> parseStores(String spec) {
+        List<Store> list = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) continue;
+            int eq = entry.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Loja sem id em lojavila.lojas: " + entry);
+            int id = Integer.parseInt(entry.substring(0, eq).trim());
+            String target = entry.substring(eq + 1).trim();
+            String url = target.startsWith("jdbc:") ? target : BASE_URL + target + OPTIONS;
+            list.add(new Store(id, url));
+        }
+        if (list.isEmpty()) throw new IllegalArgumentException("lojavila.lojas vazio");
+        return Collections.unmodifiableList(list);
     }
 }
@@ -0,0 +1,151 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proteção das consultas de relatório de uma loja.
+ *
+ * <ul>
+ *   <li><b>Timeout</b>: cada consulta protegida usa {@link #queryTimeoutSeconds()}
+ *       no statement; consulta travada é cancelada pelo driver.</li>
+ *   <li><b>Bulkhead</b>: no máximo {@code lojavila.relatorio.concorrencia}
+ *       relatórios ao mesmo tempo por loja, então relatório pesado não ocupa
+ *       todas as conexões e a venda (que não passa por aqui) segue.</li>
+ *   <li><b>Circuit breaker</b>: depois de {@link #FAILURES_TO_OPEN} falhas
+ *       seguidas o circuito abre e, por {@link #OPEN_MILLIS}, as chamadas nem
+ *       vão ao banco: devolvem o último resultado bom da mesma consulta. Passado
+ *       o prazo, uma chamada de teste decide se fecha ou reabre.</li>
+ * </ul>
+ * O cache só é usado com o circuito aberto ({@link #isOpen()}, que as telas
+ * mostram como dados desatualizados). Com o circuito fechado, ou sem
+ * resultado guardado, a falha chega a quem chamou.
+ */
+public final class QueryGuard {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryGuard.class);
+
+    private static final int PERMITS         = Integer.getInteger("lojavila.relatorio.concorrencia", 4);
+    private static final int QUERY_TIMEOUT_S = Integer.getInteger("lojavila.relatorio.timeoutConsultaSegundos", 20);
+    private static final long PERMIT_WAIT_MS = 2_000;
+    private static final int FAILURES_TO_OPEN = 3;
+    private static final long OPEN_MILLIS     = 30_000;
+
+    private static final Map<Integer, QueryGuard> REPORTS = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Query<T> {
+        T run() throws SQLException;
+    }
+
+    private final String name;
+    private final Semaphore permits = new Semaphore(PERMITS, true);
+    private final Map<String, Object> lastGood = new ConcurrentHashMap<>();
+
+    // estado do circuito, guardado pelo monitor
+    private int failures;
+    private long openUntil;
+    private boolean probing;
+
+    private QueryGuard(String name) {
+        this.name = name;
+    }
+
+    /** Proteção dos relatórios da loja {@code storeId}. */
+    public static QueryGuard reports(int storeId) {
+        return REPORTS.computeIfAbsent(storeId, id -> new QueryGuard("relatorios-loja-" + id));
+    }
+
+    /** Timeout, em segundos, a aplicar em cada statement protegido. */
+    public int queryTimeoutSeconds() {
+        return QUERY_TIMEOUT_S;
+    }
+
+    /** Circuito aberto: os relatórios desta loja estão saindo do cache. */
+    public synchronized boolean isOpen() {
+        return openUntil > 0;
+    }
+
+    /**
+     * Executa {@code query} com bulkhead e circuit breaker. {@code key}
+     * identifica a consulta e os parâmetros, para o cache do último resultado.
+     */
+    public <T> T call(String key, Query<T> query) throws SQLException {
+        Admission admission = admit();
+        if (admission == Admission.DENIED) {
+            return fallback(key, new SQLTransientException("Relatórios indisponíveis (" + name + " com circuito aberto)"));
+        }
+        boolean probe = admission == Admission.PROBE;
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(PERMIT_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            // fila cheia não é falha do banco; se esta era a chamada de teste, devolve a vez
+            if (probe) endProbe();
+            return fallback(key, new SQLTransientException("Muitos relatórios em andamento (" + name + ")"));
+        }
+        try {
+            T value = query.run();
+            if (value != null) lastGood.put(key, value);
+            release(true, probe);
+            return value;
+        } catch (SQLException e) {
+            if (QueryScope.currentCancelled()) {
+                // cancelada pela tela, não é falha do banco
+                if (probe) endProbe();
+                throw e;
+            }
+            release(false, probe);
+            return fallback(key, e);
+        } catch (RuntimeException e) {
+            release(false, probe);
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private enum Admission { PASS, PROBE, DENIED }
+
+    /** Fechado: passa. Aberto: só uma chamada de teste depois do prazo. */
+    private synchronized Admission admit() {
+        if (openUntil == 0) return Admission.PASS;
+        if (System.currentTimeMillis() < openUntil || probing) return Admission.DENIED;
+        probing = true;
+        return Admission.PROBE;
+    }
+
+    /** Só a chamada que recebeu {@link Admission#PROBE} libera a vez da próxima. */
+    private synchronized void endProbe() {
+        probing = false;
+    }
+
+    private synchronized void release(boolean ok, boolean probe) {
+        if (probe) probing = false;
+        if (ok) {
+            if (openUntil > 0) LOG.info("{}: banco respondeu, circuito fechado", name);
+            failures = 0;
+            openUntil = 0;
+        } else if (probe || ++failures >= FAILURES_TO_OPEN) {
+            if (openUntil == 0) LOG.warn("{}: {} falhas seguidas, servindo relatórios do cache por {} s", name, failures, OPEN_MILLIS / 1000);
+            openUntil = System.currentTimeMillis() + OPEN_MILLIS;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T fallback(String key, SQLException cause) throws SQLException {
+        Object cached = isOpen() ? lastGood.get(key) : null;
+        if (cached == null) throw cause;
+        LOG.info("{}: '{}' servido do cache ({})", name, key, cause.toString());
+        return (T) cached;
+    }
+}
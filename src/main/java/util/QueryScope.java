@@ -0,0 +1,70 @@
+package util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grupo de consultas que pode ser cancelado de uma vez, inclusive as que já
+ * estão rodando no banco.
+ *
+ * Quem executa código dentro de {@link #call} fica associado ao grupo; os DAOs
+ * chamam {@link #track} em cada statement, e {@link #cancel()} manda
+ * {@link Statement#cancel()} (KILL QUERY no MySQL) para todos. Um statement
+ * registrado depois do cancelamento já nasce cancelado. Fora de um grupo,
+ * {@link #track} não faz nada.
+ */
+public final class QueryScope {
+    /** SQLState do MySQL para consulta interrompida. */
+    public static final String CANCELLED_STATE = "70100";
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    // statements fechados também ficam aqui; o grupo dura só uma carga de tela
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /** Executa {@code task} nesta thread com as consultas associadas a este grupo. */
+    public <T> T call(Callable<T> task) throws Exception {
+        QueryScope previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) CURRENT.remove(); else CURRENT.set(previous);
+        }
+    }
+
+    /** Registra {@code st} no grupo da thread atual, se houver. */
+    public static void track(Statement st) throws SQLException {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) return;
+        if (scope.cancelled) throw new SQLException("Consulta cancelada", CANCELLED_STATE);
+        scope.statements.add(st);
+        // cancel() pode ter rodado entre a checagem e o add
+        if (scope.cancelled) st.cancel();
+    }
+
+    /** A thread atual está num grupo já cancelado (erro da consulta veio do cancelamento). */
+    public static boolean currentCancelled() {
+        QueryScope scope = CURRENT.get();
+        return scope != null && scope.cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Statement st : statements) {
+            try {
+                st.cancel();
+            } catch (SQLException ignore) {
+                // já fechado ou conexão caída: nada a cancelar
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,109 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Réplicas de leitura para relatórios, uma por loja (opcional).
+ *
+ * <pre>
+ *   -Dlojavila.replicas=1=lojavila_centro@replica1:3306,2=jdbc:mysql://...
+ *   -Dlojavila.replica.maxAtrasoSegundos=30
+ * </pre>
+ * O atraso da réplica é medido no máximo a cada {@link #CHECK_EVERY_MS} e o
+ * resultado fica em cache; réplica atrasada, parada ou fora do ar manda o
+ * relatório para o primário até a próxima checagem.
+ */
+final class ReadReplicas {
+    private static final Logger LOG = LoggerFactory.getLogger(ReadReplicas.class);
+    private static final long CHECK_EVERY_MS = 5_000;
+    private static final long MAX_LAG_SECONDS = Integer.getInteger("lojavila.replica.maxAtrasoSegundos", 30);
+
+    private record Health(boolean usable, long checkedAt) { }
+
+    private final Map<Integer, String> urls;
+    private final Map<Integer, Health> health = new ConcurrentHashMap<>();
+
+    ReadReplicas(String spec) {
+        Map<Integer, String> map = new HashMap<>();
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) continue;
+            int eq = entry.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Réplica sem id de loja em lojavila.replicas: " + entry);
+            String target = entry.substring(eq + 1).trim();
+            map.put(Integer.parseInt(entry.substring(0, eq).trim()), toUrl(target));
+        }
+        this.urls = Map.copyOf(map);
+    }
+
+    /** Endereço da réplica da loja, ou {@code null} se ela não tem. */
+    String url(int storeId) {
+        return urls.get(storeId);
+    }
+
+    /** Conexão somente leitura na réplica da loja, ou {@code null} se ela não deve ser usada agora. */
+    Connection connect(int storeId, String user, String pass) {
+        String url = urls.get(storeId);
+        if (url == null) return null;
+        long now = System.currentTimeMillis();
+        Health h = health.get(storeId);
+        if (h != null && now - h.checkedAt() < CHECK_EVERY_MS && !h.usable()) return null;
+
+        Connection conn = null;
+        try {
+            conn = DriverManager.getConnection(url, user, pass);
+            if (h == null || now - h.checkedAt() >= CHECK_EVERY_MS) {
+                boolean usable = lagOk(conn, storeId);
+                health.put(storeId, new Health(usable, now));
+                if (!usable) {
+                    conn.close();
+                    return null;
+                }
+            }
+            conn.setReadOnly(true);
+            return conn;
+        } catch (SQLException e) {
+            if (h == null || h.usable()) LOG.warn("Réplica da loja {} indisponível, relatórios no primário: {}", storeId, e.toString());
+            health.put(storeId, new Health(false, now));
+            if (conn != null) {
+                try { conn.close(); } catch (SQLException ignore) {}
+            }
+            return null;
+        }
+    }
+
+    private static boolean lagOk(Connection conn, int storeId) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+            if (!rs.next()) return true; // não é réplica (ex.: outro primário para testes locais)
+            long lag = rs.getLong("Seconds_Behind_Source");
+            if (rs.wasNull()) {
+                LOG.warn("Réplica da loja {} com replicação parada", storeId);
+                return false;
+            }
+            if (lag > MAX_LAG_SECONDS) {
+                LOG.warn("Réplica da loja {} atrasada {} s (máximo {} s)", storeId, lag, MAX_LAG_SECONDS);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /** "schema@host:porta" ou URL JDBC completa. */
+    private static String toUrl(String target) {
+        if (target.startsWith("jdbc:")) return target;
+        int at = target.indexOf('@');
+        if (at < 0) throw new IllegalArgumentException("Réplica deve ser schema@host[:porta] ou URL JDBC: " + target);
+        return "jdbc:mysql://" + target.substring(at + 1) + "/" + target.substring(0, at);
+    }
+}
@@ -0,0 +1,68 @@
+package util;
+
+/**
+ * Redução de séries temporais para gráficos usando Largest-Triangle-Three-Buckets.
+ * Em cada bucket escolhe o ponto que forma o maior triângulo com o ponto já
+ * escolhido e a média do bucket seguinte, preservando picos e vales.
+ */
+public final class SeriesDownsampler {
+
+    private SeriesDownsampler() { }
+
+    /**
+     * Seleciona no máximo {@code threshold} índices do intervalo [from, to).
+     * O primeiro e o último ponto do intervalo sempre são mantidos.
+     */
+    public static int[] lttb(long[] x, double[] y, int from, int to, int threshold) {
+        int n = to - from;
+        if (n <= 0) return new int[0];
+        if (threshold < 3 || n <= threshold) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = from + i;
+            return all;
+        }
+
+        int[] picked = new int[threshold];
+        int out = 0;
+        picked[out++] = from;
+
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        for (int b = 0; b < threshold - 2; b++) {
+            int start = from + 1 + (int) Math.floor(b * bucketSize);
+            int end   = Math.min(from + 1 + (int) Math.floor((b + 1) * bucketSize), to - 1);
+
+            // média do próximo bucket (ou o último ponto, no bucket final)
+            int nextStart = end;
+            int nextEnd   = Math.min(from + 1 + (int) Math.floor((b + 2) * bucketSize), to);
+            double avgX = 0, avgY = 0;
+            int cnt = nextEnd - nextStart;
+            if (cnt <= 0) {
+                avgX = x[to - 1];
+                avgY = y[to - 1];
+            } else {
+                for (int i = nextStart; i < nextEnd; i++) {
+                    avgX += x[i];
+                    avgY += y[i];
+                }
+                avgX /= cnt;
+                avgY /= cnt;
+            }
+
+            double ax = x[a], ay = y[a];
+            double maxArea = -1;
+            int maxIdx = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - avgX) * (y[i] - ay) - (ax - x[i]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIdx = i;
+                }
+            }
+            picked[out++] = maxIdx;
+            a = maxIdx;
+        }
+        picked[out++] = to - 1;
+        return out == picked.length ? picked : java.util.Arrays.copyOf(picked, out);
+    }
+}
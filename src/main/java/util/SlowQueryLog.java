@@ -0,0 +1,358 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro das consultas lentas deste terminal.
+ *
+ * As conexões de {@link DBConnection} passam por aqui: todo statement que
+ * demora mais que {@code lojavila.consultaLenta.ms} (padrão 500; 0 desliga)
+ * entra num buffer circular em memória com o SQL, os parâmetros (texto
+ * mascarado, números e datas como vieram), as linhas lidas ou alteradas e o
+ * tempo de execução. O tempo medido é o do {@code execute*}; a leitura do
+ * {@code ResultSet} depois dele não entra.
+ *
+ * Para SELECT, UPDATE e DELETE, uma thread de fundo roda {@code EXPLAIN} com
+ * os mesmos parâmetros numa conexão à parte. É amostrado: cada SQL é
+ * explicado no máximo uma vez a cada {@link #PLAN_TTL_MS}, as repetições
+ * reaproveitam o plano, e com a fila cheia o pedido é descartado. Plano com
+ * varredura completa de tabela (type=ALL) fica marcado, que é como filtro
+ * sem índice aparece.
+ */
+public final class SlowQueryLog {
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    public static final long THRESHOLD_MS = Long.getLong("lojavila.consultaLenta.ms", 500);
+    private static final int CAPACITY     = Integer.getInteger("lojavila.consultaLenta.capacidade", 200);
+    private static final long PLAN_TTL_MS = 10 * 60_000;
+    private static final int PLAN_CACHE   = 500;
+    private static final int EXPLAIN_TIMEOUT_S = 5;
+
+    /** Uma consulta lenta, como estava quando {@link #recent()} foi chamado. */
+    public record SlowQuery(long id, LocalDateTime at, long millis, String sql, String params,
+                            long rows, String thread, String database, String plan, boolean fullScan) { }
+
+    private static final class Entry {
+        final long id = SEQ.incrementAndGet();
+        final LocalDateTime at = LocalDateTime.now();
+        final long millis;
+        final String sql, params, thread, database;
+        volatile long rows;
+        volatile String plan;
+        volatile boolean fullScan;
+
+        Entry(long millis, String sql, String params, long rows, String database) {
+            this.millis = millis;
+            this.sql = sql;
+            this.params = params;
+            this.rows = rows;
+            this.thread = Thread.currentThread().getName();
+            this.database = database;
+        }
+
+        SlowQuery snapshot() {
+            return new SlowQuery(id, at, millis, sql, params, rows, thread, database, plan, fullScan);
+        }
+    }
+
+    private record Plan(String text, boolean fullScan, long at) { }
+
+    private static final AtomicLong SEQ = new AtomicLong();
+    private static final Deque<Entry> RING = new ArrayDeque<>();
+    private static final Map<String, Plan> PLANS = new ConcurrentHashMap<>();
+    private static final ThreadPoolExecutor EXPLAINER = createExplainer();
+
+    private SlowQueryLog() { }
+
+    private static ThreadPoolExecutor createExplainer() {
+        ThreadPoolExecutor ex = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(16), r -> {
+            Thread t = new Thread(r, "explain-consultas");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        ex.allowCoreThreadTimeOut(true);
+        return ex;
+    }
+
+    /** Consultas lentas guardadas, da mais recente para a mais antiga. */
+    public static List<SlowQuery> recent() {
+        List<SlowQuery> list;
+        synchronized (RING) {
+            list = new ArrayList<>(RING.size());
+            for (var it = RING.descendingIterator(); it.hasNext(); ) list.add(it.next().snapshot());
+        }
+        return list;
+    }
+
+    public static void clear() {
+        synchronized (RING) {
+            RING.clear();
+        }
+        PLANS.clear();
+    }
+
+    /** Conexão que mede os statements de {@code conn}; {@code url} é de onde ela veio, para o EXPLAIN. */
+    static Connection trace(Connection conn, String url) {
+        if (THRESHOLD_MS <= 0) return conn;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conn, url));
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection real;
+        private final String url;
+
+        ConnectionHandler(Connection real, String url) {
+            this.real = real;
+            this.url = url;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            Object result = call(real, m, args);
+            switch (m.getName()) {
+                case "prepareStatement" -> {
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class},
+                            new StatementHandler((Statement) result, (Connection) proxy, url, (String) args[0]));
+                }
+                case "createStatement" -> {
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                            new Class<?>[]{Statement.class},
+                            new StatementHandler((Statement) result, (Connection) proxy, url, null));
+                }
+                default -> {
+                    return result;
+                }
+            }
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement real;
+        private final Connection conn;
+        private final String url;
+        private final String prepared;
+        private final Map<Integer, Object> params = new TreeMap<>();
+        private int batched;
+        private String lastBatchSql;
+        /** Entrada da última execução lenta, enquanto o ResultSet dela ainda pode ser lido. */
+        private Entry slow;
+
+        StatementHandler(Statement real, Connection conn, String url, String prepared) {
+            this.real = real;
+            this.conn = conn;
+            this.url = url;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if (m.getDeclaringClass() == PreparedStatement.class && name.startsWith("set")
+                    && args != null && args.length >= 2 && args[0] instanceof Integer idx) {
+                params.put(idx, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                params.clear();
+            } else if (name.equals("addBatch")) {
+                batched++;
+                if (args != null && args.length == 1) lastBatchSql = (String) args[0];
+            } else if (name.equals("clearBatch")) {
+                batched = 0;
+            } else if (name.equals("getConnection")) {
+                return conn;
+            } else if (name.equals("getResultSet")) {
+                ResultSet rs = (ResultSet) call(real, m, args);
+                return rs == null || slow == null ? rs : counting(rs, slow);
+            } else if (name.startsWith("execute")) {
+                return execute(m, args);
+            }
+            return call(real, m, args);
+        }
+
+        private Object execute(Method m, Object[] args) throws Throwable {
+            boolean batch = m.getName().endsWith("Batch");
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s
+                    : batch && prepared == null ? lastBatchSql : prepared;
+            int rowsInBatch = batched;
+            slow = null;
+            long t0 = System.nanoTime();
+            Object result = call(real, m, args);
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            if (batch) batched = 0;
+            if (ms < THRESHOLD_MS || sql == null) return result;
+
+            long rows = switch (result) {
+                case Integer n -> n;
+                case Long n -> n;
+                case int[] counts -> sum(counts, rowsInBatch);
+                case long[] counts -> sum(counts, rowsInBatch);
+                case Boolean isQuery -> isQuery ? -1 : real.getUpdateCount();
+                case null, default -> -1;
+            };
+            String shown = batch && rowsInBatch > 1 ? sql + "  -- lote de " + rowsInBatch : sql;
+            Entry e = new Entry(ms, compact(shown), redact(params), rows, new DBConnection.Store(0, url).name());
+            add(e);
+            if (!batch && explainable(sql)) explain(url, sql, new HashMap<>(params), e);
+            if (result instanceof ResultSet rs) {
+                e.rows = 0;
+                return counting(rs, e);
+            }
+            slow = e;
+            return result;
+        }
+    }
+
+    private static long sum(int[] counts, int fallback) {
+        long n = 0;
+        for (int c : counts) {
+            if (c == Statement.SUCCESS_NO_INFO) return fallback;
+            if (c > 0) n += c;
+        }
+        return n;
+    }
+
+    private static long sum(long[] counts, int fallback) {
+        long n = 0;
+        for (long c : counts) {
+            if (c == Statement.SUCCESS_NO_INFO) return fallback;
+            if (c > 0) n += c;
+        }
+        return n;
+    }
+
+    /** Conta as linhas lidas de uma consulta lenta direto na entrada dela. */
+    private static ResultSet counting(ResultSet rs, Entry e) {
+        InvocationHandler h = (proxy, m, args) -> {
+            Object result = call(rs, m, args);
+            if (m.getName().equals("next") && Boolean.TRUE.equals(result)) e.rows++;
+            return result;
+        };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, h);
+    }
+
+    private static Object call(Object target, Method m, Object[] args) throws Throwable {
+        try {
+            return m.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void add(Entry e) {
+        synchronized (RING) {
+            if (RING.size() >= CAPACITY) RING.pollFirst();
+            RING.addLast(e);
+        }
+        LOG.info("Consulta lenta ({} ms, {}): {}", e.millis, e.database, e.sql);
+    }
+
+    // --- EXPLAIN ---------------------------------------------------------
+
+    private static boolean explainable(String sql) {
+        String head = sql.stripLeading();
+        while (head.startsWith("(")) head = head.substring(1).stripLeading();
+        int end = 0;
+        while (end < head.length() && Character.isLetter(head.charAt(end))) end++;
+        String verb = head.substring(0, end).toUpperCase();
+        return verb.equals("SELECT") || verb.equals("UPDATE") || verb.equals("DELETE") || verb.equals("WITH");
+    }
+
+    private static void explain(String url, String sql, Map<Integer, Object> values, Entry e) {
+        Plan cached = PLANS.get(sql);
+        if (cached != null && System.currentTimeMillis() - cached.at() < PLAN_TTL_MS) {
+            e.plan = cached.text();
+            e.fullScan = cached.fullScan();
+            return;
+        }
+        // marca antes de enfileirar: as repetições até o plano chegar não pedem outro
+        PLANS.put(sql, new Plan(null, false, System.currentTimeMillis()));
+        if (PLANS.size() > PLAN_CACHE) PLANS.clear();
+        EXPLAINER.execute(() -> {
+            try (Connection conn = DBConnection.openUntraced(url);
+                 PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+                ps.setQueryTimeout(EXPLAIN_TIMEOUT_S);
+                for (Map.Entry<Integer, Object> p : values.entrySet()) ps.setObject(p.getKey(), p.getValue());
+                Plan plan = format(ps);
+                PLANS.put(sql, plan);
+                e.plan = plan.text();
+                e.fullScan = plan.fullScan();
+            } catch (SQLException ex) {
+                PLANS.remove(sql);
+                e.plan = "EXPLAIN falhou: " + ex.getMessage();
+                LOG.debug("EXPLAIN de consulta lenta falhou: {}", ex.toString());
+            }
+        });
+    }
+
+    private static Plan format(PreparedStatement ps) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        boolean fullScan = false;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String type = rs.getString("type");
+                String key = rs.getString("key");
+                String extra = rs.getString("Extra");
+                if ("ALL".equals(type)) fullScan = true;
+                if (sb.length() > 0) sb.append('\n');
+                sb.append(rs.getString("select_type")).append(' ')
+                  .append(rs.getString("table") == null ? "-" : rs.getString("table"))
+                  .append("  type=").append(type == null ? "-" : type)
+                  .append("  key=").append(key == null ? "-" : key)
+                  .append("  rows=").append(rs.getLong("rows"));
+                if (extra != null && !extra.isEmpty()) sb.append("  ").append(extra);
+            }
+        }
+        return new Plan(sb.toString(), fullScan, System.currentTimeMillis());
+    }
+
+    // --- texto -----------------------------------------------------------
+
+    private static String compact(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    /** Parâmetros para exibição: texto nunca aparece (nomes, senhas, documentos). */
+    private static String redact(Map<Integer, Object> params) {
+        if (params.isEmpty()) return "";
+        StringJoiner sj = new StringJoiner(", ");
+        for (Map.Entry<Integer, Object> p : params.entrySet()) {
+            Object v = p.getValue();
+            String shown;
+            if (v == null) shown = "NULL";
+            else if (v instanceof Number || v instanceof Boolean || v instanceof TemporalAccessor
+                    || v instanceof java.util.Date) shown = v.toString();
+            else if (v instanceof byte[] b) shown = "<" + b.length + " bytes>";
+            else shown = "'***'";
+            sj.add(p.getKey() + "=" + shown);
+        }
+        return sj.toString();
+    }
+}
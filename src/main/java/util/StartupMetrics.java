@@ -0,0 +1,27 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registra no log o tempo de cada fase da inicialização, contado a partir do
+ * início da JVM, para acompanhar o tempo até a primeira interação.
+ */
+public final class StartupMetrics {
+    private static final Logger LOG = LoggerFactory.getLogger(StartupMetrics.class);
+    private static final long JVM_START = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private StartupMetrics() { }
+
+    /** Marca o fim de uma fase. */
+    public static void mark(String phase) {
+        LOG.info("startup: {} em +{} ms", phase, System.currentTimeMillis() - JVM_START);
+    }
+
+    /** Registra a duração de uma tarefa isolada (ex.: uma etapa do aquecimento). */
+    public static void took(String task, long startNanos) {
+        LOG.info("startup: {} levou {} ms", task, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,62 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Identificação deste terminal nas reservas, nos tickets e na auditoria.
+ *
+ * Vem de {@code lojavila.terminal} quando configurado; senão é gerada na
+ * primeira execução e guardada em {@code ~/.lojavila/terminal.id}, então o
+ * mesmo caixa mantém o mesmo id entre reinícios. Dois caixas na mesma conta
+ * da mesma máquina dividem o arquivo e precisam da propriedade.
+ */
+public final class Terminal {
+    private static final Logger LOG = LoggerFactory.getLogger(Terminal.class);
+    private static final int MAX_LENGTH = 48; // colunas de 64, com folga para sufixos (simulador)
+
+    /** Id deste terminal, estável entre execuções. */
+    public static final String ID = resolve();
+
+    private Terminal() { }
+
+    private static String resolve() {
+        String configured = System.getProperty("lojavila.terminal", "").trim();
+        if (!configured.isEmpty()) return truncate(configured);
+
+        Path file = Path.of(System.getProperty("user.home"), ".lojavila", "terminal.id");
+        try {
+            if (Files.isRegularFile(file)) {
+                String saved = Files.readString(file, StandardCharsets.UTF_8).trim();
+                if (!saved.isEmpty()) return truncate(saved);
+            }
+            String id = UUID.randomUUID().toString();
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, id, StandardCharsets.UTF_8);
+            return id;
+        } catch (IOException e) {
+            // sem onde guardar: o nome da máquina ao menos não muda a cada reinício
+            LOG.warn("Não foi possível guardar o id do terminal em {}: {}", file, e.toString());
+            return truncate(hostName());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "terminal";
+        }
+    }
+
+    private static String truncate(String id) {
+        return id.length() <= MAX_LENGTH ? id : id.substring(0, MAX_LENGTH);
+    }
+}
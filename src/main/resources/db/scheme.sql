@@ -1,10 +1,20 @@
 -- Criação do banco de dados
+-- Com várias lojas (lojavila.lojas), rode este script uma vez por schema.
 DROP IF EXISTS lojavila
 CREATE DATABASE lojavila
 USE lojavila
 
 -- Limpeza
+DROP TABLE IF EXISTS audit_log;
+DROP TABLE IF EXISTS stock_ledger_state;
+DROP TABLE IF EXISTS stock_snapshots;
+DROP TABLE IF EXISTS stock_movements;
+DROP TABLE IF EXISTS product_demand;
+DROP TABLE IF EXISTS stock_reservations;
+DROP TABLE IF EXISTS sales_archive;
 DROP TABLE IF EXISTS sales;
+DROP TABLE IF EXISTS sale_tickets;
+DROP TABLE IF EXISTS ticket_blocks;
 DROP TABLE IF EXISTS products;
 DROP TABLE IF EXISTS users;
 
@@ -21,21 +31,148 @@ CREATE TABLE products (
     id INT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
     price DECIMAL(10,2) NOT NULL,
-    quantity INT NOT NULL DEFAULT 0
+    quantity INT NOT NULL DEFAULT 0,
+    sku VARCHAR(32) NULL,
+    reorder_level INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    UNIQUE INDEX uq_products_sku (sku),
+    INDEX idx_products_name (name),
+    INDEX idx_products_updated_at (updated_at)
 );
 
--- Criação da tabela de vendas
+-- Cabeçalho de cada venda fechada; o id vem dos blocos de ticket_blocks (service.TicketNumbers)
+CREATE TABLE sale_tickets (
+    id BIGINT PRIMARY KEY,
+    user_id INT NOT NULL,
+    terminal VARCHAR(64) NOT NULL,
+    line_count INT NOT NULL,
+    items INT NOT NULL,
+    total DECIMAL(12,2) NOT NULL,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_tickets_created (created_at),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- Contador da numeração de tickets: cada terminal reserva um bloco por vez
+CREATE TABLE ticket_blocks (
+    id TINYINT PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
+INSERT INTO ticket_blocks (id, next_id) VALUES (1, 1);
+
+-- Criação da tabela de vendas (uma linha por item; ticket_id nulo nas vendas anteriores aos tickets)
 CREATE TABLE sales (
     id INT AUTO_INCREMENT PRIMARY KEY,
+    ticket_id BIGINT NULL,
     product_id INT NOT NULL,
     user_id INT NOT NULL,
     quantity INT NOT NULL,
     unit_price DECIMAL(10,2) NOT NULL,
     sale_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_sales_date (sale_date),
+    INDEX idx_sales_ticket (ticket_id),
+    FOREIGN KEY (ticket_id) REFERENCES sale_tickets(id),
     FOREIGN KEY (product_id) REFERENCES products(id),
     FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
+-- Vendas antigas, uma partição por mês (sem FKs: tabelas particionadas não as suportam)
+CREATE TABLE sales_archive (
+    id INT NOT NULL,
+    ticket_id BIGINT NULL,
+    product_id INT NOT NULL,
+    user_id INT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    sale_date DATETIME NOT NULL,
+    PRIMARY KEY (id, sale_date),
+    INDEX idx_sales_archive_product (product_id),
+    INDEX idx_sales_archive_user (user_id)
+)
+PARTITION BY RANGE (TO_DAYS(sale_date)) (
+    PARTITION p_inicio VALUES LESS THAN (TO_DAYS('2000-01-01')),
+    PARTITION p_futuro VALUES LESS THAN MAXVALUE
+);
+
+-- Reservas temporárias de estoque dos carrinhos abertos
+CREATE TABLE stock_reservations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id INT NOT NULL,
+    terminal_id VARCHAR(64) NOT NULL,
+    quantity INT NOT NULL,
+    expires_at DATETIME(3) NOT NULL,
+    INDEX idx_reservations_product (product_id, expires_at),
+    INDEX idx_reservations_expires (expires_at),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Razão de estoque (dao.StockLedgerDAO): quantity é a variação, negativa nas saídas.
+-- products.quantity guarda a soma dos movimentos consolidados (fold_seq > 0, o número da rodada).
+CREATE TABLE stock_movements (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id INT NOT NULL,
+    kind VARCHAR(16) NOT NULL,
+    quantity INT NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    note VARCHAR(255) NULL,
+    created_at TIMESTAMP(3) NOT NULL,
+    fold_seq BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_movements_product (product_id, id),
+    INDEX idx_movements_pending (fold_seq, product_id),
+    INDEX idx_movements_product_fold (product_id, fold_seq),
+    INDEX idx_movements_created (created_at),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Saldos consolidados copiados uma vez por dia (consultas de estoque numa data)
+CREATE TABLE stock_snapshots (
+    product_id INT NOT NULL,
+    taken_at TIMESTAMP(3) NOT NULL,
+    quantity INT NOT NULL,
+    fold_seq BIGINT NOT NULL,
+    PRIMARY KEY (product_id, taken_at),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Controle da consolidação do razão: uma linha só
+CREATE TABLE stock_ledger_state (
+    id TINYINT PRIMARY KEY,
+    fold_seq BIGINT NOT NULL,
+    snapshot_at TIMESTAMP(3) NULL
+);
+INSERT INTO stock_ledger_state (id, fold_seq) VALUES (1, 0);
+
+-- Previsão de demanda por produto (DemandForecastService); season_N = ajuste do dia da semana N (1 = segunda)
+CREATE TABLE product_demand (
+    product_id INT PRIMARY KEY,
+    level DOUBLE NOT NULL,
+    mad DOUBLE NOT NULL,
+    last_day DATE NOT NULL,
+    season_1 DOUBLE NOT NULL,
+    season_2 DOUBLE NOT NULL,
+    season_3 DOUBLE NOT NULL,
+    season_4 DOUBLE NOT NULL,
+    season_5 DOUBLE NOT NULL,
+    season_6 DOUBLE NOT NULL,
+    season_7 DOUBLE NOT NULL,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Trilha de auditoria (gravada em lotes por util.AuditLog; sem FKs, sobrevive às exclusões)
+CREATE TABLE audit_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    at DATETIME(3) NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    terminal VARCHAR(64) NOT NULL,
+    entity VARCHAR(32) NOT NULL,
+    entity_id VARCHAR(64) NULL,
+    action VARCHAR(32) NOT NULL,
+    before_value TEXT NULL,
+    after_value TEXT NULL,
+    INDEX idx_audit_entity (entity, entity_id, at),
+    INDEX idx_audit_at (at)
+);
+
 -- Usuários (ADMIN e EMPLOYEEs)
 INSERT INTO users (username, password_hash, role) VALUES
 ('admin', '$2a$10$pSa60tAVrUa4YOEZE87pFOkaKj3dacjqrz8peZo6AMBYxXqiDDifS', 'ADMIN');
@@ -0,0 +1,136 @@
+-- Alterações para bancos criados com versões anteriores do scheme.sql.
+-- Cada bloco pode ser aplicado uma única vez, na ordem.
+
+-- Catálogo incremental: data da última alteração de cada produto
+ALTER TABLE products
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    ADD INDEX idx_products_updated_at (updated_at);
+
+-- Código de barras/SKU para leitura no caixa
+ALTER TABLE products
+    ADD COLUMN sku VARCHAR(32) NULL AFTER quantity,
+    ADD UNIQUE INDEX uq_products_sku (sku),
+    ADD INDEX idx_products_name (name);
+
+-- Reservas temporárias de estoque dos carrinhos abertos
+CREATE TABLE stock_reservations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id INT NOT NULL,
+    terminal_id VARCHAR(64) NOT NULL,
+    quantity INT NOT NULL,
+    expires_at DATETIME(3) NOT NULL,
+    INDEX idx_reservations_product (product_id, expires_at),
+    INDEX idx_reservations_expires (expires_at),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Vendas antigas, uma partição por mês (movidas por SalesArchiveService)
+ALTER TABLE sales ADD INDEX idx_sales_date (sale_date);
+CREATE TABLE sales_archive (
+    id INT NOT NULL,
+    product_id INT NOT NULL,
+    user_id INT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    sale_date DATETIME NOT NULL,
+    PRIMARY KEY (id, sale_date),
+    INDEX idx_sales_archive_product (product_id),
+    INDEX idx_sales_archive_user (user_id)
+)
+PARTITION BY RANGE (TO_DAYS(sale_date)) (
+    PARTITION p_inicio VALUES LESS THAN (TO_DAYS('2000-01-01')),
+    PARTITION p_futuro VALUES LESS THAN MAXVALUE
+);
+
+-- Estoque mínimo por produto (alertas de estoque baixo)
+ALTER TABLE products
+    ADD COLUMN reorder_level INT NOT NULL DEFAULT 0 AFTER sku;
+
+-- Trilha de auditoria (util.AuditLog)
+CREATE TABLE audit_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    at DATETIME(3) NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    terminal VARCHAR(64) NOT NULL,
+    entity VARCHAR(32) NOT NULL,
+    entity_id VARCHAR(64) NULL,
+    action VARCHAR(32) NOT NULL,
+    before_value TEXT NULL,
+    after_value TEXT NULL,
+    INDEX idx_audit_entity (entity, entity_id, at),
+    INDEX idx_audit_at (at)
+);
+
+-- Previsão de demanda por produto (DemandForecastService)
+CREATE TABLE product_demand (
+    product_id INT PRIMARY KEY,
+    level DOUBLE NOT NULL,
+    mad DOUBLE NOT NULL,
+    last_day DATE NOT NULL,
+    season_1 DOUBLE NOT NULL,
+    season_2 DOUBLE NOT NULL,
+    season_3 DOUBLE NOT NULL,
+    season_4 DOUBLE NOT NULL,
+    season_5 DOUBLE NOT NULL,
+    season_6 DOUBLE NOT NULL,
+    season_7 DOUBLE NOT NULL,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Razão de estoque (dao.StockLedgerDAO). O quantity atual vira o saldo consolidado
+-- da rodada 0 e o primeiro snapshot; as próximas mudanças entram como movimentos.
+CREATE TABLE stock_movements (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id INT NOT NULL,
+    kind VARCHAR(16) NOT NULL,
+    quantity INT NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    note VARCHAR(255) NULL,
+    created_at TIMESTAMP(3) NOT NULL,
+    fold_seq BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_movements_product (product_id, id),
+    INDEX idx_movements_pending (fold_seq, product_id),
+    INDEX idx_movements_product_fold (product_id, fold_seq),
+    INDEX idx_movements_created (created_at),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+CREATE TABLE stock_snapshots (
+    product_id INT NOT NULL,
+    taken_at TIMESTAMP(3) NOT NULL,
+    quantity INT NOT NULL,
+    fold_seq BIGINT NOT NULL,
+    PRIMARY KEY (product_id, taken_at),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+CREATE TABLE stock_ledger_state (
+    id TINYINT PRIMARY KEY,
+    fold_seq BIGINT NOT NULL,
+    snapshot_at TIMESTAMP(3) NULL
+);
+INSERT INTO stock_ledger_state (id, fold_seq, snapshot_at) VALUES (1, 0, NOW(3));
+INSERT INTO stock_snapshots (product_id, taken_at, quantity, fold_seq)
+    SELECT id, NOW(3), quantity, 0 FROM products;
+
+-- Tickets: cabeçalho de cada venda e numeração em blocos por terminal (service.TicketNumbers)
+CREATE TABLE sale_tickets (
+    id BIGINT PRIMARY KEY,
+    user_id INT NOT NULL,
+    terminal VARCHAR(64) NOT NULL,
+    line_count INT NOT NULL,
+    items INT NOT NULL,
+    total DECIMAL(12,2) NOT NULL,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_tickets_created (created_at),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+CREATE TABLE ticket_blocks (
+    id TINYINT PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
+INSERT INTO ticket_blocks (id, next_id) VALUES (1, 1);
+ALTER TABLE sales
+    ADD COLUMN ticket_id BIGINT NULL AFTER id,
+    ADD INDEX idx_sales_ticket (ticket_id),
+    ADD FOREIGN KEY (ticket_id) REFERENCES sale_tickets(id);
+ALTER TABLE sales_archive
+    ADD COLUMN ticket_id BIGINT NULL AFTER id;
@@ -0,0 +1,102 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    @Test
+    void parsesSaleBody() {
+        Object v = Json.parse("{ \"items\": [ {\"productId\": 12, \"quantity\": 3}, {\"productId\":7,\"quantity\":1} ] }");
+
+        Map<?, ?> body = assertInstanceOf(Map.class, v);
+        List<?> items = assertInstanceOf(List.class, body.get("items"));
+        assertEquals(2, items.size());
+        assertEquals(Map.of("productId", 12L, "quantity", 3L), items.get(0));
+        assertEquals(Map.of("productId", 7L, "quantity", 1L), items.get(1));
+    }
+
+    @Test
+    void parsesScalars() {
+        assertEquals(42L, Json.parse("42"));
+        assertEquals(-1.5, Json.parse("-1.5"));
+        assertEquals(1e3, Json.parse("1e3"));
+        assertEquals(Boolean.TRUE, Json.parse("true"));
+        assertEquals(Boolean.FALSE, Json.parse(" false "));
+        assertNull(Json.parse("null"));
+        assertEquals(List.of(), Json.parse("[]"));
+        assertEquals(Map.of(), Json.parse("{}"));
+    }
+
+    @Test
+    void parsesStringEscapes() {
+        assertEquals("a\"b\\c\nd\té", Json.parse("\"a\\\"b\\\\c\\nd\\t\\u00e9\""));
+    }
+
+    @Test
+    void rejectsMalformedBodies() {
+        for (String bad : List.of("", "{", "[1,", "{\"a\" 1}", "{a:1}", "\"sem fim", "tru", "1 2", "[1]x", "\"\\u12\"")) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void acceptsNestingUpToTheLimit() {
+        String json = "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH);
+        assertInstanceOf(List.class, Json.parse(json));
+    }
+
+    @Test
+    void rejectsNestingPastTheLimit() {
+        String json = "[".repeat(Json.MAX_DEPTH + 1) + "]".repeat(Json.MAX_DEPTH + 1);
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(json));
+    }
+
+    @Test
+    void deepBodyIsAnErrorNotAStackOverflow() {
+        String json = "{\"a\":".repeat(100_000);
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(json));
+    }
+
+    @Test
+    void writerHandlesCommasAndNesting() throws IOException {
+        StringWriter w = new StringWriter();
+        new Json.Out(w)
+                .beginObject()
+                .field("id", 1)
+                .field("nome", "Café")
+                .name("tags").beginArray().value("a").value("b").endArray()
+                .name("vazio").beginObject().endObject()
+                .field("preco", 2.5)
+                .endObject();
+
+        assertEquals("{\"id\":1,\"nome\":\"Café\",\"tags\":[\"a\",\"b\"],\"vazio\":{},\"preco\":2.5}", w.toString());
+    }
+
+    @Test
+    void writerEscapesAndWritesNulls() throws IOException {
+        StringWriter w = new StringWriter();
+        new Json.Out(w)
+                .beginArray()
+                .value("x\"y\\z\n\u0001")
+                .value((String) null)
+                .value(Double.NaN)
+                .endArray();
+
+        assertEquals("[\"x\\\"y\\\\z\\n\\u0001\",null,null]", w.toString());
+    }
+
+    @Test
+    void writtenOutputParsesBack() throws IOException {
+        StringWriter w = new StringWriter();
+        new Json.Out(w).beginObject().field("s", "linha 1\nlinha \"2\"").field("n", -7).endObject();
+
+        assertEquals(Map.of("s", "linha 1\nlinha \"2\"", "n", -7L), Json.parse(w.toString()));
+    }
+}
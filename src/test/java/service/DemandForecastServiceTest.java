@@ -0,0 +1,97 @@
+package service;
+
+import model.DemandForecast;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandForecastServiceTest {
+    /** Uma segunda-feira, para os testes de dia da semana. */
+    private static final LocalDate START = LocalDate.of(2026, 1, 5);
+
+    private static int[] daily(int days, IntUnaryOperator qty) {
+        int[] sold = new int[days];
+        for (int i = 0; i < days; i++) sold[i] = qty.applyAsInt(i);
+        return sold;
+    }
+
+    @Test
+    void constantDemandConvergesToTheDailyLevel() {
+        int days = 120;
+        DemandForecast f = new DemandForecast(1, START.minusDays(1));
+        DemandForecastService.advance(f, daily(days, i -> 10), START, START.plusDays(days - 1));
+
+        assertEquals(START.plusDays(days - 1), f.getLastDay());
+        assertEquals(10, f.forecast(START.plusDays(days)), 0.5);
+        assertTrue(f.getMad() < 1, "erro médio deveria cair com demanda constante: " + f.getMad());
+    }
+
+    @Test
+    void daysWithoutSalesCountAsZero() {
+        DemandForecast f = new DemandForecast(1, START.minusDays(1));
+        f.setLevel(10);
+        DemandForecastService.advance(f, null, START, START.plusDays(29));
+
+        assertEquals(START.plusDays(29), f.getLastDay());
+        assertTrue(f.getLevel() < 1, "nível deveria cair sem vendas: " + f.getLevel());
+    }
+
+    @Test
+    void learnsTheWeeklyPattern() {
+        int days = 16 * 7;
+        // só sábado vende: 70 unidades por semana
+        int[] sold = daily(days, i -> START.plusDays(i).getDayOfWeek() == DayOfWeek.SATURDAY ? 70 : 0);
+        DemandForecast f = new DemandForecast(1, START.minusDays(1));
+        DemandForecastService.advance(f, sold, START, START.plusDays(days - 1));
+
+        LocalDate nextSaturday = START.plusDays(days).with(TemporalAdjusters.next(DayOfWeek.SATURDAY));
+        LocalDate nextMonday = START.plusDays(days).with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+        assertTrue(f.getSeason(DayOfWeek.SATURDAY) > f.getSeason(DayOfWeek.MONDAY));
+        assertTrue(f.forecast(nextSaturday) > 5 * f.forecast(nextMonday),
+                "sábado " + f.forecast(nextSaturday) + " vs segunda " + f.forecast(nextMonday));
+    }
+
+    @Test
+    void onlyDaysAfterLastDayAreIncorporated() {
+        int days = 10;
+        // os 5 primeiros dias da janela já estão no estado: o volume deles não pode entrar de novo
+        int[] sold = daily(days, i -> i < 5 ? 1_000 : 4);
+        DemandForecast f = new DemandForecast(1, START.plusDays(4));
+        f.setLevel(4);
+        DemandForecastService.advance(f, sold, START, START.plusDays(days - 1));
+
+        assertEquals(4, f.getLevel(), 0.5);
+        assertEquals(START.plusDays(days - 1), f.getLastDay());
+    }
+
+    @Test
+    void alreadyUpToDateIsUntouched() {
+        DemandForecast f = new DemandForecast(1, START.plusDays(3));
+        f.setLevel(7);
+        f.setMad(2);
+        DemandForecastService.advance(f, daily(4, i -> 100), START, START.plusDays(3));
+
+        assertEquals(7, f.getLevel());
+        assertEquals(2, f.getMad());
+        assertEquals(START.plusDays(3), f.getLastDay());
+    }
+
+    @Test
+    void productOlderThanTheWindowReadsZeroBeforeIt() {
+        // último dia antes do início da janela (produto parado há tempo): dias fora do vetor contam zero
+        DemandForecast f = new DemandForecast(1, START.minusDays(3));
+        f.setLevel(10);
+        int[] sold = daily(2, i -> 10);
+        DemandForecastService.advance(f, sold, START, START.plusDays(1));
+
+        assertEquals(START.plusDays(1), f.getLastDay());
+        assertTrue(f.getLevel() < 10);
+        assertEquals(4, ChronoUnit.DAYS.between(START.minusDays(3), f.getLastDay()));
+    }
+}
@@ -0,0 +1,96 @@
+package service;
+
+import model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockAlertsTest {
+    private record Crossing(int id, boolean low, int lowCount) { }
+
+    private StockAlerts alerts;
+    private final List<Crossing> crossings = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        alerts = new StockAlerts();
+        alerts.addListener((p, low, count) -> crossings.add(new Crossing(p.getId(), low, count)));
+    }
+
+    private static Product product(int id, int quantity, int reorderLevel) {
+        Product p = new Product(id, "Produto " + id, 10.0, quantity);
+        p.setReorderLevel(reorderLevel);
+        return p;
+    }
+
+    /** Os avisos saem na EDT: espera os que já foram postados. */
+    private List<Crossing> events() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(() -> { });
+        return crossings;
+    }
+
+    @Test
+    void productWithoutReorderLevelIsIgnored() throws Exception {
+        alerts.changed(null, product(1, 0, 0));
+        assertEquals(0, alerts.getLowCount());
+        assertTrue(events().isEmpty());
+    }
+
+    @Test
+    void reachingTheLevelRaisesAnAlert() throws Exception {
+        alerts.changed(null, product(1, 8, 5));
+        assertEquals(0, alerts.getLowCount());
+
+        alerts.changed(null, product(1, 5, 5)); // folga 0 já é alerta
+        assertEquals(1, alerts.getLowCount());
+        assertEquals(List.of(new Crossing(1, true, 1)), events());
+    }
+
+    @Test
+    void stayingBelowDoesNotRepeatTheEvent() throws Exception {
+        alerts.changed(null, product(1, 3, 5));
+        alerts.changed(null, product(1, 2, 5));
+        alerts.changed(null, product(1, 0, 5));
+
+        assertEquals(1, alerts.getLowCount());
+        assertEquals(List.of(new Crossing(1, true, 1)), events());
+    }
+
+    @Test
+    void restockClearsTheAlert() throws Exception {
+        alerts.changed(null, product(1, 2, 5));
+        alerts.changed(null, product(1, 6, 5));
+
+        assertEquals(0, alerts.getLowCount());
+        assertEquals(List.of(new Crossing(1, true, 1), new Crossing(1, false, 0)), events());
+        assertTrue(alerts.getLowStock().isEmpty());
+    }
+
+    @Test
+    void clearingTheLevelOrRemovingTheProductClearsTheAlert() throws Exception {
+        alerts.changed(null, product(1, 1, 5));
+        alerts.changed(null, product(2, 1, 5));
+        alerts.changed(null, product(1, 1, 0));
+        alerts.removed(product(2, 1, 5));
+
+        assertEquals(0, alerts.getLowCount());
+        assertEquals(List.of(new Crossing(1, true, 1), new Crossing(2, true, 2),
+                new Crossing(1, false, 1), new Crossing(2, false, 0)), events());
+    }
+
+    @Test
+    void lowStockIsOrderedByShortfall() {
+        alerts.changed(null, product(1, 4, 5));   // falta 1
+        alerts.changed(null, product(2, 0, 10));  // falta 10
+        alerts.changed(null, product(3, 50, 5));  // ok
+        alerts.changed(null, product(4, 2, 5));   // falta 3
+
+        assertEquals(List.of(2, 4, 1), alerts.getLowStock().stream().map(Product::getId).toList());
+    }
+}
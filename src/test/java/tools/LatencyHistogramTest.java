@@ -0,0 +1,73 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentile(0.5));
+        assertEquals(0, h.percentile(0.99));
+    }
+
+    @Test
+    void singleSampleIsEveryPercentile() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(1_500_000);
+        assertEquals(1_500_000, h.percentile(0.5));
+        assertEquals(1_500_000, h.percentile(1.0));
+    }
+
+    @Test
+    void percentilesWithinOnePercent() {
+        LatencyHistogram h = new LatencyHistogram();
+        // 1 µs .. 10 ms, uniforme
+        for (int i = 1; i <= 10_000; i++) h.record(i * 1_000L);
+
+        for (double p : new double[] {0.5, 0.9, 0.95, 0.99, 0.999}) {
+            long exact = (long) Math.ceil(p * 10_000) * 1_000L;
+            long got = h.percentile(p);
+            assertTrue(got >= exact, "p" + p + " abaixo do exato: " + got);
+            assertTrue(got <= exact * 1.01 + 1, "p" + p + " com erro acima de 1%: " + got + " vs " + exact);
+        }
+    }
+
+    @Test
+    void percentilesAreMonotonicAndCappedByMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 1_000; i++) h.record(50_000 + (i * 7919L) % 20_000_000);
+        h.record(123_456_789);
+
+        long previous = 0;
+        for (double p = 0.01; p <= 1.0; p += 0.01) {
+            long v = h.percentile(p);
+            assertTrue(v >= previous, "percentil diminuiu em p=" + p);
+            previous = v;
+        }
+        assertEquals(123_456_789, h.maxNanos());
+        assertEquals(h.maxNanos(), h.percentile(1.0));
+    }
+
+    @Test
+    void countsFromManyThreads() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                pool.execute(() -> {
+                    for (int i = 0; i < 10_000; i++) h.record(1_000 + i);
+                    h.error();
+                });
+            }
+        }
+        assertEquals(80_000, h.count());
+        assertEquals(8, h.errors());
+        assertEquals(10_999, h.maxNanos());
+    }
+}
@@ -0,0 +1,55 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfTest {
+    private static final int SAMPLES = 200_000;
+
+    private static int[] histogram(Zipf zipf, int n) {
+        SplittableRandom rnd = new SplittableRandom(42);
+        int[] counts = new int[n];
+        for (int i = 0; i < SAMPLES; i++) counts[zipf.sample(rnd)]++;
+        return counts;
+    }
+
+    @Test
+    void samplesStayInRange() {
+        int[] counts = histogram(new Zipf(50, 1.2), 50);
+        int total = 0;
+        for (int c : counts) total += c;
+        assertEquals(SAMPLES, total);
+    }
+
+    @Test
+    void frequenciesFollowTheExponent() {
+        int n = 100;
+        double s = 1.0;
+        double norm = 0;
+        for (int k = 1; k <= n; k++) norm += 1.0 / Math.pow(k, s);
+        int[] counts = histogram(new Zipf(n, s), n);
+
+        for (int k : new int[] {0, 1, 4, 9, 49}) {
+            double expected = 1.0 / Math.pow(k + 1, s) / norm;
+            double got = (double) counts[k] / SAMPLES;
+            assertEquals(expected, got, 0.005, "rank " + k);
+        }
+        assertTrue(counts[0] > counts[1] && counts[1] > counts[9] && counts[9] > counts[99]);
+    }
+
+    @Test
+    void zeroExponentIsUniform() {
+        int[] counts = histogram(new Zipf(10, 0), 10);
+        for (int k = 0; k < 10; k++) {
+            assertEquals(0.1, (double) counts[k] / SAMPLES, 0.005, "rank " + k);
+        }
+    }
+
+    @Test
+    void singleRank() {
+        assertArrayEquals(new int[] {SAMPLES}, histogram(new Zipf(1, 1.5), 1));
+    }
+}
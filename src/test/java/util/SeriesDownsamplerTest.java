@@ -0,0 +1,73 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeriesDownsamplerTest {
+
+    private static long[] xs(int n) {
+        long[] x = new long[n];
+        for (int i = 0; i < n; i++) x[i] = i * 60_000L;
+        return x;
+    }
+
+    @Test
+    void shortSeriesIsKeptWhole() {
+        int[] picked = SeriesDownsampler.lttb(xs(10), new double[10], 0, 10, 50);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, picked);
+    }
+
+    @Test
+    void thresholdBelowThreeKeepsEverything() {
+        assertEquals(100, SeriesDownsampler.lttb(xs(100), new double[100], 0, 100, 2).length);
+    }
+
+    @Test
+    void emptyRange() {
+        assertEquals(0, SeriesDownsampler.lttb(xs(10), new double[10], 5, 5, 3).length);
+    }
+
+    @Test
+    void returnsThresholdIncreasingIndicesWithBothEnds() {
+        int n = 10_000;
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) y[i] = Math.sin(i / 100.0) * 50 + (i % 7);
+        int[] picked = SeriesDownsampler.lttb(xs(n), y, 0, n, 300);
+
+        assertEquals(300, picked.length);
+        assertEquals(0, picked[0]);
+        assertEquals(n - 1, picked[picked.length - 1]);
+        for (int i = 1; i < picked.length; i++) {
+            assertTrue(picked[i] > picked[i - 1], "índices fora de ordem em " + i);
+        }
+    }
+
+    @Test
+    void keepsIsolatedSpikesAndDips() {
+        int n = 5_000;
+        double[] y = new double[n];
+        Arrays.fill(y, 10);
+        y[1_234] = 500;
+        y[3_210] = -500;
+        int[] picked = SeriesDownsampler.lttb(xs(n), y, 0, n, 100);
+
+        assertTrue(Arrays.stream(picked).anyMatch(i -> i == 1_234), "pico perdido");
+        assertTrue(Arrays.stream(picked).anyMatch(i -> i == 3_210), "vale perdido");
+    }
+
+    @Test
+    void subRangeStaysInsideBounds() {
+        int n = 2_000;
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) y[i] = i % 13;
+        int[] picked = SeriesDownsampler.lttb(xs(n), y, 500, 1_500, 50);
+
+        assertEquals(50, picked.length);
+        assertEquals(500, picked[0]);
+        assertEquals(1_499, picked[picked.length - 1]);
+        for (int i : picked) assertTrue(i >= 500 && i < 1_500, "índice fora do intervalo: " + i);
+    }
+}